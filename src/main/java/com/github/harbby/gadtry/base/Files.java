@@ -15,10 +15,28 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.IteratorPlus;
+
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
 
 public class Files
 {
@@ -38,6 +56,194 @@ public class Files
         return files;
     }
 
+    /**
+     * Lazy variant of {@link #listFiles(File, boolean, FileFilter)}.
+     * Directories are read with nio {@link DirectoryStream} on demand, so only the open directory
+     * streams of the current path are held in memory. Stop early by closing the iterator.
+     * Same as listFiles, unreadable directories are skipped.
+     */
+    public static IteratorPlus<File> walkFiles(File input, boolean recursive, FileFilter filter)
+    {
+        requireNonNull(input, "input is null");
+        requireNonNull(filter, "filter is null");
+        if (input.isFile()) {
+            return Iterators.wrap(Iterators.of(input));
+        }
+        return new FileWalker(input.toPath(), recursive, filter);
+    }
+
+    public static IteratorPlus<File> walkFiles(File input, boolean recursive)
+    {
+        return walkFiles(input, recursive, file -> true);
+    }
+
+    /**
+     * recursive listFiles that walks sub directories in parallel on the common ForkJoinPool
+     */
+    public static List<File> listFilesParallel(File input, FileFilter filter)
+    {
+        Queue<File> files = new ConcurrentLinkedQueue<>();
+        walkFilesParallel(input, filter, ForkJoinPool.commonPool(), files::add);
+        return new ArrayList<>(files);
+    }
+
+    /**
+     * Recursive walk that forks one task per sub directory, for deep or wide trees on parallel storage.
+     *
+     * @param visitor called concurrently from pool threads, return false to stop the walk
+     * @return false if the walk was stopped by the visitor
+     */
+    public static boolean walkFilesParallel(File input, FileFilter filter, ForkJoinPool pool, Predicate<File> visitor)
+    {
+        requireNonNull(input, "input is null");
+        requireNonNull(filter, "filter is null");
+        requireNonNull(pool, "pool is null");
+        requireNonNull(visitor, "visitor is null");
+        if (input.isFile()) {
+            return visitor.test(input);
+        }
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        pool.invoke(new WalkTask(input.toPath(), filter, visitor, stopped));
+        return !stopped.get();
+    }
+
+    private static class WalkTask
+            extends RecursiveAction
+    {
+        private final Path dir;
+        private final FileFilter filter;
+        private final Predicate<File> visitor;
+        private final AtomicBoolean stopped;
+
+        private WalkTask(Path dir, FileFilter filter, Predicate<File> visitor, AtomicBoolean stopped)
+        {
+            this.dir = dir;
+            this.filter = filter;
+            this.visitor = visitor;
+            this.stopped = stopped;
+        }
+
+        @Override
+        protected void compute()
+        {
+            List<WalkTask> subTasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = java.nio.file.Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    if (stopped.get()) {
+                        return;
+                    }
+                    File file = path.toFile();
+                    if (!filter.accept(file)) {
+                        continue;
+                    }
+                    if (file.isFile()) {
+                        if (!visitor.test(file)) {
+                            stopped.set(true);
+                            return;
+                        }
+                    }
+                    else {
+                        subTasks.add(new WalkTask(path, filter, visitor, stopped));
+                    }
+                }
+            }
+            catch (IOException | DirectoryIteratorException ignored) {
+                //unreadable directory
+            }
+            invokeAll(subTasks);
+        }
+    }
+
+    private static class FileWalker
+            implements IteratorPlus<File>
+    {
+        private final boolean recursive;
+        private final FileFilter filter;
+        private final Deque<DirectoryStream<Path>> streams = new ArrayDeque<>();
+        private final Deque<Iterator<Path>> iterators = new ArrayDeque<>();
+        private File next;
+
+        private FileWalker(Path root, boolean recursive, FileFilter filter)
+        {
+            this.recursive = recursive;
+            this.filter = filter;
+            open(root);
+        }
+
+        private void open(Path dir)
+        {
+            try {
+                DirectoryStream<Path> stream = java.nio.file.Files.newDirectoryStream(dir);
+                streams.push(stream);
+                iterators.push(stream.iterator());
+            }
+            catch (IOException ignored) {
+                //not exists or unreadable directory
+            }
+        }
+
+        private void closeCurrent()
+        {
+            iterators.pop();
+            try {
+                streams.pop().close();
+            }
+            catch (IOException ignored) {
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (next == null && !iterators.isEmpty()) {
+                Path path;
+                try {
+                    Iterator<Path> iterator = iterators.peek();
+                    if (!iterator.hasNext()) {
+                        closeCurrent();
+                        continue;
+                    }
+                    path = iterator.next();
+                }
+                catch (DirectoryIteratorException e) {
+                    closeCurrent();
+                    continue;
+                }
+                File file = path.toFile();
+                if (!filter.accept(file)) {
+                    continue;
+                }
+                if (file.isFile()) {
+                    next = file;
+                }
+                else if (recursive) {
+                    open(path);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public File next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            File file = next;
+            next = null;
+            return file;
+        }
+
+        @Override
+        public void close()
+        {
+            next = null;
+            while (!iterators.isEmpty()) {
+                closeCurrent();
+            }
+        }
+    }
+
     private static void scanFiles(File input, boolean recursive, FileFilter filter, List<File> list)
     {
         if (input.isFile()) {
@@ -15,18 +15,26 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.EachIterator;
+import com.github.harbby.gadtry.collection.IteratorPlus;
 import com.github.harbby.gadtry.collection.MutableList;
 import com.github.harbby.gadtry.collection.StateOption;
+import com.github.harbby.gadtry.collection.tuple.ObjIntTuple2;
+import com.github.harbby.gadtry.collection.tuple.ObjLongTuple2;
 import com.github.harbby.gadtry.collection.tuple.Tuple2;
 import com.github.harbby.gadtry.function.Function1;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Random;
 import java.util.Spliterator;
 import java.util.Spliterators;
@@ -39,6 +47,7 @@ import java.util.stream.StreamSupport;
 
 import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
 import static com.github.harbby.gadtry.base.MoreObjects.checkState;
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -99,6 +108,34 @@ public class Iterators
         return (Iterable<E>) EMPTY_ITERABLE;
     }
 
+    public static <E> IteratorPlus<E> wrap(Iterator<E> iterator)
+    {
+        requireNonNull(iterator, "iterator is null");
+        if (iterator instanceof IteratorPlus) {
+            return (IteratorPlus<E>) iterator;
+        }
+        return new IteratorPlus<E>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                iterator.remove();
+            }
+        };
+    }
+
     public static boolean isEmpty(Iterable<?> iterable)
     {
         requireNonNull(iterable);
@@ -461,6 +498,308 @@ public class Iterators
         };
     }
 
+    /**
+     * Reservoir sampling(Algorithm L), returns a uniform sample of at most {@code k} elements.
+     * The gap to the next replaced element is computed up front, so skipped elements cost
+     * only one {@code next()} call and no random number.
+     *
+     * @param iterator input
+     * @param k        sample size
+     * @param random   random
+     * @param <E>      type
+     * @return sample list, O(k) memory
+     */
+    public static <E> List<E> reservoirSample(Iterator<E> iterator, int k, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        Reservoir<E> reservoir = new Reservoir<>(k, random);
+        while (!reservoir.isFull() && iterator.hasNext()) {
+            reservoir.offer(iterator.next());
+        }
+        if (k == 0) {
+            return reservoir.items;
+        }
+        while (true) {
+            for (long i = reservoir.skip; i > 0; i--) {
+                if (!iterator.hasNext()) {
+                    return reservoir.items;
+                }
+                iterator.next();
+            }
+            if (!iterator.hasNext()) {
+                return reservoir.items;
+            }
+            reservoir.replace(iterator.next());
+        }
+    }
+
+    /**
+     * see {@link #reservoirSample(Iterator, int, Random)}, skipped elements never call {@code current()}
+     *
+     * @param iterator input
+     * @param k        sample size
+     * @param random   random
+     * @param <E>      type
+     * @return sample list, O(k) memory
+     */
+    public static <E> List<E> reservoirSample(EachIterator<E> iterator, int k, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        Reservoir<E> reservoir = new Reservoir<>(k, random);
+        while (!reservoir.isFull() && iterator.next()) {
+            reservoir.offer(iterator.current());
+        }
+        if (k == 0) {
+            return reservoir.items;
+        }
+        while (true) {
+            for (long i = reservoir.skip; i > 0; i--) {
+                if (!iterator.next()) {
+                    return reservoir.items;
+                }
+            }
+            if (!iterator.next()) {
+                return reservoir.items;
+            }
+            reservoir.replace(iterator.current());
+        }
+    }
+
+    /**
+     * Stratified sampling, keeps an independent reservoir of at most {@code k} elements per stratum.
+     *
+     * @param iterator input
+     * @param stratum  stratum key function
+     * @param k        sample size of each stratum
+     * @param random   random
+     * @param <E>      type
+     * @param <K>      stratum key type
+     * @return stratum to sample list, O(strata * k) memory
+     */
+    public static <E, K> Map<K, List<E>> stratifiedSample(Iterator<E> iterator, Function<E, K> stratum, int k, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(stratum, "stratum is null");
+        requireNonNull(random, "random is null");
+        checkArgument(k >= 0, "k must >= 0");
+        Map<K, Reservoir<E>> reservoirs = new HashMap<>();
+        while (iterator.hasNext()) {
+            E e = iterator.next();
+            reservoirs.computeIfAbsent(stratum.apply(e), key -> new Reservoir<>(k, random)).offer(e);
+        }
+        Map<K, List<E>> out = new HashMap<>(reservoirs.size());
+        reservoirs.forEach((key, reservoir) -> out.put(key, reservoir.items));
+        return out;
+    }
+
+    public static <E, K> Map<K, List<E>> stratifiedSample(EachIterator<E> iterator, Function<E, K> stratum, int k, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(stratum, "stratum is null");
+        requireNonNull(random, "random is null");
+        checkArgument(k >= 0, "k must >= 0");
+        Map<K, Reservoir<E>> reservoirs = new HashMap<>();
+        while (iterator.next()) {
+            E e = iterator.current();
+            reservoirs.computeIfAbsent(stratum.apply(e), key -> new Reservoir<>(k, random)).offer(e);
+        }
+        Map<K, List<E>> out = new HashMap<>(reservoirs.size());
+        reservoirs.forEach((key, reservoir) -> out.put(key, reservoir.items));
+        return out;
+    }
+
+    /**
+     * Bernoulli sampling, each element is selected independently with probability {@code fraction}.
+     * The distance to the next selected element is drawn from a geometric distribution,
+     * so only one random number is generated per selected element.
+     *
+     * @param iterator input
+     * @param fraction selection probability, [0, 1]
+     * @param random   random
+     * @param <E>      type
+     * @return lazy sampled iterator
+     */
+    public static <E> Iterator<E> bernoulliSample(Iterator<E> iterator, double fraction, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        GeometricGap gap = new GeometricGap(fraction, random);
+        return new Iterator<E>()
+        {
+            private final StateOption<E> option = StateOption.empty();
+
+            @Override
+            public boolean hasNext()
+            {
+                if (option.isDefined()) {
+                    return true;
+                }
+                if (gap.isNever()) {
+                    return false;
+                }
+                for (long i = gap.next(); i > 0; i--) {
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    iterator.next();
+                }
+                if (iterator.hasNext()) {
+                    option.update(iterator.next());
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public E next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return option.remove();
+            }
+        };
+    }
+
+    /**
+     * see {@link #bernoulliSample(Iterator, double, Random)}, skipped elements never call {@code current()}
+     *
+     * @param iterator input
+     * @param fraction selection probability, [0, 1]
+     * @param random   random
+     * @param <E>      type
+     * @return lazy sampled iterator
+     */
+    public static <E> EachIterator<E> bernoulliSample(EachIterator<E> iterator, double fraction, Random random)
+    {
+        requireNonNull(iterator, "iterator is null");
+        GeometricGap gap = new GeometricGap(fraction, random);
+        return new EachIterator<E>()
+        {
+            @Override
+            public boolean next()
+            {
+                if (gap.isNever()) {
+                    return false;
+                }
+                for (long i = gap.next(); i > 0; i--) {
+                    if (!iterator.next()) {
+                        return false;
+                    }
+                }
+                return iterator.next();
+            }
+
+            @Override
+            public E current()
+            {
+                return iterator.current();
+            }
+
+            @Override
+            public void close()
+                    throws Exception
+            {
+                iterator.close();
+            }
+        };
+    }
+
+    /**
+     * Algorithm L state, see: Li, Kim-Hung. Reservoir-Sampling Algorithms of Time Complexity O(n(1+log(N/n)))
+     */
+    private static final class Reservoir<E>
+    {
+        private final int k;
+        private final Random random;
+        private final List<E> items;
+        private double w;
+        private long skip;
+
+        private Reservoir(int k, Random random)
+        {
+            checkArgument(k >= 0, "k must >= 0");
+            this.k = k;
+            this.random = requireNonNull(random, "random is null");
+            this.items = new ArrayList<>(Math.min(k, 1024));
+        }
+
+        private boolean isFull()
+        {
+            return items.size() >= k;
+        }
+
+        private void offer(E e)
+        {
+            if (k == 0) {
+                return;
+            }
+            if (!isFull()) {
+                items.add(e);
+                if (isFull()) {
+                    this.w = Math.exp(Math.log(nextOpenDouble(random)) / k);
+                    this.skip = nextSkip();
+                }
+            }
+            else if (skip > 0) {
+                skip--;
+            }
+            else {
+                replace(e);
+            }
+        }
+
+        private void replace(E e)
+        {
+            items.set(random.nextInt(k), e);
+            this.w *= Math.exp(Math.log(nextOpenDouble(random)) / k);
+            this.skip = nextSkip();
+        }
+
+        private long nextSkip()
+        {
+            return (long) Math.floor(Math.log(nextOpenDouble(random)) / Math.log1p(-w));
+        }
+    }
+
+    private static final class GeometricGap
+    {
+        private final double fraction;
+        private final double logQ;
+        private final Random random;
+
+        private GeometricGap(double fraction, Random random)
+        {
+            checkArgument(fraction >= 0 && fraction <= 1, "fraction must be in [0, 1]");
+            this.fraction = fraction;
+            this.logQ = Math.log1p(-fraction);
+            this.random = requireNonNull(random, "random is null");
+        }
+
+        private boolean isNever()
+        {
+            return fraction == 0;
+        }
+
+        /**
+         * number of elements to skip before the next selected element
+         */
+        private long next()
+        {
+            if (fraction == 1) {
+                return 0;
+            }
+            return (long) Math.floor(Math.log(nextOpenDouble(random)) / logQ);
+        }
+    }
+
+    /**
+     * uniform random double in (0, 1]
+     */
+    private static double nextOpenDouble(Random random)
+    {
+        return 1.0D - random.nextDouble();
+    }
+
     public static <E> Iterator<Tuple2<E, Integer>> zipIndex(Iterator<E> iterator, int startIndex)
     {
         return new Iterator<Tuple2<E, Integer>>()
@@ -501,55 +840,400 @@ public class Iterators
         };
     }
 
+    /**
+     * same as {@link #zipIndex(Iterator, int)}, but the index is not boxed
+     *
+     * @param iterator   input
+     * @param startIndex first index
+     * @param <E>        type
+     * @return (element, index) iterator
+     */
+    public static <E> Iterator<ObjIntTuple2<E>> zipIntIndex(Iterator<E> iterator, int startIndex)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return new Iterator<ObjIntTuple2<E>>()
+        {
+            private int i = startIndex;
+
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public ObjIntTuple2<E> next()
+            {
+                return new ObjIntTuple2<>(iterator.next(), i++);
+            }
+        };
+    }
+
+    /**
+     * same as {@link #zipIndex(Iterator, long)}, but the index is not boxed
+     *
+     * @param iterator   input
+     * @param startIndex first index
+     * @param <E>        type
+     * @return (element, index) iterator
+     */
+    public static <E> Iterator<ObjLongTuple2<E>> zipLongIndex(Iterator<E> iterator, long startIndex)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return new Iterator<ObjLongTuple2<E>>()
+        {
+            private long i = startIndex;
+
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public ObjLongTuple2<E> next()
+            {
+                return new ObjLongTuple2<>(iterator.next(), i++);
+            }
+        };
+    }
+
     public static <T> Iterator<T> mergeSorted(Iterable<? extends Iterator<? extends T>> inputs, Comparator<? super T> comparator)
     {
+        requireNonNull(comparator, "comparator is null");
         final List<? extends Iterator<? extends T>> iterators = MutableList.copy(inputs);
-
-        final List<Tuple2<T, Integer>> sortArr = new ArrayList<>();
+        //binary heap, equal elements keep the order of inputs
+        final PriorityQueue<Tuple2<T, Integer>> heap = new PriorityQueue<>(Math.max(1, iterators.size()), (x1, x2) -> {
+            int c = comparator.compare(x1.f1, x2.f1);
+            return c != 0 ? c : Integer.compare(x1.f2, x2.f2);
+        });
         for (int i = 0; i < iterators.size(); i++) {
             Iterator<? extends T> iterator = iterators.get(i);
             if (iterator.hasNext()) {
-                sortArr.add(new Tuple2<>(iterator.next(), i));
+                heap.add(new Tuple2<>(iterator.next(), i));
             }
         }
 
         return new Iterator<T>()
         {
-            private Tuple2<T, Integer> node;
-
             @Override
             public boolean hasNext()
             {
-                if (node != null) {
-                    return true;
-                }
-                if (sortArr.isEmpty()) {
-                    return false;
-                }
-                if (sortArr.size() > 1) {
-                    sortArr.sort((x1, x2) -> comparator.compare(x1.f1(), x2.f1()));
-                }
-                this.node = sortArr.get(0);
-                return true;
+                return !heap.isEmpty();
             }
 
             @Override
             public T next()
             {
-                if (!hasNext()) {
+                Tuple2<T, Integer> node = heap.poll();
+                if (node == null) {
                     throw new NoSuchElementException();
                 }
-                T value = node.f1();
+                T value = node.f1;
                 Iterator<? extends T> iterator = iterators.get(node.f2);
                 if (iterator.hasNext()) {
                     node.f1 = iterator.next();
+                    heap.add(node);
                 }
-                else {
-                    sortArr.remove(0);
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Returns the {@code k} greatest elements in descending order, uses a bounded heap of size k.
+     *
+     * @param iterator   input
+     * @param k          k
+     * @param comparator comparator
+     * @param <E>        type
+     * @return top k list, O(k) memory
+     */
+    public static <E> List<E> topK(Iterator<E> iterator, int k, Comparator<? super E> comparator)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(comparator, "comparator is null");
+        checkArgument(k >= 0, "k must >= 0");
+        if (k == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<E> heap = new PriorityQueue<>(Math.min(k, 1024), comparator);
+        while (iterator.hasNext()) {
+            E e = iterator.next();
+            if (heap.size() < k) {
+                heap.add(e);
+            }
+            else if (comparator.compare(e, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(e);
+            }
+        }
+        List<E> out = new ArrayList<>(heap);
+        out.sort(comparator.reversed());
+        return out;
+    }
+
+    /**
+     * External sort.
+     * Sorts fixed-size runs of {@code runSize} elements in memory, full runs are spilled to {@code spillDir}
+     * and finally merged by {@link #mergeSorted(Iterable, Comparator)}.
+     * At most 64 spill files are open at once, more runs are merged into bigger spill files in several passes first.
+     * <p>
+     * Elements must be {@link java.io.Serializable} once spilled.
+     * Spill files are deleted when the returned iterator is exhausted or closed.
+     *
+     * @param iterator   input
+     * @param comparator comparator
+     * @param runSize    max number of elements hold in memory
+     * @param spillDir   spill dir, null means java.io.tmpdir
+     * @param <E>        type
+     * @return sorted iterator
+     */
+    public static <E> IteratorPlus<E> sorted(Iterator<E> iterator, Comparator<? super E> comparator, int runSize, File spillDir)
+    {
+        return sorted(iterator, comparator, runSize, spillDir, SpillFiles.MERGE_FAN_IN);
+    }
+
+    static <E> IteratorPlus<E> sorted(Iterator<E> iterator, Comparator<? super E> comparator, int runSize, File spillDir, int fanIn)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(comparator, "comparator is null");
+        checkArgument(runSize > 0, "runSize must > 0");
+
+        List<File> spills = new ArrayList<>();
+        List<E> buffer = new ArrayList<>(Math.min(runSize, 8192));
+        try {
+            while (iterator.hasNext()) {
+                buffer.add(iterator.next());
+                if (buffer.size() >= runSize) {
+                    buffer.sort(comparator);
+                    spills.add(SpillFiles.write(spillDir, buffer.iterator()));
+                    buffer.clear();
+                }
+            }
+        }
+        catch (Throwable e) {
+            //SpillFiles.write throws IOException sneakily
+            spills.forEach(File::delete);
+            throw throwsThrowable(e);
+        }
+        buffer.sort(comparator);
+        if (spills.isEmpty()) {
+            return wrap(buffer.iterator());
+        }
+
+        List<IteratorPlus<E>> runs = SpillFiles.openRuns(spillDir, spills, comparator, fanIn);
+        runs.add(wrap(buffer.iterator()));
+        Iterator<E> merged = mergeSorted(runs, comparator);
+        return new IteratorPlus<E>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return merged.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return merged.next();
+            }
+
+            @Override
+            public void close()
+                    throws Exception
+            {
+                for (IteratorPlus<E> run : runs) {
+                    run.close();
+                }
+            }
+        };
+    }
+
+    public static <K, V> IteratorPlus<Tuple2<K, V>> reduceByKey(Iterator<Tuple2<K, V>> iterator, BinaryOperator<V> reducer)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(reducer, "reducer is null");
+        Map<K, V> map = new HashMap<>();
+        while (iterator.hasNext()) {
+            Tuple2<K, V> tuple = iterator.next();
+            combine(map, tuple.f1, tuple.f2, reducer);
+        }
+        return wrap(map(map.entrySet().iterator(), entry -> new Tuple2<>(entry.getKey(), entry.getValue())));
+    }
+
+    /**
+     * External(spillable) reduceByKey.
+     * Aggregates in a hash table of at most {@code maxInMemorySize} keys, when it is full the partial
+     * aggregates are sorted by key and spilled to a file in {@code spillDir}. Finally all sorted runs are
+     * merged by {@link #mergeSorted(Iterable, Comparator)} and equal keys are reduced again.
+     * At most 64 spill files are open at once, more runs are merged into bigger spill files in several passes first.
+     * <p>
+     * Keys and values must be {@link java.io.Serializable} once spilled.
+     * Spill files are deleted when the returned iterator is exhausted or closed.
+     *
+     * @param iterator        input key-value pairs
+     * @param reducer         associative value reducer
+     * @param comparator      key comparator, must be consistent with equals
+     * @param maxInMemorySize max number of keys hold in memory
+     * @param spillDir        spill dir, null means java.io.tmpdir
+     * @param <K>             key type
+     * @param <V>             value type
+     * @return reduced key-value pairs, sorted by key if any spill happened
+     */
+    public static <K, V> IteratorPlus<Tuple2<K, V>> reduceByKey(
+            Iterator<Tuple2<K, V>> iterator,
+            BinaryOperator<V> reducer,
+            Comparator<? super K> comparator,
+            int maxInMemorySize,
+            File spillDir)
+    {
+        return reduceByKey(iterator, reducer, comparator, maxInMemorySize, spillDir, SpillFiles.MERGE_FAN_IN);
+    }
+
+    static <K, V> IteratorPlus<Tuple2<K, V>> reduceByKey(
+            Iterator<Tuple2<K, V>> iterator,
+            BinaryOperator<V> reducer,
+            Comparator<? super K> comparator,
+            int maxInMemorySize,
+            File spillDir,
+            int fanIn)
+    {
+        requireNonNull(iterator, "iterator is null");
+        requireNonNull(reducer, "reducer is null");
+        requireNonNull(comparator, "comparator is null");
+        checkArgument(maxInMemorySize > 0, "maxInMemorySize must > 0");
+
+        Comparator<Tuple2<K, V>> keyComparator = (x1, x2) -> comparator.compare(x1.f1, x2.f1);
+        List<File> spills = new ArrayList<>();
+        Map<K, V> map = new HashMap<>();
+        try {
+            while (iterator.hasNext()) {
+                Tuple2<K, V> tuple = iterator.next();
+                combine(map, tuple.f1, tuple.f2, reducer);
+                if (map.size() >= maxInMemorySize) {
+                    List<Tuple2<K, V>> run = sortedRun(map, keyComparator);
+                    spills.add(SpillFiles.write(spillDir, run.iterator()));
+                    map.clear();
+                }
+            }
+        }
+        catch (Throwable e) {
+            //SpillFiles.write throws IOException sneakily
+            spills.forEach(File::delete);
+            throw throwsThrowable(e);
+        }
+
+        if (spills.isEmpty()) {
+            return wrap(map(map.entrySet().iterator(), entry -> new Tuple2<>(entry.getKey(), entry.getValue())));
+        }
+        List<IteratorPlus<Tuple2<K, V>>> runs = SpillFiles.openRuns(spillDir, spills, keyComparator, fanIn);
+        runs.add(wrap(sortedRun(map, keyComparator).iterator()));
+        map.clear();
+
+        Iterator<Tuple2<K, V>> merged = mergeSorted(runs, keyComparator);
+        return new IteratorPlus<Tuple2<K, V>>()
+        {
+            private Tuple2<K, V> head;
+
+            @Override
+            public boolean hasNext()
+            {
+                return head != null || merged.hasNext();
+            }
+
+            @Override
+            public Tuple2<K, V> next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Tuple2<K, V> value = head == null ? merged.next() : head;
+                this.head = null;
+                while (merged.hasNext()) {
+                    Tuple2<K, V> other = merged.next();
+                    if (comparator.compare(value.f1, other.f1) == 0) {
+                        value.f2 = reducer.apply(value.f2, other.f2);
+                    }
+                    else {
+                        this.head = other;
+                        break;
+                    }
                 }
-                this.node = null;
                 return value;
             }
+
+            @Override
+            public void close()
+                    throws Exception
+            {
+                for (IteratorPlus<Tuple2<K, V>> run : runs) {
+                    run.close();
+                }
+            }
         };
     }
+
+    public static <K, V> IteratorPlus<Tuple2<K, List<V>>> groupByKey(Iterator<Tuple2<K, V>> iterator)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return reduceByKey(map(iterator, Iterators::groupValue), Iterators::groupMerge);
+    }
+
+    /**
+     * External(spillable) groupByKey, see {@link #reduceByKey(Iterator, BinaryOperator, Comparator, int, File)}
+     * <p>
+     * note: all values of one key are still hold in memory.
+     *
+     * @param iterator        input key-value pairs
+     * @param comparator      key comparator, must be consistent with equals
+     * @param maxInMemorySize max number of keys hold in memory
+     * @param spillDir        spill dir, null means java.io.tmpdir
+     * @param <K>             key type
+     * @param <V>             value type
+     * @return grouped values
+     */
+    public static <K, V> IteratorPlus<Tuple2<K, List<V>>> groupByKey(
+            Iterator<Tuple2<K, V>> iterator,
+            Comparator<? super K> comparator,
+            int maxInMemorySize,
+            File spillDir)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return reduceByKey(map(iterator, Iterators::groupValue), Iterators::groupMerge, comparator, maxInMemorySize, spillDir);
+    }
+
+    private static <K, V> Tuple2<K, List<V>> groupValue(Tuple2<K, V> tuple)
+    {
+        List<V> values = new ArrayList<>();
+        values.add(tuple.f2);
+        return new Tuple2<>(tuple.f1, values);
+    }
+
+    private static <V> List<V> groupMerge(List<V> values, List<V> other)
+    {
+        values.addAll(other);
+        return values;
+    }
+
+    private static <K, V> void combine(Map<K, V> map, K key, V value, BinaryOperator<V> reducer)
+    {
+        V old = map.get(key);
+        if (old == null && !map.containsKey(key)) {
+            map.put(key, value);
+        }
+        else {
+            map.put(key, reducer.apply(old, value));
+        }
+    }
+
+    private static <K, V> List<Tuple2<K, V>> sortedRun(Map<K, V> map, Comparator<Tuple2<K, V>> comparator)
+    {
+        List<Tuple2<K, V>> run = new ArrayList<>(map.size());
+        for (Map.Entry<K, V> entry : map.entrySet()) {
+            run.add(new Tuple2<>(entry.getKey(), entry.getValue()));
+        }
+        run.sort(comparator);
+        return run;
+    }
 }
@@ -18,10 +18,16 @@ package com.github.harbby.gadtry.base;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectStreamClass;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
@@ -32,7 +38,19 @@ public class ObjectInputStreamProxy
     private static final Supplier<Map<String, Class<?>>> primClasses =
             Lazys.goLazy(ObjectInputStreamProxy::getPrimClasses);
 
+    private static final Supplier<Method> latestUserDefinedLoader =
+            Lazys.goLazy(ObjectInputStreamProxy::getLatestUserDefinedLoaderMethod);
+    /**
+     * resolved classes of each user classLoader.
+     * keys are weak and values only hold weak references to classes(which reference their loader),
+     * so an unused plugin classLoader can still be collected
+     */
+    private static final Map<ClassLoader, Map<String, WeakReference<Class<?>>>> classCache = new WeakHashMap<>();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+
     private ClassLoader classLoader;
+    private Map<String, WeakReference<Class<?>>> resolvedClasses;
 
     public ObjectInputStreamProxy(InputStream in)
             throws IOException
@@ -53,6 +71,21 @@ public class ObjectInputStreamProxy
     {
         super(in);
         this.classLoader = classLoader;
+        if (classLoader != null) {
+            this.resolvedClasses = loaderCache(classLoader);
+        }
+    }
+
+    private static Map<String, WeakReference<Class<?>>> loaderCache(ClassLoader classLoader)
+    {
+        synchronized (classCache) {
+            return classCache.computeIfAbsent(classLoader, k -> new ConcurrentHashMap<>());
+        }
+    }
+
+    public static CacheMetrics cacheMetrics()
+    {
+        return new CacheMetrics(cacheHits.sum(), cacheMisses.sum());
     }
 
     /**
@@ -64,11 +97,9 @@ public class ObjectInputStreamProxy
     public static ClassLoader getLatestUserDefinedLoader()
     {
         try {
-            Method method = java.io.ObjectInputStream.class.getDeclaredMethod("latestUserDefinedLoader");
-            method.setAccessible(true);
-            return (ClassLoader) method.invoke(null);
+            return (ClassLoader) latestUserDefinedLoader.get().invoke(null);
         }
-        catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+        catch (IllegalAccessException | InvocationTargetException e) {
             throw new IllegalStateException("not support this jdk");
         }
         //super.latestUserDefinedLoader();
@@ -76,6 +107,18 @@ public class ObjectInputStreamProxy
         //jdk11 return jdk.internal.misc.VM.latestUserDefinedLoader()
     }
 
+    private static Method getLatestUserDefinedLoaderMethod()
+    {
+        try {
+            Method method = java.io.ObjectInputStream.class.getDeclaredMethod("latestUserDefinedLoader");
+            method.setAccessible(true);
+            return method;
+        }
+        catch (NoSuchMethodException e) {
+            throw new IllegalStateException("not support this jdk");
+        }
+    }
+
     /**
      * get field primClasses with java.io.ObjectInputStreamProxy
      */
@@ -105,17 +148,99 @@ public class ObjectInputStreamProxy
 
         //return super.resolveClass(desc);
         String name = desc.getName();
+        Class<?> cached = getCached(name);
+        if (cached != null) {
+            return cached;
+        }
+        Class<?> cl;
         try {
-            return Class.forName(name, false, classLoader);
+            cl = Class.forName(name, false, classLoader);
         }
         catch (ClassNotFoundException ex) {
-            Class<?> cl = primClasses.get().get(name);
-            if (cl != null) {
-                return cl;
-            }
-            else {
+            cl = primClasses.get().get(name);
+            if (cl == null) {
                 throw ex;
             }
         }
+        resolvedClasses.put(name, new WeakReference<>(cl));
+        return cl;
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces)
+            throws IOException, ClassNotFoundException
+    {
+        if (classLoader == null) {
+            return super.resolveProxyClass(interfaces);
+        }
+        String key = "\0proxy:" + String.join(",", interfaces);
+        Class<?> cached = getCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        Class<?>[] classes = new Class<?>[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++) {
+            classes[i] = Class.forName(interfaces[i], false, classLoader);
+            if (!Modifier.isPublic(classes[i].getModifiers())) {
+                //non-public interfaces must be defined by the proxy's loader, keep the jdk rules
+                return super.resolveProxyClass(interfaces);
+            }
+        }
+        try {
+            @SuppressWarnings("deprecation")
+            Class<?> proxyClass = Proxy.getProxyClass(classLoader, classes);
+            resolvedClasses.put(key, new WeakReference<>(proxyClass));
+            return proxyClass;
+        }
+        catch (IllegalArgumentException e) {
+            throw new ClassNotFoundException(key, e);
+        }
+    }
+
+    private Class<?> getCached(String name)
+    {
+        WeakReference<Class<?>> reference = resolvedClasses.get(name);
+        Class<?> cl = reference == null ? null : reference.get();
+        if (cl != null) {
+            cacheHits.increment();
+        }
+        else {
+            cacheMisses.increment();
+        }
+        return cl;
+    }
+
+    public static class CacheMetrics
+    {
+        private final long hits;
+        private final long misses;
+
+        private CacheMetrics(long hits, long misses)
+        {
+            this.hits = hits;
+            this.misses = misses;
+        }
+
+        public long getHits()
+        {
+            return hits;
+        }
+
+        public long getMisses()
+        {
+            return misses;
+        }
+
+        public double getHitRate()
+        {
+            long total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("hits=%s, misses=%s, hitRate=%.3f", hits, misses, getHitRate());
+        }
     }
 }
@@ -383,6 +383,42 @@ public final class Platform
         throw new IllegalStateException("unreachable");
     }
 
+    /**
+     * Release the memory of a direct or mapped ByteBuffer now instead of waiting for gc.
+     * The buffer must not be used after this call. Heap buffers are ignored.
+     *
+     * @param buffer direct buffer, not a slice or duplicate
+     */
+    public static void freeDirectBuffer(ByteBuffer buffer)
+    {
+        if (!buffer.isDirect()) {
+            return;
+        }
+        try {
+            //jdk9+
+            Method invokeCleaner = Unsafe.class.getMethod("invokeCleaner", ByteBuffer.class);
+            invokeCleaner.invoke(unsafe, buffer);
+            return;
+        }
+        catch (NoSuchMethodException ignored) {
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throwException(e);
+        }
+        try {
+            //jdk8: sun.nio.ch.DirectBuffer.cleaner().clean()
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+        catch (Exception e) {
+            throwException(e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T allocateInstance(Class<T> tClass)
             throws InstantiationException
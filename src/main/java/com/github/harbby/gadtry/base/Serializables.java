@@ -15,8 +15,9 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.io.PooledByteArrayOutputStream;
+
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectOutputStream;
@@ -28,14 +29,28 @@ public class Serializables
 {
     private Serializables() {}
 
+    /**
+     * reusable session for serializing many objects, see {@link SerializerSession}
+     */
+    public static SerializerSession newSession()
+    {
+        return new SerializerSession(null);
+    }
+
+    public static SerializerSession newSession(ClassLoader classLoader)
+    {
+        return new SerializerSession(classLoader);
+    }
+
     public static byte[] serialize(Serializable serializable)
             throws IOException
     {
         requireNonNull(serializable, "serializable obj is null");
-        try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (PooledByteArrayOutputStream bos = new PooledByteArrayOutputStream();
                 ObjectOutputStream os = new ObjectOutputStream(bos)
         ) {
             os.writeObject(serializable);
+            os.flush();
             return bos.toByteArray();
         }
     }
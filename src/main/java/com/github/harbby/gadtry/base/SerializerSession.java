@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.base;
+
+import com.github.harbby.gadtry.io.PooledByteArrayOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamConstants;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reusable java serialization session, create it by {@link Serializables#newSession()}.
+ * <p>
+ * One ObjectOutputStream/ObjectInputStream pair and one pooled buffer are kept for the whole session,
+ * a stream reset is written between objects instead of building new streams for every call.
+ * {@link #serialize(Serializable)} returns a standalone stream that {@link Serializables#byteToObject(byte[])} can read.
+ * {@link #serializeAll(Collection)} writes a batch into one stream, class descriptors and shared references
+ * are written only once per batch, which is much smaller and faster for many small objects.
+ * <p>
+ * Not thread safe, use one session per thread.
+ */
+public final class SerializerSession
+        implements Closeable
+{
+    private static final byte[] STREAM_HEADER = {
+            (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8), (byte) ObjectStreamConstants.STREAM_MAGIC,
+            (byte) (ObjectStreamConstants.STREAM_VERSION >>> 8), (byte) ObjectStreamConstants.STREAM_VERSION};
+
+    private final ClassLoader classLoader;
+    private final PooledByteArrayOutputStream buffer = new PooledByteArrayOutputStream();
+    private final FrameInputStream frameInput = new FrameInputStream();
+    private ObjectOutputStream output;
+    private ObjectInputStream input;
+    private boolean closed;
+
+    SerializerSession(ClassLoader classLoader)
+    {
+        this.classLoader = classLoader;
+    }
+
+    public byte[] serialize(Serializable serializable)
+            throws IOException
+    {
+        requireNonNull(serializable, "serializable obj is null");
+        ObjectOutputStream out = beginWrite();
+        try {
+            out.writeObject(serializable);
+            out.flush();
+        }
+        catch (IOException | RuntimeException e) {
+            this.output = null;
+            throw e;
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * write all objects into one stream, read it back with {@link #deserializeAll(byte[])}
+     */
+    public byte[] serializeAll(Collection<? extends Serializable> objects)
+            throws IOException
+    {
+        requireNonNull(objects, "objects is null");
+        ObjectOutputStream out = beginWrite();
+        try {
+            out.writeInt(objects.size());
+            for (Serializable obj : objects) {
+                out.writeObject(obj);
+            }
+            out.flush();
+        }
+        catch (IOException | RuntimeException e) {
+            this.output = null;
+            throw e;
+        }
+        return buffer.toByteArray();
+    }
+
+    private ObjectOutputStream beginWrite()
+            throws IOException
+    {
+        checkState(!closed, "session closed");
+        buffer.reset();
+        if (output == null) {
+            output = new ObjectOutputStream(buffer);
+        }
+        else {
+            //the stream header was written once by the ObjectOutputStream constructor,
+            //emit it again then clear the handle table so every result is a standalone stream
+            buffer.write(STREAM_HEADER, 0, STREAM_HEADER.length);
+            output.reset();
+        }
+        return output;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(byte[] bytes)
+            throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream in = beginRead(bytes);
+        try {
+            return (T) in.readObject();
+        }
+        catch (IOException | ClassNotFoundException | RuntimeException e) {
+            this.input = null;
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> deserializeAll(byte[] bytes)
+            throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream in = beginRead(bytes);
+        try {
+            int size = in.readInt();
+            List<T> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                list.add((T) in.readObject());
+            }
+            return list;
+        }
+        catch (IOException | ClassNotFoundException | RuntimeException e) {
+            this.input = null;
+            throw e;
+        }
+    }
+
+    private ObjectInputStream beginRead(byte[] bytes)
+            throws IOException
+    {
+        requireNonNull(bytes, "bytes is null");
+        checkState(!closed, "session closed");
+        if (input == null) {
+            frameInput.reset(bytes, 0, false);
+            input = new ObjectInputStreamProxy(frameInput, classLoader);
+        }
+        else {
+            for (int i = 0; i < STREAM_HEADER.length; i++) {
+                if (bytes.length <= i || bytes[i] != STREAM_HEADER[i]) {
+                    throw new StreamCorruptedException("invalid stream header");
+                }
+            }
+            //skip the header and feed a TC_RESET, the reader then drops all handles of the previous stream
+            frameInput.reset(bytes, STREAM_HEADER.length, true);
+        }
+        return input;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        output = null;
+        input = null;
+        buffer.close();
+    }
+
+    private static class FrameInputStream
+            extends InputStream
+    {
+        private byte[] bytes = new byte[0];
+        private int position;
+        private boolean pendingReset;
+
+        private void reset(byte[] bytes, int offset, boolean pendingReset)
+        {
+            this.bytes = bytes;
+            this.position = offset;
+            this.pendingReset = pendingReset;
+        }
+
+        @Override
+        public int read()
+        {
+            if (pendingReset) {
+                pendingReset = false;
+                return ObjectStreamConstants.TC_RESET;
+            }
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0) {
+                return 0;
+            }
+            if (pendingReset) {
+                b[off] = (byte) read();
+                return 1;
+            }
+            if (position >= bytes.length) {
+                return -1;
+            }
+            int n = Math.min(len, bytes.length - position);
+            System.arraycopy(bytes, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available()
+        {
+            return (pendingReset ? 1 : 0) + bytes.length - position;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.base;
+
+import com.github.harbby.gadtry.collection.IteratorPlus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+
+/**
+ * Sorted run files used by external(spillable) iterator operators.
+ * Elements must be {@link java.io.Serializable}.
+ */
+final class SpillFiles
+{
+    private SpillFiles() {}
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * ObjectOutputStream keeps a reference to every written object, reset the handle table periodically
+     */
+    private static final int RESET_INTERVAL = 1024;
+    /**
+     * max number of spill files open at once by a merge, every run holds a file descriptor and a 64KB buffer
+     */
+    static final int MERGE_FAN_IN = 64;
+
+    /**
+     * every element is written after a true flag, the file ends with a false flag
+     */
+    static File write(File spillDir, Iterator<?> run)
+    {
+        File file = null;
+        try {
+            file = File.createTempFile("gadtry-spill-", ".bin", spillDir);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+                long count = 0;
+                while (run.hasNext()) {
+                    out.writeBoolean(true);
+                    out.writeObject(run.next());
+                    if (++count % RESET_INTERVAL == 0) {
+                        out.reset();
+                    }
+                }
+                out.writeBoolean(false);
+            }
+            return file;
+        }
+        catch (IOException e) {
+            if (file != null) {
+                file.delete();
+            }
+            throw throwsThrowable(e);
+        }
+    }
+
+    /**
+     * read a spill file, the file is deleted when the iterator is exhausted or closed
+     */
+    static <E> IteratorPlus<E> read(File file)
+    {
+        ObjectInputStream in;
+        try {
+            in = new ObjectInputStreamProxy(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+        catch (IOException e) {
+            file.delete();
+            throw throwsThrowable(e);
+        }
+
+        return new IteratorPlus<E>()
+        {
+            private boolean hasNext;
+            private boolean checked = false;
+            private boolean closed = false;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (checked) {
+                    return hasNext;
+                }
+                if (closed) {
+                    return false;
+                }
+                try {
+                    this.hasNext = in.readBoolean();
+                    this.checked = true;
+                }
+                catch (IOException e) {
+                    this.close();
+                    throw throwsThrowable(e);
+                }
+                if (!hasNext) {
+                    this.close();
+                }
+                return hasNext;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    E value = (E) in.readObject();
+                    this.checked = false;
+                    return value;
+                }
+                catch (IOException | ClassNotFoundException e) {
+                    this.close();
+                    throw throwsThrowable(e);
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                this.checked = true;
+                this.hasNext = false;
+                try {
+                    in.close();
+                }
+                catch (IOException ignored) {
+                }
+                finally {
+                    file.delete();
+                }
+            }
+        };
+    }
+
+    /**
+     * Opens spill files as sorted runs for the final merge.
+     * While there are more than {@code fanIn} files, every {@code fanIn} consecutive files are merged into
+     * a new spill file first, so at most {@code fanIn} files are open at once and equal elements keep their order.
+     * If anything fails, the runs already opened are closed and all spill files are deleted.
+     */
+    static <E> List<IteratorPlus<E>> openRuns(File spillDir, List<File> spills, Comparator<? super E> comparator, int fanIn)
+    {
+        checkArgument(fanIn > 1, "fanIn must > 1");
+        List<File> created = new ArrayList<>(spills);
+        try {
+            List<File> files = spills;
+            while (files.size() > fanIn) {
+                List<File> next = new ArrayList<>((files.size() + fanIn - 1) / fanIn);
+                for (int i = 0; i < files.size(); i += fanIn) {
+                    List<File> group = files.subList(i, Math.min(i + fanIn, files.size()));
+                    if (group.size() == 1) {
+                        next.add(group.get(0));
+                        continue;
+                    }
+                    List<IteratorPlus<E>> runs = openAll(group);
+                    try {
+                        File merged = write(spillDir, Iterators.mergeSorted(runs, comparator));
+                        created.add(merged);
+                        next.add(merged);
+                    }
+                    finally {
+                        closeAll(runs);
+                    }
+                }
+                files = next;
+            }
+            return openAll(files);
+        }
+        catch (Throwable e) {
+            created.forEach(File::delete);
+            throw throwsThrowable(e);
+        }
+    }
+
+    private static <E> List<IteratorPlus<E>> openAll(List<File> files)
+    {
+        List<IteratorPlus<E>> runs = new ArrayList<>(files.size() + 1);
+        try {
+            for (File file : files) {
+                runs.add(read(file));
+            }
+            return runs;
+        }
+        catch (Throwable e) {
+            closeAll(runs);
+            throw throwsThrowable(e);
+        }
+    }
+
+    /**
+     * closing a run deletes its file
+     */
+    static void closeAll(List<? extends IteratorPlus<?>> runs)
+    {
+        for (IteratorPlus<?> run : runs) {
+            try {
+                run.close();
+            }
+            catch (Exception ignored) {
+            }
+        }
+    }
+}
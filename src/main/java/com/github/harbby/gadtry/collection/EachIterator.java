@@ -235,6 +235,19 @@ public interface EachIterator<E>
         };
     }
 
+    /**
+     * read ahead on a background thread
+     *
+     * @param depth     max number of prefetched batches
+     * @param batchSize number of elements per batch
+     * @return prefetch iterator, close it to stop the background thread
+     * @see PrefetchIterator
+     */
+    default IteratorPlus<E> prefetch(int depth, int batchSize)
+    {
+        return PrefetchIterator.of(this, depth, batchSize);
+    }
+
     default Optional<E> reduce(BinaryOperator<E> reducer)
     {
         requireNonNull(reducer);
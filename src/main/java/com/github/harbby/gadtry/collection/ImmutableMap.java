@@ -0,0 +1,909 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable persistent map.
+ * {@link #updated(Object, Object)} and {@link #removed(Object)} return a new map and leave this one unchanged,
+ * the default implementation is a hash array mapped trie(HAMT), so both are O(log32 n) and share
+ * all untouched nodes with this map.
+ */
+public abstract class ImmutableMap<K, V>
+        extends AbstractMap<K, V>
+{
+    /**
+     * @param key   key
+     * @param value value
+     * @return a new map with the key mapped to the value
+     */
+    public abstract ImmutableMap<K, V> updated(K key, V value);
+
+    /**
+     * @param key key
+     * @return a new map without the key
+     */
+    public abstract ImmutableMap<K, V> removed(K key);
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ImmutableMap<K, V> of()
+    {
+        return (ImmutableMap<K, V>) HashTrieMap.EMPTY;
+    }
+
+    public static <K, V> ImmutableMap<K, V> of(K k1, V v1)
+    {
+        return ImmutableMap.<K, V>of().updated(k1, v1);
+    }
+
+    public static <K, V> ImmutableMap<K, V> of(
+            K k1, V v1,
+            K k2, V v2)
+    {
+        return ImmutableMap.<K, V>of().updated(k1, v1).updated(k2, v2);
+    }
+
+    public static <K, V> ImmutableMap<K, V> of(
+            K k1, V v1,
+            K k2, V v2,
+            K k3, V v3)
+    {
+        return ImmutableMap.<K, V>of().updated(k1, v1).updated(k2, v2).updated(k3, v3);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> ImmutableMap<K, V> copy(Map<? extends K, ? extends V> map)
+    {
+        requireNonNull(map, "map is null");
+        if (map instanceof ImmutableMap) {
+            return (ImmutableMap<K, V>) map;
+        }
+        ImmutableMap<K, V> out = of();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            out = out.updated(entry.getKey(), entry.getValue());
+        }
+        return out;
+    }
+
+    public static <K, V> Builder<K, V> builder()
+    {
+        return new Builder<>();
+    }
+
+    /**
+     * Builds a read-only lookup table.
+     * The result is a flat open-addressing array with keys and values interleaved,
+     * or a minimal perfect hash table if {@link #minimalPerfectHash(boolean)} is enabled.
+     * {@link #updated(Object, Object)} and {@link #removed(Object)} on the result copy it into the default map.
+     */
+    public static class Builder<K, V>
+    {
+        private Object[] pairs = new Object[16];
+        private int count = 0;
+        private boolean minimalPerfectHash = false;
+
+        private Builder() {}
+
+        public Builder<K, V> put(K k, V v)
+        {
+            if (2 * count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length * 2);
+            }
+            pairs[2 * count] = k;
+            pairs[2 * count + 1] = v;
+            count++;
+            return this;
+        }
+
+        public Builder<K, V> putAll(Map<? extends K, ? extends V> map)
+        {
+            requireNonNull(map, "map is null");
+            for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                this.put(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        /**
+         * table size is exactly the number of keys and {@code get} probes only one slot,
+         * building costs more time, and keys with equal hashCode fall back to the open-addressing layout
+         */
+        public Builder<K, V> minimalPerfectHash(boolean enable)
+        {
+            this.minimalPerfectHash = enable;
+            return this;
+        }
+
+        public ImmutableMap<K, V> build()
+        {
+            OpenAddressingMap<K, V> map = OpenAddressingMap.create(pairs, count);
+            if (minimalPerfectHash && map.size() > 1) {
+                ImmutableMap<K, V> perfect = PerfectHashMap.create(map);
+                if (perfect != null) {
+                    return perfect;
+                }
+            }
+            return map;
+        }
+    }
+
+    @Override
+    public V put(K key, V value)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    private static int hash(Object key)
+    {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static class HashTrieMap<K, V>
+            extends ImmutableMap<K, V>
+            implements Serializable
+    {
+        private static final HashTrieMap<Object, Object> EMPTY = new HashTrieMap<>(0, null, false, null);
+        private static final Object NOT_FOUND = new Object();
+
+        private final int size;
+        private final TrieNode root;
+        private final boolean hasNull;
+        private final V nullValue;
+
+        private HashTrieMap(int size, TrieNode root, boolean hasNull, V nullValue)
+        {
+            this.size = size;
+            this.root = root;
+            this.hasNull = hasNull;
+            this.nullValue = nullValue;
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V get(Object key)
+        {
+            if (key == null) {
+                return hasNull ? nullValue : null;
+            }
+            if (root == null) {
+                return null;
+            }
+            Object value = root.find(0, hash(key), key, NOT_FOUND);
+            return value == NOT_FOUND ? null : (V) value;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            if (key == null) {
+                return hasNull;
+            }
+            return root != null && root.find(0, hash(key), key, NOT_FOUND) != NOT_FOUND;
+        }
+
+        @Override
+        public ImmutableMap<K, V> updated(K key, V value)
+        {
+            if (key == null) {
+                if (hasNull && value == nullValue) {
+                    return this;
+                }
+                return new HashTrieMap<>(hasNull ? size : size + 1, root, true, value);
+            }
+            boolean[] addedLeaf = new boolean[1];
+            TrieNode newRoot = (root == null ? BitmapIndexedNode.EMPTY : root).assoc(0, hash(key), key, value, addedLeaf);
+            if (newRoot == root) {
+                return this;
+            }
+            return new HashTrieMap<>(addedLeaf[0] ? size + 1 : size, newRoot, hasNull, nullValue);
+        }
+
+        @Override
+        public ImmutableMap<K, V> removed(K key)
+        {
+            if (key == null) {
+                return hasNull ? new HashTrieMap<>(size - 1, root, false, null) : this;
+            }
+            if (root == null) {
+                return this;
+            }
+            TrieNode newRoot = root.without(0, hash(key), key);
+            if (newRoot == root) {
+                return this;
+            }
+            return new HashTrieMap<>(size - 1, newRoot, hasNull, nullValue);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet()
+        {
+            return new AbstractSet<Entry<K, V>>()
+            {
+                @Override
+                public Iterator<Entry<K, V>> iterator()
+                {
+                    return new TrieIterator<>(root, hasNull, nullValue);
+                }
+
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+            };
+        }
+    }
+
+    private abstract static class TrieNode
+            implements Serializable
+    {
+        abstract Object find(int shift, int hash, Object key, Object notFound);
+
+        abstract TrieNode assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf);
+
+        /**
+         * @return null if the node becomes empty
+         */
+        abstract TrieNode without(int shift, int hash, Object key);
+
+        /**
+         * key, value pairs, a null key means the value is a child node
+         */
+        abstract Object[] array();
+    }
+
+    /**
+     * 32-way node, a bitmap marks which slots are used and the array only stores the used slots
+     */
+    private static final class BitmapIndexedNode
+            extends TrieNode
+    {
+        private static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(0, new Object[0]);
+
+        private final int bitmap;
+        private final Object[] array;
+
+        private BitmapIndexedNode(int bitmap, Object[] array)
+        {
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private static int bitpos(int hash, int shift)
+        {
+            return 1 << ((hash >>> shift) & 0x1f);
+        }
+
+        private int index(int bit)
+        {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Object[] array()
+        {
+            return array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound)
+        {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return notFound;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                return ((TrieNode) valueOrNode).find(shift + 5, hash, key, notFound);
+            }
+            return key.equals(keyOrNull) ? valueOrNode : notFound;
+        }
+
+        @Override
+        TrieNode assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf)
+        {
+            int bit = bitpos(hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object keyOrNull = array[2 * idx];
+                Object valueOrNode = array[2 * idx + 1];
+                if (keyOrNull == null) {
+                    TrieNode node = ((TrieNode) valueOrNode).assoc(shift + 5, hash, key, value, addedLeaf);
+                    if (node == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, node));
+                }
+                if (key.equals(keyOrNull)) {
+                    if (value == valueOrNode) {
+                        return this;
+                    }
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, value));
+                }
+                addedLeaf[0] = true;
+                Object[] newArray = array.clone();
+                newArray[2 * idx] = null;
+                newArray[2 * idx + 1] = createNode(shift + 5, keyOrNull, valueOrNode, hash, key, value);
+                return new BitmapIndexedNode(bitmap, newArray);
+            }
+            else {
+                int n = Integer.bitCount(bitmap);
+                Object[] newArray = new Object[2 * (n + 1)];
+                System.arraycopy(array, 0, newArray, 0, 2 * idx);
+                newArray[2 * idx] = key;
+                newArray[2 * idx + 1] = value;
+                System.arraycopy(array, 2 * idx, newArray, 2 * (idx + 1), 2 * (n - idx));
+                addedLeaf[0] = true;
+                return new BitmapIndexedNode(bitmap | bit, newArray);
+            }
+        }
+
+        @Override
+        TrieNode without(int shift, int hash, Object key)
+        {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int idx = index(bit);
+            Object keyOrNull = array[2 * idx];
+            Object valueOrNode = array[2 * idx + 1];
+            if (keyOrNull == null) {
+                TrieNode node = ((TrieNode) valueOrNode).without(shift + 5, hash, key);
+                if (node == valueOrNode) {
+                    return this;
+                }
+                if (node != null) {
+                    return new BitmapIndexedNode(bitmap, cloneAndSet(array, 2 * idx + 1, node));
+                }
+                if (bitmap == bit) {
+                    return null;
+                }
+                return new BitmapIndexedNode(bitmap ^ bit, removePair(array, idx));
+            }
+            if (key.equals(keyOrNull)) {
+                if (bitmap == bit) {
+                    return null;
+                }
+                return new BitmapIndexedNode(bitmap ^ bit, removePair(array, idx));
+            }
+            return this;
+        }
+
+        private static TrieNode createNode(int shift, Object key1, Object value1, int key2hash, Object key2, Object value2)
+        {
+            int key1hash = hash(key1);
+            if (key1hash == key2hash) {
+                return new HashCollisionNode(key1hash, new Object[] {key1, value1, key2, value2});
+            }
+            boolean[] addedLeaf = new boolean[1];
+            return EMPTY.assoc(shift, key1hash, key1, value1, addedLeaf)
+                    .assoc(shift, key2hash, key2, value2, addedLeaf);
+        }
+    }
+
+    /**
+     * keys with the same hash
+     */
+    private static final class HashCollisionNode
+            extends TrieNode
+    {
+        private final int hash;
+        private final Object[] array;
+
+        private HashCollisionNode(int hash, Object[] array)
+        {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int findIndex(Object key)
+        {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object[] array()
+        {
+            return array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key, Object notFound)
+        {
+            if (hash != this.hash) {
+                return notFound;
+            }
+            int idx = findIndex(key);
+            return idx < 0 ? notFound : array[idx + 1];
+        }
+
+        @Override
+        TrieNode assoc(int shift, int hash, Object key, Object value, boolean[] addedLeaf)
+        {
+            if (hash == this.hash) {
+                int idx = findIndex(key);
+                if (idx != -1) {
+                    if (array[idx + 1] == value) {
+                        return this;
+                    }
+                    return new HashCollisionNode(hash, cloneAndSet(array, idx + 1, value));
+                }
+                Object[] newArray = Arrays.copyOf(array, array.length + 2);
+                newArray[array.length] = key;
+                newArray[array.length + 1] = value;
+                addedLeaf[0] = true;
+                return new HashCollisionNode(hash, newArray);
+            }
+            //nest this node in a bitmap node and retry
+            return new BitmapIndexedNode(BitmapIndexedNode.bitpos(this.hash, shift), new Object[] {null, this})
+                    .assoc(shift, hash, key, value, addedLeaf);
+        }
+
+        @Override
+        TrieNode without(int shift, int hash, Object key)
+        {
+            int idx = findIndex(key);
+            if (idx == -1) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            return new HashCollisionNode(hash, removePair(array, idx / 2));
+        }
+    }
+
+    private static class TrieIterator<K, V>
+            implements Iterator<Entry<K, V>>
+    {
+        private final Deque<Object[]> arrays = new ArrayDeque<>();
+        private final Deque<Integer> indexes = new ArrayDeque<>();
+        private boolean hasNull;
+        private final V nullValue;
+        private Entry<K, V> nextEntry;
+
+        private TrieIterator(TrieNode root, boolean hasNull, V nullValue)
+        {
+            this.hasNull = hasNull;
+            this.nullValue = nullValue;
+            if (root != null) {
+                arrays.push(root.array());
+                indexes.push(0);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean hasNext()
+        {
+            if (nextEntry != null) {
+                return true;
+            }
+            if (hasNull) {
+                this.hasNull = false;
+                this.nextEntry = new SimpleImmutableEntry<>(null, nullValue);
+                return true;
+            }
+            while (!arrays.isEmpty()) {
+                Object[] array = arrays.peek();
+                int index = indexes.pop();
+                if (index >= array.length) {
+                    arrays.pop();
+                    continue;
+                }
+                indexes.push(index + 2);
+                Object keyOrNull = array[index];
+                if (keyOrNull == null) {
+                    arrays.push(((TrieNode) array[index + 1]).array());
+                    indexes.push(0);
+                }
+                else {
+                    this.nextEntry = new SimpleImmutableEntry<>((K) keyOrNull, (V) array[index + 1]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Entry<K, V> next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = nextEntry;
+            this.nextEntry = null;
+            return entry;
+        }
+    }
+
+    /**
+     * read-only map stored in a flat array, keys at even and values at odd index
+     */
+    private abstract static class FlatMap<K, V>
+            extends ImmutableMap<K, V>
+            implements Serializable
+    {
+        protected final Object[] table;
+        protected final int size;
+        private final boolean hasNull;
+        private final V nullValue;
+
+        protected FlatMap(Object[] table, int size, boolean hasNull, V nullValue)
+        {
+            this.table = table;
+            this.size = size;
+            this.hasNull = hasNull;
+            this.nullValue = nullValue;
+        }
+
+        /**
+         * @return key index in the table, or -1 if not found
+         */
+        protected abstract int indexOf(Object key, int hash);
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V get(Object key)
+        {
+            if (key == null) {
+                return hasNull ? nullValue : null;
+            }
+            int index = indexOf(key, hash(key));
+            return index == -1 ? null : (V) table[index + 1];
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            if (key == null) {
+                return hasNull;
+            }
+            return indexOf(key, hash(key)) != -1;
+        }
+
+        @Override
+        public ImmutableMap<K, V> updated(K key, V value)
+        {
+            return toTrieMap().updated(key, value);
+        }
+
+        @Override
+        public ImmutableMap<K, V> removed(K key)
+        {
+            return containsKey(key) ? toTrieMap().removed(key) : this;
+        }
+
+        private ImmutableMap<K, V> toTrieMap()
+        {
+            ImmutableMap<K, V> out = of();
+            for (Entry<K, V> entry : entrySet()) {
+                out = out.updated(entry.getKey(), entry.getValue());
+            }
+            return out;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet()
+        {
+            return new AbstractSet<Entry<K, V>>()
+            {
+                @Override
+                public Iterator<Entry<K, V>> iterator()
+                {
+                    return new Iterator<Entry<K, V>>()
+                    {
+                        private boolean nullKey = hasNull;
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            if (nullKey) {
+                                return true;
+                            }
+                            while (index < table.length && table[index] == null) {
+                                index += 2;
+                            }
+                            return index < table.length;
+                        }
+
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Entry<K, V> next()
+                        {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            if (nullKey) {
+                                this.nullKey = false;
+                                return new SimpleImmutableEntry<>(null, nullValue);
+                            }
+                            Entry<K, V> entry = new SimpleImmutableEntry<>((K) table[index], (V) table[index + 1]);
+                            index += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * linear probing table, load factor at most 0.5
+     */
+    private static final class OpenAddressingMap<K, V>
+            extends FlatMap<K, V>
+    {
+        private final int mask;
+
+        private OpenAddressingMap(Object[] table, int size, boolean hasNull, V nullValue)
+        {
+            super(table, size, hasNull, nullValue);
+            this.mask = table.length / 2 - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> OpenAddressingMap<K, V> create(Object[] pairs, int count)
+        {
+            int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, 2 * count - 1)) << 1);
+            int mask = capacity - 1;
+            Object[] table = new Object[2 * capacity];
+            int size = 0;
+            boolean hasNull = false;
+            V nullValue = null;
+            for (int i = 0; i < count; i++) {
+                Object key = pairs[2 * i];
+                Object value = pairs[2 * i + 1];
+                if (key == null) {
+                    size += hasNull ? 0 : 1;
+                    hasNull = true;
+                    nullValue = (V) value;
+                    continue;
+                }
+                int slot = hash(key) & mask;
+                while (table[2 * slot] != null && !table[2 * slot].equals(key)) {
+                    slot = (slot + 1) & mask;
+                }
+                if (table[2 * slot] == null) {
+                    table[2 * slot] = key;
+                    size++;
+                }
+                table[2 * slot + 1] = value;
+            }
+            return new OpenAddressingMap<>(table, size, hasNull, nullValue);
+        }
+
+        @Override
+        protected int indexOf(Object key, int hash)
+        {
+            int slot = hash & mask;
+            while (true) {
+                Object k = table[2 * slot];
+                if (k == null) {
+                    return -1;
+                }
+                if (k == key || k.equals(key)) {
+                    return 2 * slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * minimal perfect hash table built by hash-and-displace(CHD):
+     * keys are grouped into buckets, each bucket stores a displacement seed that sends its keys to free slots.
+     * the table has exactly one slot per key and {@code get} checks exactly one slot.
+     */
+    private static final class PerfectHashMap<K, V>
+            extends FlatMap<K, V>
+    {
+        private static final int AVG_BUCKET_SIZE = 4;
+
+        private final int[] seeds;
+
+        private PerfectHashMap(Object[] table, int size, boolean hasNull, V nullValue, int[] seeds)
+        {
+            super(table, size, hasNull, nullValue);
+            this.seeds = seeds;
+        }
+
+        private static int mix(int h)
+        {
+            //murmur3 fmix32
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h & Integer.MAX_VALUE;
+        }
+
+        private static int slot(int hash, int seed, int n)
+        {
+            return mix(hash ^ ((seed + 1) * 0x9E3779B9)) % n;
+        }
+
+        /**
+         * @return null if some keys can not be separated(equal hashCode)
+         */
+        private static <K, V> PerfectHashMap<K, V> create(FlatMap<K, V> source)
+        {
+            Object[] sourceTable = source.table;
+            int n = 0;
+            for (int i = 0; i < sourceTable.length; i += 2) {
+                if (sourceTable[i] != null) {
+                    n++;
+                }
+            }
+            int bucketCount = n / AVG_BUCKET_SIZE + 1;
+            //group key indexes(pair index in sourceTable) by bucket
+            int[] bucketSizes = new int[bucketCount];
+            int[] keyHashes = new int[sourceTable.length / 2];
+            for (int i = 0; i < sourceTable.length; i += 2) {
+                if (sourceTable[i] != null) {
+                    keyHashes[i / 2] = hash(sourceTable[i]);
+                    bucketSizes[mix(keyHashes[i / 2]) % bucketCount]++;
+                }
+            }
+            int[][] buckets = new int[bucketCount][];
+            for (int b = 0; b < bucketCount; b++) {
+                buckets[b] = new int[bucketSizes[b]];
+                bucketSizes[b] = 0;
+            }
+            for (int i = 0; i < sourceTable.length; i += 2) {
+                if (sourceTable[i] != null) {
+                    int b = mix(keyHashes[i / 2]) % bucketCount;
+                    buckets[b][bucketSizes[b]++] = i / 2;
+                }
+            }
+            Integer[] order = new Integer[bucketCount];
+            for (int b = 0; b < bucketCount; b++) {
+                order[b] = b;
+            }
+            Arrays.sort(order, (b1, b2) -> Integer.compare(buckets[b2].length, buckets[b1].length));
+
+            int maxSeed = 16 * n + 1024;
+            int[] seeds = new int[bucketCount];
+            boolean[] used = new boolean[n];
+            int[] slots = new int[buckets[order[0]].length];
+            for (int b : order) {
+                int[] bucket = buckets[b];
+                if (bucket.length == 0) {
+                    break;
+                }
+                int seed = 0;
+                while (!tryPlace(bucket, keyHashes, seed, n, used, slots)) {
+                    if (++seed > maxSeed) {
+                        return null;
+                    }
+                }
+                seeds[b] = seed;
+                for (int i = 0; i < bucket.length; i++) {
+                    used[slots[i]] = true;
+                }
+            }
+
+            Object[] table = new Object[2 * n];
+            for (int b = 0; b < bucketCount; b++) {
+                for (int idx : buckets[b]) {
+                    int slot = slot(keyHashes[idx], seeds[b], n);
+                    table[2 * slot] = sourceTable[2 * idx];
+                    table[2 * slot + 1] = sourceTable[2 * idx + 1];
+                }
+            }
+            return new PerfectHashMap<>(table, source.size, source.containsKey(null), source.get(null), seeds);
+        }
+
+        private static boolean tryPlace(int[] bucket, int[] keyHashes, int seed, int n, boolean[] used, int[] slots)
+        {
+            for (int i = 0; i < bucket.length; i++) {
+                int slot = slot(keyHashes[bucket[i]], seed, n);
+                if (used[slot]) {
+                    return false;
+                }
+                for (int j = 0; j < i; j++) {
+                    if (slots[j] == slot) {
+                        return false;
+                    }
+                }
+                slots[i] = slot;
+            }
+            return true;
+        }
+
+        @Override
+        protected int indexOf(Object key, int hash)
+        {
+            int index = 2 * slot(hash, seeds[mix(hash) % seeds.length], table.length / 2);
+            Object k = table[index];
+            return k == key || k.equals(key) ? index : -1;
+        }
+    }
+
+    private static Object[] cloneAndSet(Object[] array, int i, Object value)
+    {
+        Object[] clone = array.clone();
+        clone[i] = value;
+        return clone;
+    }
+
+    private static Object[] removePair(Object[] array, int pairIndex)
+    {
+        Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, 2 * pairIndex);
+        System.arraycopy(array, 2 * (pairIndex + 1), newArray, 2 * pairIndex, newArray.length - 2 * pairIndex);
+        return newArray;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable persistent set backed by {@link ImmutableMap}.
+ * {@link #added(Object)} and {@link #removed(Object)} are O(log32 n) and share structure with this set.
+ */
+public abstract class ImmutableSet<E>
+        extends AbstractSet<E>
+{
+    public abstract ImmutableSet<E> added(E e);
+
+    public abstract ImmutableSet<E> removed(E e);
+
+    @SuppressWarnings("unchecked")
+    public static <E> ImmutableSet<E> of()
+    {
+        return (ImmutableSet<E>) MapBackedSet.EMPTY;
+    }
+
+    @SafeVarargs
+    public static <E> ImmutableSet<E> of(E... elements)
+    {
+        requireNonNull(elements, "elements is null");
+        ImmutableSet<E> set = of();
+        for (E e : elements) {
+            set = set.added(e);
+        }
+        return set;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> ImmutableSet<E> copy(Iterable<? extends E> iterable)
+    {
+        requireNonNull(iterable, "iterable is null");
+        if (iterable instanceof ImmutableSet) {
+            return (ImmutableSet<E>) iterable;
+        }
+        ImmutableSet<E> set = of();
+        for (E e : iterable) {
+            set = set.added(e);
+        }
+        return set;
+    }
+
+    @Override
+    public boolean add(E e)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    private static class MapBackedSet<E>
+            extends ImmutableSet<E>
+            implements Serializable
+    {
+        private static final MapBackedSet<Object> EMPTY = new MapBackedSet<>(ImmutableMap.of());
+
+        private final ImmutableMap<E, Boolean> map;
+
+        private MapBackedSet(ImmutableMap<E, Boolean> map)
+        {
+            this.map = map;
+        }
+
+        @Override
+        public ImmutableSet<E> added(E e)
+        {
+            ImmutableMap<E, Boolean> newMap = map.updated(e, Boolean.TRUE);
+            return newMap == map ? this : new MapBackedSet<>(newMap);
+        }
+
+        @Override
+        public ImmutableSet<E> removed(E e)
+        {
+            ImmutableMap<E, Boolean> newMap = map.removed(e);
+            return newMap == map ? this : new MapBackedSet<>(newMap);
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public Iterator<E> iterator()
+        {
+            return map.keySet().iterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+    }
+}
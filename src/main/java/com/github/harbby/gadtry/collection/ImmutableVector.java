@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable persistent vector.
+ * A 32-way trie of arrays with a tail buffer, {@link #appended(Object)}, {@link #updated(int, Object)}
+ * and {@link #removedLast()} are O(log32 n) and share all untouched arrays with this vector.
+ */
+public final class ImmutableVector<E>
+        extends ImmutableList<E>
+        implements RandomAccess, Serializable
+{
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final ImmutableVector<Object> EMPTY = new ImmutableVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private ImmutableVector(int size, int shift, Object[] root, Object[] tail)
+    {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> ImmutableVector<E> empty()
+    {
+        return (ImmutableVector<E>) EMPTY;
+    }
+
+    @SafeVarargs
+    public static <E> ImmutableVector<E> vectorOf(E... elements)
+    {
+        requireNonNull(elements, "elements is null");
+        ImmutableVector<E> vector = empty();
+        for (E e : elements) {
+            vector = vector.appended(e);
+        }
+        return vector;
+    }
+
+    public static <E> ImmutableVector<E> copyOf(Iterable<? extends E> iterable)
+    {
+        requireNonNull(iterable, "iterable is null");
+        ImmutableVector<E> vector = empty();
+        for (E e : iterable) {
+            vector = vector.appended(e);
+        }
+        return vector;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    private int tailOffset()
+    {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] arrayFor(int index)
+    {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E get(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return (E) arrayFor(index)[index & MASK];
+    }
+
+    public ImmutableVector<E> appended(E e)
+    {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = e;
+            return new ImmutableVector<>(size + 1, shift, root, newTail);
+        }
+        //tail is full, push it into the trie
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        }
+        else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new ImmutableVector<>(size + 1, newShift, newRoot, new Object[] {e});
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode)
+    {
+        int subIndex = ((size - 1) >>> level) & MASK;
+        Object[] node = parent.clone();
+        Object[] insert;
+        if (level == BITS) {
+            insert = tailNode;
+        }
+        else {
+            Object[] child = (Object[]) parent[subIndex];
+            insert = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        node[subIndex] = insert;
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] node)
+    {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+
+    public ImmutableVector<E> updated(int index, E e)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = e;
+            return new ImmutableVector<>(size, shift, root, newTail);
+        }
+        return new ImmutableVector<>(size, shift, doUpdate(shift, root, index, e), tail);
+    }
+
+    private static Object[] doUpdate(int level, Object[] node, int index, Object value)
+    {
+        Object[] newNode = node.clone();
+        if (level == 0) {
+            newNode[index & MASK] = value;
+        }
+        else {
+            int subIndex = (index >>> level) & MASK;
+            newNode[subIndex] = doUpdate(level - BITS, (Object[]) node[subIndex], index, value);
+        }
+        return newNode;
+    }
+
+    public ImmutableVector<E> removedLast()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException("vector is empty");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new ImmutableVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        Object[] newTail = arrayFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new ImmutableVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Object[] popTail(int level, Object[] node)
+    {
+        int subIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[subIndex]);
+            if (newChild == null && subIndex == 0) {
+                return null;
+            }
+            Object[] newNode = node.clone();
+            newNode[subIndex] = newChild;
+            return newNode;
+        }
+        else if (subIndex == 0) {
+            return null;
+        }
+        else {
+            Object[] newNode = node.clone();
+            newNode[subIndex] = null;
+            return newNode;
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Iterator<E>()
+        {
+            private int index = 0;
+            private Object[] array = tail;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next()
+            {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if ((index & MASK) == 0) {
+                    this.array = arrayFor(index);
+                }
+                return (E) array[index++ & MASK];
+            }
+        };
+    }
+}
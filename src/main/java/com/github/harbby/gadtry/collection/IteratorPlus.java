@@ -18,8 +18,11 @@ package com.github.harbby.gadtry.collection;
 import com.github.harbby.gadtry.base.Iterators;
 import com.github.harbby.gadtry.function.Function1;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.function.BinaryOperator;
@@ -220,6 +223,75 @@ public interface IteratorPlus<E>
         };
     }
 
+    /**
+     * @param k          k
+     * @param comparator comparator
+     * @return the k greatest elements in descending order
+     * @see Iterators#topK(Iterator, int, Comparator)
+     */
+    default List<E> topK(int k, Comparator<? super E> comparator)
+    {
+        return Iterators.topK(this, k, comparator);
+    }
+
+    default IteratorPlus<E> sorted(Comparator<? super E> comparator)
+    {
+        return sorted(comparator, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * external sort, holds at most runSize elements in memory
+     *
+     * @param comparator comparator
+     * @param runSize    max number of elements hold in memory
+     * @param spillDir   spill dir, null means java.io.tmpdir
+     * @return sorted iterator
+     * @see Iterators#sorted(Iterator, Comparator, int, File)
+     */
+    default IteratorPlus<E> sorted(Comparator<? super E> comparator, int runSize, File spillDir)
+    {
+        IteratorPlus<E> sorted = Iterators.sorted(this, comparator, runSize, spillDir);
+        return new IteratorPlus<E>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return sorted.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return sorted.next();
+            }
+
+            @Override
+            public void close()
+                    throws Exception
+            {
+                try {
+                    sorted.close();
+                }
+                finally {
+                    IteratorPlus.this.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * read ahead on a background thread
+     *
+     * @param depth     max number of prefetched batches
+     * @param batchSize number of elements per batch
+     * @return prefetch iterator, close it to stop the background thread
+     * @see PrefetchIterator
+     */
+    default IteratorPlus<E> prefetch(int depth, int batchSize)
+    {
+        return PrefetchIterator.of(this, depth, batchSize);
+    }
+
     @Override
     default void close()
             throws Exception
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import com.github.harbby.gadtry.base.Iterators;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asynchronous read-ahead iterator.
+ * A background thread pulls batches of {@code batchSize} elements from the source into a bounded
+ * queue of {@code depth} batches, so slow IO(jdbc, file scan) overlaps with the consumer.
+ * <p>
+ * The source is read only by the background thread and is closed by {@link #close()}.
+ * Exceptions thrown by the source are rethrown to the consumer by {@link #hasNext()}.
+ */
+public class PrefetchIterator<E>
+        implements IteratorPlus<E>
+{
+    private static final AtomicInteger THREAD_ID = new AtomicInteger(0);
+    private static final Object END = new Object();
+    private static final long PUT_TIMEOUT_MS = 100;
+
+    private final AutoCloseable source;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    private List<E> batch = new ArrayList<>(0);
+    private int index = 0;
+    private boolean finished = false;
+
+    private PrefetchIterator(BatchReader<E> reader, AutoCloseable source, int depth, int batchSize)
+    {
+        checkArgument(depth > 0, "depth must > 0");
+        checkArgument(batchSize > 0, "batchSize must > 0");
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(depth);
+        this.thread = new Thread(() -> prefetch(reader, batchSize), "gadtry-prefetch-" + THREAD_ID.getAndIncrement());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public static <E> PrefetchIterator<E> of(IteratorPlus<E> iterator, int depth, int batchSize)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return new PrefetchIterator<>((batch, size) -> {
+            while (batch.size() < size && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            return batch.size() == size;
+        }, iterator, depth, batchSize);
+    }
+
+    public static <E> PrefetchIterator<E> of(Iterator<E> iterator, int depth, int batchSize)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return of(Iterators.wrap(iterator), depth, batchSize);
+    }
+
+    public static <E> PrefetchIterator<E> of(EachIterator<E> iterator, int depth, int batchSize)
+    {
+        requireNonNull(iterator, "iterator is null");
+        return new PrefetchIterator<>((batch, size) -> {
+            while (batch.size() < size) {
+                if (!iterator.next()) {
+                    return false;
+                }
+                batch.add(iterator.current());
+            }
+            return true;
+        }, iterator, depth, batchSize);
+    }
+
+    private void prefetch(BatchReader<E> reader, int batchSize)
+    {
+        try {
+            boolean hasMore = true;
+            while (hasMore && !closed) {
+                List<E> buffer = new ArrayList<>(batchSize);
+                hasMore = reader.read(buffer, batchSize);
+                if (!buffer.isEmpty() && !put(buffer)) {
+                    return;
+                }
+            }
+            put(END);
+        }
+        catch (Throwable e) {
+            if (closed) {
+                return;
+            }
+            // not interrupted by close(), e.g. the source was interrupted by itself: report it to the consumer
+            Thread.interrupted();
+            try {
+                put(new Failure(e));
+            }
+            catch (InterruptedException ignored) {
+                //closed
+            }
+        }
+    }
+
+    /**
+     * the source may swallow the interrupt of {@link #close()}, so never block on a full queue after closed
+     *
+     * @return false if closed
+     */
+    private boolean put(Object value)
+            throws InterruptedException
+    {
+        while (!closed) {
+            if (queue.offer(value, PUT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean hasNext()
+    {
+        if (index < batch.size()) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        Object value;
+        try {
+            value = queue.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw throwsThrowable(e);
+        }
+        if (value == END) {
+            this.finished = true;
+            return false;
+        }
+        if (value instanceof Failure) {
+            this.finished = true;
+            throw throwsThrowable(((Failure) value).cause);
+        }
+        this.batch = (List<E>) value;
+        this.index = 0;
+        return true;
+    }
+
+    @Override
+    public E next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.get(index++);
+    }
+
+    /**
+     * stop the background thread, wait it exit and then close the source
+     */
+    @Override
+    public void close()
+            throws Exception
+    {
+        if (closed) {
+            return;
+        }
+        this.closed = true;
+        this.finished = true;
+        this.index = batch.size();
+        thread.interrupt();
+        queue.clear();
+        try {
+            thread.join();
+        }
+        finally {
+            queue.clear();
+            source.close();
+        }
+    }
+
+    @FunctionalInterface
+    private interface BatchReader<E>
+    {
+        /**
+         * @return false if the source is exhausted
+         */
+        boolean read(List<E> batch, int batchSize)
+                throws Exception;
+    }
+
+    private static class Failure
+    {
+        private final Throwable cause;
+
+        private Failure(Throwable cause)
+        {
+            this.cause = cause;
+        }
+    }
+}
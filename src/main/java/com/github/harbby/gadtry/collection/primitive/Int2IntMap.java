@@ -0,0 +1,283 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing(linear probing) hash map from int keys to int values.
+ * Keys and values live in two flat arrays, no Entry or boxed key objects are allocated,
+ * iterate it with {@link #cursor()}.
+ * 0 is the free slot marker in the key table, the key 0 is stored in a separate field.
+ */
+public class Int2IntMap
+{
+    private static final int ZERO_SLOT = -2;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public Int2IntMap()
+    {
+        this(0);
+    }
+
+    public Int2IntMap(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity)
+    {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * PrimitiveHash.LOAD_FACTOR);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key)
+    {
+        return slotOf(key) != -1;
+    }
+
+    public int getOrDefault(int key, int defaultValue)
+    {
+        int slot = slotOf(key);
+        if (slot == -1) {
+            return defaultValue;
+        }
+        return slot == ZERO_SLOT ? zeroValue : values[slot];
+    }
+
+    public void put(int key, int value)
+    {
+        insert(key, value);
+    }
+
+    /**
+     * add increment to the value of the key, an absent key starts from 0
+     *
+     * @return the new value
+     */
+    public int addTo(int key, int increment)
+    {
+        int slot = slotOf(key);
+        if (slot == -1) {
+            insert(key, increment);
+            return increment;
+        }
+        if (slot == ZERO_SLOT) {
+            zeroValue += increment;
+            return zeroValue;
+        }
+        values[slot] += increment;
+        return values[slot];
+    }
+
+    /**
+     * @return true if the key was present
+     */
+    public boolean remove(int key)
+    {
+        return delete(key);
+    }
+
+    /**
+     * @return slot index, ZERO_SLOT for the key 0, or -1 if absent
+     */
+    private int slotOf(int key)
+    {
+        if (key == 0) {
+            return hasZeroKey ? ZERO_SLOT : -1;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int key, int value)
+    {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private boolean delete(int key)
+    {
+        int slot = slotOf(key);
+        if (slot == -1) {
+            return false;
+        }
+        if (slot == ZERO_SLOT) {
+            hasZeroKey = false;
+            zeroValue = 0;
+        }
+        else {
+            shiftKeys(slot);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * backward shift deletion, keeps probe chains without tombstones
+     */
+    private void shiftKeys(int slot)
+    {
+        int free = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != 0) {
+            int ideal = PrimitiveHash.mix(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[free] = 0;
+        values[free] = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = PrimitiveHash.mix(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * @return a cursor positioned before the first entry, the map must not be modified while iterating
+     */
+    public Cursor cursor()
+    {
+        return new Cursor();
+    }
+
+    public final class Cursor
+    {
+        private boolean zero = hasZeroKey;
+        private int index = -1;
+
+        private Cursor() {}
+
+        public boolean next()
+        {
+            if (zero) {
+                zero = false;
+                index = ZERO_SLOT;
+                return true;
+            }
+            int i = index == ZERO_SLOT ? 0 : index + 1;
+            while (i < keys.length && keys[i] == 0) {
+                i++;
+            }
+            index = i;
+            return i < keys.length;
+        }
+
+        public int key()
+        {
+            checkPosition();
+            return index == ZERO_SLOT ? 0 : keys[index];
+        }
+
+        public int value()
+        {
+            checkPosition();
+            return index == ZERO_SLOT ? zeroValue : values[index];
+        }
+
+        private void checkPosition()
+        {
+            if (index == -1 || index >= keys.length) {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(cursor.key()).append('=').append(cursor.value());
+        }
+        return builder.append('}').toString();
+    }
+}
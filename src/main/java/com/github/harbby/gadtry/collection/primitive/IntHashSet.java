@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Open addressing(linear probing) hash set of int without boxing.
+ * 0 is the free slot marker in the table, the key 0 is tracked by a flag.
+ */
+public class IntHashSet
+{
+    private int[] keys;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+
+    public IntHashSet()
+    {
+        this(0);
+    }
+
+    public IntHashSet(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    public static IntHashSet of(int... values)
+    {
+        IntHashSet set = new IntHashSet(values.length);
+        for (int value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    private void allocate(int capacity)
+    {
+        this.keys = new int[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * PrimitiveHash.LOAD_FACTOR);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(int key)
+    {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the set did not already contain the key
+     */
+    public boolean add(int key)
+    {
+        if (key == 0) {
+            if (hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the set contained the key
+     */
+    public boolean remove(int key)
+    {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                shiftKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * backward shift deletion, keeps probe chains without tombstones
+     */
+    private void shiftKeys(int slot)
+    {
+        int free = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != 0) {
+            int ideal = PrimitiveHash.mix(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        allocate(capacity);
+        for (int key : oldKeys) {
+            if (key != 0) {
+                int slot = PrimitiveHash.mix(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action)
+    {
+        if (hasZeroKey) {
+            action.accept(0);
+        }
+        for (int key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator()
+    {
+        return new PrimitiveIterator.OfInt()
+        {
+            private boolean zero = hasZeroKey;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (zero) {
+                    return true;
+                }
+                while (index < keys.length && keys[index] == 0) {
+                    index++;
+                }
+                return index < keys.length;
+            }
+
+            @Override
+            public int nextInt()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (zero) {
+                    zero = false;
+                    return 0;
+                }
+                return keys[index++];
+            }
+        };
+    }
+
+    public int[] toArray()
+    {
+        int[] array = new int[size];
+        int i = 0;
+        for (PrimitiveIterator.OfInt iterator = iterator(); iterator.hasNext(); ) {
+            array[i++] = iterator.nextInt();
+        }
+        return array;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+
+/**
+ * Growable int array list without boxing.
+ */
+public class IntList
+{
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values;
+    private int size;
+
+    public IntList()
+    {
+        this.values = EMPTY;
+    }
+
+    public IntList(int initialCapacity)
+    {
+        checkArgument(initialCapacity >= 0, "initialCapacity must >= 0");
+        this.values = initialCapacity == 0 ? EMPTY : new int[initialCapacity];
+    }
+
+    public static IntList of(int... values)
+    {
+        IntList list = new IntList(values.length);
+        System.arraycopy(values, 0, list.values, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void add(int value)
+    {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, values.length + (values.length >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    public void addAll(int[] array)
+    {
+        ensureCapacity(size + array.length);
+        System.arraycopy(array, 0, values, size, array.length);
+        size += array.length;
+    }
+
+    public void ensureCapacity(int capacity)
+    {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+        }
+    }
+
+    public int get(int index)
+    {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public int set(int index, int value)
+    {
+        checkIndex(index);
+        int old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    public int removeLast()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException("list is empty");
+        }
+        return values[--size];
+    }
+
+    public int indexOf(int value)
+    {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int value)
+    {
+        return indexOf(value) != -1;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public void sort()
+    {
+        Arrays.sort(values, 0, size);
+    }
+
+    public int[] toArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    public void forEach(IntConsumer action)
+    {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public IntStream stream()
+    {
+        return Arrays.stream(values, 0, size);
+    }
+
+    public PrimitiveIterator.OfInt iterator()
+    {
+        return new PrimitiveIterator.OfInt()
+        {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            @Override
+            public int nextInt()
+            {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Integer.hashCode(values[i]);
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        IntList other = (IntList) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] != other.values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing(linear probing) hash set of long without boxing.
+ * 0 is the free slot marker in the table, the key 0 is tracked by a flag.
+ */
+public class LongHashSet
+{
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+
+    public LongHashSet()
+    {
+        this(0);
+    }
+
+    public LongHashSet(int expectedSize)
+    {
+        allocate(PrimitiveHash.capacityFor(expectedSize));
+    }
+
+    public static LongHashSet of(long... values)
+    {
+        LongHashSet set = new LongHashSet(values.length);
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    private void allocate(int capacity)
+    {
+        this.keys = new long[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * PrimitiveHash.LOAD_FACTOR);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(long key)
+    {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the set did not already contain the key
+     */
+    public boolean add(long key)
+    {
+        if (key == 0) {
+            if (hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the set contained the key
+     */
+    public boolean remove(long key)
+    {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            size--;
+            return true;
+        }
+        int slot = PrimitiveHash.mix(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                shiftKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * backward shift deletion, keeps probe chains without tombstones
+     */
+    private void shiftKeys(int slot)
+    {
+        int free = slot;
+        int i = (slot + 1) & mask;
+        while (keys[i] != 0) {
+            int ideal = PrimitiveHash.mix(keys[i]) & mask;
+            if (((i - ideal) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[free] = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        allocate(capacity);
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int slot = PrimitiveHash.mix(key) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, 0);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action)
+    {
+        if (hasZeroKey) {
+            action.accept(0);
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    public PrimitiveIterator.OfLong iterator()
+    {
+        return new PrimitiveIterator.OfLong()
+        {
+            private boolean zero = hasZeroKey;
+            private int index = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (zero) {
+                    return true;
+                }
+                while (index < keys.length && keys[index] == 0) {
+                    index++;
+                }
+                return index < keys.length;
+            }
+
+            @Override
+            public long nextLong()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (zero) {
+                    zero = false;
+                    return 0;
+                }
+                return keys[index++];
+            }
+        };
+    }
+
+    public long[] toArray()
+    {
+        long[] array = new long[size];
+        int i = 0;
+        for (PrimitiveIterator.OfLong iterator = iterator(); iterator.hasNext(); ) {
+            array[i++] = iterator.nextLong();
+        }
+        return array;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
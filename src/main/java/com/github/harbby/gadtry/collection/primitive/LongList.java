@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+
+/**
+ * Growable long array list without boxing.
+ */
+public class LongList
+{
+    private static final long[] EMPTY = new long[0];
+
+    private long[] values;
+    private int size;
+
+    public LongList()
+    {
+        this.values = EMPTY;
+    }
+
+    public LongList(int initialCapacity)
+    {
+        checkArgument(initialCapacity >= 0, "initialCapacity must >= 0");
+        this.values = initialCapacity == 0 ? EMPTY : new long[initialCapacity];
+    }
+
+    public static LongList of(long... values)
+    {
+        LongList list = new LongList(values.length);
+        System.arraycopy(values, 0, list.values, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void add(long value)
+    {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(8, values.length + (values.length >> 1)));
+        }
+        values[size++] = value;
+    }
+
+    public void addAll(long[] array)
+    {
+        ensureCapacity(size + array.length);
+        System.arraycopy(array, 0, values, size, array.length);
+        size += array.length;
+    }
+
+    public void ensureCapacity(int capacity)
+    {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, values.length + (values.length >> 1)));
+        }
+    }
+
+    public long get(int index)
+    {
+        checkIndex(index);
+        return values[index];
+    }
+
+    public long set(int index, long value)
+    {
+        checkIndex(index);
+        long old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    public long removeLast()
+    {
+        if (size == 0) {
+            throw new NoSuchElementException("list is empty");
+        }
+        return values[--size];
+    }
+
+    public int indexOf(long value)
+    {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(long value)
+    {
+        return indexOf(value) != -1;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public void sort()
+    {
+        Arrays.sort(values, 0, size);
+    }
+
+    public long[] toArray()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    public void forEach(LongConsumer action)
+    {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    public LongStream stream()
+    {
+        return Arrays.stream(values, 0, size);
+    }
+
+    public PrimitiveIterator.OfLong iterator()
+    {
+        return new PrimitiveIterator.OfLong()
+        {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            @Override
+            public long nextLong()
+            {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return values[index++];
+            }
+        };
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = 1;
+        for (int i = 0; i < size; i++) {
+            h = 31 * h + Long.hashCode(values[i]);
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        LongList other = (LongList) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (values[i] != other.values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
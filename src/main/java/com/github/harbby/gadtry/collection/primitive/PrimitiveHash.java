@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+
+final class PrimitiveHash
+{
+    private PrimitiveHash() {}
+
+    static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    static int mix(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    /**
+     * @return power of two table size that holds expectedSize keys under LOAD_FACTOR
+     */
+    static int capacityFor(int expectedSize)
+    {
+        checkArgument(expectedSize >= 0, "expectedSize must >= 0");
+        long need = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        checkArgument(need <= MAX_CAPACITY, "expectedSize too large: %s", expectedSize);
+        int capacity = MIN_CAPACITY;
+        while (capacity < need) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
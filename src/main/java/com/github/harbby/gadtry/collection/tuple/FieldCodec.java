@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary codec of one tuple field, see {@link TupleSerializer}.
+ * Codecs do not write type information, the reader must use the same codecs as the writer.
+ */
+public interface FieldCodec<T>
+        extends Serializable
+{
+    void encode(T value, DataOutput out)
+            throws IOException;
+
+    T decode(DataInput in)
+            throws IOException;
+
+    /**
+     * zigzag varint, 1 byte for values in [-64, 63]
+     */
+    static FieldCodec<Integer> varInt()
+    {
+        return FieldCodecs.VarIntCodec.INSTANCE;
+    }
+
+    /**
+     * zigzag varint, 1 byte for values in [-64, 63]
+     */
+    static FieldCodec<Long> varLong()
+    {
+        return FieldCodecs.VarLongCodec.INSTANCE;
+    }
+
+    static FieldCodec<Double> doubleCodec()
+    {
+        return FieldCodecs.DoubleCodec.INSTANCE;
+    }
+
+    static FieldCodec<Boolean> booleanCodec()
+    {
+        return FieldCodecs.BooleanCodec.INSTANCE;
+    }
+
+    /**
+     * varint byte length followed by UTF-8 bytes, no 64KB limit unlike {@link DataOutput#writeUTF(String)}
+     */
+    static FieldCodec<String> string()
+    {
+        return FieldCodecs.StringCodec.INSTANCE;
+    }
+
+    static FieldCodec<byte[]> bytes()
+    {
+        return FieldCodecs.BytesCodec.INSTANCE;
+    }
+
+    /**
+     * one marker byte before the value
+     */
+    static <T> FieldCodec<T> nullable(FieldCodec<T> codec)
+    {
+        requireNonNull(codec, "codec is null");
+        return new FieldCodec<T>()
+        {
+            @Override
+            public void encode(T value, DataOutput out)
+                    throws IOException
+            {
+                if (value == null) {
+                    out.writeByte(0);
+                }
+                else {
+                    out.writeByte(1);
+                    codec.encode(value, out);
+                }
+            }
+
+            @Override
+            public T decode(DataInput in)
+                    throws IOException
+            {
+                return in.readByte() == 0 ? null : codec.decode(in);
+            }
+        };
+    }
+}
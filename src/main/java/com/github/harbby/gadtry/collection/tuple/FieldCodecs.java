@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+final class FieldCodecs
+{
+    private FieldCodecs() {}
+
+    static void writeVarInt(int value, DataOutput out)
+            throws IOException
+    {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in)
+            throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    static void writeVarLong(long value, DataOutput out)
+            throws IOException
+    {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in)
+            throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varlong");
+    }
+
+    static final class VarIntCodec
+            implements FieldCodec<Integer>
+    {
+        static final VarIntCodec INSTANCE = new VarIntCodec();
+
+        private VarIntCodec() {}
+
+        @Override
+        public void encode(Integer value, DataOutput out)
+                throws IOException
+        {
+            int v = value;
+            writeVarInt((v << 1) ^ (v >> 31), out);
+        }
+
+        @Override
+        public Integer decode(DataInput in)
+                throws IOException
+        {
+            int v = readVarInt(in);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+
+    static final class VarLongCodec
+            implements FieldCodec<Long>
+    {
+        static final VarLongCodec INSTANCE = new VarLongCodec();
+
+        private VarLongCodec() {}
+
+        @Override
+        public void encode(Long value, DataOutput out)
+                throws IOException
+        {
+            long v = value;
+            writeVarLong((v << 1) ^ (v >> 63), out);
+        }
+
+        @Override
+        public Long decode(DataInput in)
+                throws IOException
+        {
+            long v = readVarLong(in);
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+
+    static final class DoubleCodec
+            implements FieldCodec<Double>
+    {
+        static final DoubleCodec INSTANCE = new DoubleCodec();
+
+        private DoubleCodec() {}
+
+        @Override
+        public void encode(Double value, DataOutput out)
+                throws IOException
+        {
+            out.writeDouble(value);
+        }
+
+        @Override
+        public Double decode(DataInput in)
+                throws IOException
+        {
+            return in.readDouble();
+        }
+    }
+
+    static final class BooleanCodec
+            implements FieldCodec<Boolean>
+    {
+        static final BooleanCodec INSTANCE = new BooleanCodec();
+
+        private BooleanCodec() {}
+
+        @Override
+        public void encode(Boolean value, DataOutput out)
+                throws IOException
+        {
+            out.writeBoolean(value);
+        }
+
+        @Override
+        public Boolean decode(DataInput in)
+                throws IOException
+        {
+            return in.readBoolean();
+        }
+    }
+
+    static final class StringCodec
+            implements FieldCodec<String>
+    {
+        static final StringCodec INSTANCE = new StringCodec();
+
+        private StringCodec() {}
+
+        @Override
+        public void encode(String value, DataOutput out)
+                throws IOException
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length, out);
+            out.write(bytes);
+        }
+
+        @Override
+        public String decode(DataInput in)
+                throws IOException
+        {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    static final class BytesCodec
+            implements FieldCodec<byte[]>
+    {
+        static final BytesCodec INSTANCE = new BytesCodec();
+
+        private BytesCodec() {}
+
+        @Override
+        public void encode(byte[] value, DataOutput out)
+                throws IOException
+        {
+            writeVarInt(value.length, out);
+            out.write(value);
+        }
+
+        @Override
+        public byte[] decode(DataInput in)
+                throws IOException
+        {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
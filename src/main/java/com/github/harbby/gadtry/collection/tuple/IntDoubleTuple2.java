@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+/**
+ * int-double pair without boxing
+ */
+public class IntDoubleTuple2
+        implements Tuple
+{
+    public int f1;
+    public double f2;
+
+    public IntDoubleTuple2(int f1, double f2)
+    {
+        this.f1 = f1;
+        this.f2 = f2;
+    }
+
+    public static IntDoubleTuple2 of(int f1, double f2)
+    {
+        return new IntDoubleTuple2(f1, f2);
+    }
+
+    public int f1()
+    {
+        return f1;
+    }
+
+    public double f2()
+    {
+        return f2;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Integer.hashCode(f1) + Double.hashCode(f2);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        IntDoubleTuple2 other = (IntDoubleTuple2) obj;
+        return this.f1 == other.f1 &&
+                Double.compare(this.f2, other.f2) == 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "(" + f1 + ", " + f2 + ")";
+    }
+
+    @Override
+    public int getArity()
+    {
+        return 2;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getField(int pos)
+    {
+        switch (pos) {
+            case 1:
+                return (T) Integer.valueOf(f1);
+            case 2:
+                return (T) Double.valueOf(f2);
+            default:
+                throw new IndexOutOfBoundsException(String.valueOf(pos));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public IntDoubleTuple2 copy()
+    {
+        return new IntDoubleTuple2(f1, f2);
+    }
+}
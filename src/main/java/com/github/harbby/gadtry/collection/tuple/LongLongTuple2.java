@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+/**
+ * long-long pair without boxing
+ */
+public class LongLongTuple2
+        implements Tuple
+{
+    public long f1;
+    public long f2;
+
+    public LongLongTuple2(long f1, long f2)
+    {
+        this.f1 = f1;
+        this.f2 = f2;
+    }
+
+    public static LongLongTuple2 of(long f1, long f2)
+    {
+        return new LongLongTuple2(f1, f2);
+    }
+
+    public long f1()
+    {
+        return f1;
+    }
+
+    public long f2()
+    {
+        return f2;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Long.hashCode(f1) + Long.hashCode(f2);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        LongLongTuple2 other = (LongLongTuple2) obj;
+        return this.f1 == other.f1 &&
+                this.f2 == other.f2;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "(" + f1 + ", " + f2 + ")";
+    }
+
+    @Override
+    public int getArity()
+    {
+        return 2;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getField(int pos)
+    {
+        switch (pos) {
+            case 1:
+                return (T) Long.valueOf(f1);
+            case 2:
+                return (T) Long.valueOf(f2);
+            default:
+                throw new IndexOutOfBoundsException(String.valueOf(pos));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public LongLongTuple2 copy()
+    {
+        return new LongLongTuple2(f1, f2);
+    }
+}
@@ -50,7 +50,7 @@ public class Tuple1<F1>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1);
+        return 31 + Objects.hashCode(f1);
     }
 
     @Override
@@ -57,7 +57,8 @@ public class Tuple2<F1, F2>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2);
+        int h = 31 + Objects.hashCode(f1);
+        return 31 * h + Objects.hashCode(f2);
     }
 
     @Override
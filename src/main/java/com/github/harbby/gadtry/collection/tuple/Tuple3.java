@@ -23,12 +23,23 @@ public class Tuple3<F1, F2, F3>
     private final F1 f1;
     private final F2 f2;
     private final F3 f3;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple3(F1 f1, F2 f2, F3 f3)
+    {
+        this(f1, f2, f3, false);
+    }
+
+    private Tuple3(F1 f1, F2 f2, F3 f3, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
         this.f3 = f3;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3> Tuple3<F1, F2, F3> of(F1 f1, F2 f2, F3 f3)
@@ -36,6 +47,14 @@ public class Tuple3<F1, F2, F3>
         return new Tuple3<>(f1, f2, f3);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3> Tuple3<F1, F2, F3> ofCachedHash(F1 f1, F2 f2, F3 f3)
+    {
+        return new Tuple3<>(f1, f2, f3, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -54,7 +73,16 @@ public class Tuple3<F1, F2, F3>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -106,6 +134,6 @@ public class Tuple3<F1, F2, F3>
     @SuppressWarnings("unchecked")
     public Tuple3<F1, F2, F3> copy()
     {
-        return new Tuple3<>(f1, f2, f3);
+        return new Tuple3<>(f1, f2, f3, cacheHash);
     }
 }
@@ -24,13 +24,24 @@ public class Tuple4<F1, F2, F3, F4>
     private final F2 f2;
     private final F3 f3;
     private final F4 f4;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple4(F1 f1, F2 f2, F3 f3, F4 f4)
+    {
+        this(f1, f2, f3, f4, false);
+    }
+
+    private Tuple4(F1 f1, F2 f2, F3 f3, F4 f4, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
         this.f3 = f3;
         this.f4 = f4;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4> Tuple4<F1, F2, F3, F4> of(F1 f1, F2 f2, F3 f3, F4 f4)
@@ -38,6 +49,14 @@ public class Tuple4<F1, F2, F3, F4>
         return new Tuple4<>(f1, f2, f3, f4);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4> Tuple4<F1, F2, F3, F4> ofCachedHash(F1 f1, F2 f2, F3 f3, F4 f4)
+    {
+        return new Tuple4<>(f1, f2, f3, f4, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -61,7 +80,17 @@ public class Tuple4<F1, F2, F3, F4>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -116,6 +145,6 @@ public class Tuple4<F1, F2, F3, F4>
     @SuppressWarnings("unchecked")
     public Tuple4<F1, F2, F3, F4> copy()
     {
-        return new Tuple4<>(f1, f2, f3, f4);
+        return new Tuple4<>(f1, f2, f3, f4, cacheHash);
     }
 }
@@ -25,14 +25,25 @@ public class Tuple5<F1, F2, F3, F4, F5>
     private final F3 f3;
     private final F4 f4;
     private final F5 f5;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple5(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5)
+    {
+        this(f1, f2, f3, f4, f5, false);
+    }
+
+    private Tuple5(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
         this.f3 = f3;
         this.f4 = f4;
         this.f5 = f5;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4, F5> Tuple5<F1, F2, F3, F4, F5> of(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5)
@@ -40,6 +51,14 @@ public class Tuple5<F1, F2, F3, F4, F5>
         return new Tuple5<>(f1, f2, f3, f4, f5);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4, F5> Tuple5<F1, F2, F3, F4, F5> ofCachedHash(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5)
+    {
+        return new Tuple5<>(f1, f2, f3, f4, f5, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -68,7 +87,18 @@ public class Tuple5<F1, F2, F3, F4, F5>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4, f5);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            h = 31 * h + Objects.hashCode(f5);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -126,6 +156,6 @@ public class Tuple5<F1, F2, F3, F4, F5>
     @SuppressWarnings("unchecked")
     public Tuple5<F1, F2, F3, F4, F5> copy()
     {
-        return new Tuple5<>(f1, f2, f3, f4, f5);
+        return new Tuple5<>(f1, f2, f3, f4, f5, cacheHash);
     }
 }
@@ -26,8 +26,18 @@ public class Tuple6<F1, F2, F3, F4, F5, F6>
     private final F4 f4;
     private final F5 f5;
     private final F6 f6;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple6(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6)
+    {
+        this(f1, f2, f3, f4, f5, f6, false);
+    }
+
+    private Tuple6(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
@@ -35,6 +45,7 @@ public class Tuple6<F1, F2, F3, F4, F5, F6>
         this.f4 = f4;
         this.f5 = f5;
         this.f6 = f6;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4, F5, F6> Tuple6<F1, F2, F3, F4, F5, F6> of(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6)
@@ -42,6 +53,14 @@ public class Tuple6<F1, F2, F3, F4, F5, F6>
         return new Tuple6<>(f1, f2, f3, f4, f5, f6);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4, F5, F6> Tuple6<F1, F2, F3, F4, F5, F6> ofCachedHash(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6)
+    {
+        return new Tuple6<>(f1, f2, f3, f4, f5, f6, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -75,7 +94,19 @@ public class Tuple6<F1, F2, F3, F4, F5, F6>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4, f5, f6);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            h = 31 * h + Objects.hashCode(f5);
+            h = 31 * h + Objects.hashCode(f6);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -137,6 +168,6 @@ public class Tuple6<F1, F2, F3, F4, F5, F6>
     @SuppressWarnings("unchecked")
     public Tuple6<F1, F2, F3, F4, F5, F6> copy()
     {
-        return new Tuple6<>(f1, f2, f3, f4, f5, f6);
+        return new Tuple6<>(f1, f2, f3, f4, f5, f6, cacheHash);
     }
 }
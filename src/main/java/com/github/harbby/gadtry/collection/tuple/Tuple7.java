@@ -27,8 +27,18 @@ public class Tuple7<F1, F2, F3, F4, F5, F6, F7>
     private final F5 f5;
     private final F6 f6;
     private final F7 f7;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple7(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7)
+    {
+        this(f1, f2, f3, f4, f5, f6, f7, false);
+    }
+
+    private Tuple7(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
@@ -37,6 +47,7 @@ public class Tuple7<F1, F2, F3, F4, F5, F6, F7>
         this.f5 = f5;
         this.f6 = f6;
         this.f7 = f7;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4, F5, F6, F7> Tuple7<F1, F2, F3, F4, F5, F6, F7> of(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7)
@@ -44,6 +55,14 @@ public class Tuple7<F1, F2, F3, F4, F5, F6, F7>
         return new Tuple7<>(f1, f2, f3, f4, f5, f6, f7);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4, F5, F6, F7> Tuple7<F1, F2, F3, F4, F5, F6, F7> ofCachedHash(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7)
+    {
+        return new Tuple7<>(f1, f2, f3, f4, f5, f6, f7, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -82,7 +101,20 @@ public class Tuple7<F1, F2, F3, F4, F5, F6, F7>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4, f5, f6, f7);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            h = 31 * h + Objects.hashCode(f5);
+            h = 31 * h + Objects.hashCode(f6);
+            h = 31 * h + Objects.hashCode(f7);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -147,6 +179,6 @@ public class Tuple7<F1, F2, F3, F4, F5, F6, F7>
     @SuppressWarnings("unchecked")
     public Tuple7<F1, F2, F3, F4, F5, F6, F7> copy()
     {
-        return new Tuple7<>(f1, f2, f3, f4, f5, f6, f7);
+        return new Tuple7<>(f1, f2, f3, f4, f5, f6, f7, cacheHash);
     }
 }
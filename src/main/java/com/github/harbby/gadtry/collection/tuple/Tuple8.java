@@ -28,8 +28,18 @@ public class Tuple8<F1, F2, F3, F4, F5, F6, F7, F8>
     private final F6 f6;
     private final F7 f7;
     private final F8 f8;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple8(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, F8 f8)
+    {
+        this(f1, f2, f3, f4, f5, f6, f7, f8, false);
+    }
+
+    private Tuple8(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, F8 f8, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
@@ -39,6 +49,7 @@ public class Tuple8<F1, F2, F3, F4, F5, F6, F7, F8>
         this.f6 = f6;
         this.f7 = f7;
         this.f8 = f8;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4, F5, F6, F7, F8> Tuple8<F1, F2, F3, F4, F5, F6, F7, F8> of(
@@ -47,6 +58,15 @@ public class Tuple8<F1, F2, F3, F4, F5, F6, F7, F8>
         return new Tuple8<>(f1, f2, f3, f4, f5, f6, f7, f8);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4, F5, F6, F7, F8> Tuple8<F1, F2, F3, F4, F5, F6, F7, F8> ofCachedHash(
+            F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, F8 f8)
+    {
+        return new Tuple8<>(f1, f2, f3, f4, f5, f6, f7, f8, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -90,7 +110,21 @@ public class Tuple8<F1, F2, F3, F4, F5, F6, F7, F8>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4, f5, f6, f7, f8);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            h = 31 * h + Objects.hashCode(f5);
+            h = 31 * h + Objects.hashCode(f6);
+            h = 31 * h + Objects.hashCode(f7);
+            h = 31 * h + Objects.hashCode(f8);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -158,6 +192,6 @@ public class Tuple8<F1, F2, F3, F4, F5, F6, F7, F8>
     @SuppressWarnings("unchecked")
     public Tuple8<F1, F2, F3, F4, F5, F6, F7, F8> copy()
     {
-        return new Tuple8<>(f1, f2, f3, f4, f5, f6, f7, f8);
+        return new Tuple8<>(f1, f2, f3, f4, f5, f6, f7, f8, cacheHash);
     }
 }
@@ -29,8 +29,18 @@ public class Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9>
     private final F7 f7;
     private final F8 f8;
     private final F9 f9;
+    /**
+     * only tuples created by {@link #ofCachedHash} cache the hash, their elements must be immutable
+     */
+    private final transient boolean cacheHash;
+    private transient int hash;
 
     public Tuple9(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, F8 f8, F9 f9)
+    {
+        this(f1, f2, f3, f4, f5, f6, f7, f8, f9, false);
+    }
+
+    private Tuple9(F1 f1, F2 f2, F3 f3, F4 f4, F5 f5, F6 f6, F7 f7, F8 f8, F9 f9, boolean cacheHash)
     {
         this.f1 = f1;
         this.f2 = f2;
@@ -41,6 +51,7 @@ public class Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9>
         this.f7 = f7;
         this.f8 = f8;
         this.f9 = f9;
+        this.cacheHash = cacheHash;
     }
 
     public static <F1, F2, F3, F4, F5, F6, F7, F8, F9> Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9> of(
@@ -50,6 +61,16 @@ public class Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9>
         return new Tuple9<>(f1, f2, f3, f4, f5, f6, f7, f8, f9);
     }
 
+    /**
+     * the hash is computed once, for immutable elements used as hash keys
+     */
+    public static <F1, F2, F3, F4, F5, F6, F7, F8, F9> Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9> ofCachedHash(
+            F1 f1, F2 f2, F3 f3, F4 f4,
+            F5 f5, F6 f6, F7 f7, F8 f8, F9 f9)
+    {
+        return new Tuple9<>(f1, f2, f3, f4, f5, f6, f7, f8, f9, true);
+    }
+
     public F1 f1()
     {
         return f1;
@@ -98,7 +119,22 @@ public class Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9>
     @Override
     public int hashCode()
     {
-        return Objects.hash(f1, f2, f3, f4, f5, f6, f7, f8, f9);
+        int h = hash;
+        if (h == 0) {
+            h = 31 + Objects.hashCode(f1);
+            h = 31 * h + Objects.hashCode(f2);
+            h = 31 * h + Objects.hashCode(f3);
+            h = 31 * h + Objects.hashCode(f4);
+            h = 31 * h + Objects.hashCode(f5);
+            h = 31 * h + Objects.hashCode(f6);
+            h = 31 * h + Objects.hashCode(f7);
+            h = 31 * h + Objects.hashCode(f8);
+            h = 31 * h + Objects.hashCode(f9);
+            if (cacheHash) {
+                this.hash = h;
+            }
+        }
+        return h;
     }
 
     @Override
@@ -169,6 +205,6 @@ public class Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9>
     @SuppressWarnings("unchecked")
     public Tuple9<F1, F2, F3, F4, F5, F6, F7, F8, F9> copy()
     {
-        return new Tuple9<>(f1, f2, f3, f4, f5, f6, f7, f8, f9);
+        return new Tuple9<>(f1, f2, f3, f4, f5, f6, f7, f8, f9, cacheHash);
     }
 }
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import com.github.harbby.gadtry.collection.EachIterator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static com.github.harbby.gadtry.base.MoreObjects.checkState;
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact binary format for Tuple1..Tuple9 without class descriptors or reflection.
+ * Each field is written by its {@link FieldCodec}, nested tuples use another TupleSerializer as the field codec.
+ * <p>
+ * Streams written by {@link #writer(DataOutput)} put a marker byte before each record and an end marker on close,
+ * and are read back by {@link #reader(DataInput)}.
+ */
+public final class TupleSerializer<T extends Tuple>
+        implements FieldCodec<T>
+{
+    private static final int RECORD = 1;
+    private static final int END = 0;
+
+    private final FieldCodec<Object>[] codecs;
+
+    private TupleSerializer(FieldCodec<Object>[] codecs)
+    {
+        this.codecs = codecs;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Tuple> TupleSerializer<T> of(FieldCodec<?>... codecs)
+    {
+        requireNonNull(codecs, "codecs is null");
+        checkArgument(codecs.length > 0 && codecs.length <= 9, "tuple arity must be in [1, 9]");
+        for (FieldCodec<?> codec : codecs) {
+            requireNonNull(codec, "codec is null");
+        }
+        return new TupleSerializer<>((FieldCodec<Object>[]) codecs.clone());
+    }
+
+    public int getArity()
+    {
+        return codecs.length;
+    }
+
+    @Override
+    public void encode(T tuple, DataOutput out)
+            throws IOException
+    {
+        checkArgument(tuple.getArity() == codecs.length, "tuple arity %s, but serializer arity %s", tuple.getArity(), codecs.length);
+        for (int i = 0; i < codecs.length; i++) {
+            codecs[i].encode(tuple.getField(i + 1), out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T decode(DataInput in)
+            throws IOException
+    {
+        Object[] values = new Object[codecs.length];
+        for (int i = 0; i < codecs.length; i++) {
+            values[i] = codecs[i].decode(in);
+        }
+        return (T) Tuples.create(values);
+    }
+
+    public byte[] serialize(T tuple)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            encode(tuple, new DataOutputStream(bytes));
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public T deserialize(byte[] bytes)
+    {
+        try {
+            return decode(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException if the buffer is full
+     */
+    public void write(T tuple, ByteBuffer buffer)
+    {
+        try {
+            encode(tuple, new ByteBufferOutput(buffer));
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+    }
+
+    public T read(ByteBuffer buffer)
+    {
+        try {
+            return decode(new ByteBufferInput(buffer));
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+    }
+
+    public Writer<T> writer(DataOutput out)
+    {
+        return new Writer<>(this, requireNonNull(out, "out is null"));
+    }
+
+    public Writer<T> writer(ByteBuffer buffer)
+    {
+        return new Writer<>(this, new ByteBufferOutput(requireNonNull(buffer, "buffer is null")));
+    }
+
+    /**
+     * read records until the end marker or end of input
+     */
+    public EachIterator<T> reader(DataInput in)
+    {
+        requireNonNull(in, "in is null");
+        return new EachIterator<T>()
+        {
+            private T current;
+            private boolean finished = false;
+
+            @Override
+            public boolean next()
+            {
+                if (finished) {
+                    return false;
+                }
+                byte marker;
+                try {
+                    marker = in.readByte();
+                }
+                catch (EOFException | BufferUnderflowException e) {
+                    marker = END;
+                }
+                catch (IOException e) {
+                    throw throwsThrowable(e);
+                }
+                if (marker == END) {
+                    finished = true;
+                    current = null;
+                    return false;
+                }
+                try {
+                    current = decode(in);
+                    return true;
+                }
+                catch (IOException e) {
+                    throw throwsThrowable(e);
+                }
+            }
+
+            @Override
+            public T current()
+            {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
+                return current;
+            }
+        };
+    }
+
+    public EachIterator<T> reader(ByteBuffer buffer)
+    {
+        return reader(new ByteBufferInput(requireNonNull(buffer, "buffer is null")));
+    }
+
+    public static final class Writer<T extends Tuple>
+            implements AutoCloseable
+    {
+        private final TupleSerializer<T> serializer;
+        private final DataOutput out;
+        private boolean closed = false;
+
+        private Writer(TupleSerializer<T> serializer, DataOutput out)
+        {
+            this.serializer = serializer;
+            this.out = out;
+        }
+
+        public Writer<T> write(T tuple)
+                throws IOException
+        {
+            checkState(!closed, "writer is closed");
+            out.writeByte(RECORD);
+            serializer.encode(tuple, out);
+            return this;
+        }
+
+        /**
+         * write the end marker, the underlying output is not closed
+         */
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (!closed) {
+                closed = true;
+                out.writeByte(END);
+            }
+        }
+    }
+
+    private static final class ByteBufferOutput
+            implements DataOutput
+    {
+        private final ByteBuffer buffer;
+
+        private ByteBufferOutput(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b)
+        {
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b)
+        {
+            buffer.put(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            buffer.put(b, off, len);
+        }
+
+        @Override
+        public void writeBoolean(boolean v)
+        {
+            buffer.put((byte) (v ? 1 : 0));
+        }
+
+        @Override
+        public void writeByte(int v)
+        {
+            buffer.put((byte) v);
+        }
+
+        @Override
+        public void writeShort(int v)
+        {
+            buffer.putShort((short) v);
+        }
+
+        @Override
+        public void writeChar(int v)
+        {
+            buffer.putChar((char) v);
+        }
+
+        @Override
+        public void writeInt(int v)
+        {
+            buffer.putInt(v);
+        }
+
+        @Override
+        public void writeLong(long v)
+        {
+            buffer.putLong(v);
+        }
+
+        @Override
+        public void writeFloat(float v)
+        {
+            buffer.putFloat(v);
+        }
+
+        @Override
+        public void writeDouble(double v)
+        {
+            buffer.putDouble(v);
+        }
+
+        @Override
+        public void writeBytes(String s)
+        {
+            for (int i = 0; i < s.length(); i++) {
+                buffer.put((byte) s.charAt(i));
+            }
+        }
+
+        @Override
+        public void writeChars(String s)
+        {
+            for (int i = 0; i < s.length(); i++) {
+                buffer.putChar(s.charAt(i));
+            }
+        }
+
+        @Override
+        public void writeUTF(String s)
+                throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(s.length() + 2);
+            new DataOutputStream(bytes).writeUTF(s);
+            buffer.put(bytes.toByteArray());
+        }
+    }
+
+    private static final class ByteBufferInput
+            implements DataInput
+    {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInput(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void readFully(byte[] b)
+        {
+            buffer.get(b);
+        }
+
+        @Override
+        public void readFully(byte[] b, int off, int len)
+        {
+            buffer.get(b, off, len);
+        }
+
+        @Override
+        public int skipBytes(int n)
+        {
+            int skip = Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + skip);
+            return skip;
+        }
+
+        @Override
+        public boolean readBoolean()
+        {
+            return buffer.get() != 0;
+        }
+
+        @Override
+        public byte readByte()
+        {
+            return buffer.get();
+        }
+
+        @Override
+        public int readUnsignedByte()
+        {
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public short readShort()
+        {
+            return buffer.getShort();
+        }
+
+        @Override
+        public int readUnsignedShort()
+        {
+            return buffer.getShort() & 0xFFFF;
+        }
+
+        @Override
+        public char readChar()
+        {
+            return buffer.getChar();
+        }
+
+        @Override
+        public int readInt()
+        {
+            return buffer.getInt();
+        }
+
+        @Override
+        public long readLong()
+        {
+            return buffer.getLong();
+        }
+
+        @Override
+        public float readFloat()
+        {
+            return buffer.getFloat();
+        }
+
+        @Override
+        public double readDouble()
+        {
+            return buffer.getDouble();
+        }
+
+        /**
+         * same as {@link DataInputStream#readLine()}: every byte is one char, a line ends with \n, \r or \r\n
+         */
+        @Override
+        public String readLine()
+        {
+            if (!buffer.hasRemaining()) {
+                return null;
+            }
+            StringBuilder builder = new StringBuilder();
+            while (buffer.hasRemaining()) {
+                int c = buffer.get() & 0xFF;
+                if (c == '\n') {
+                    break;
+                }
+                if (c == '\r') {
+                    if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+                        buffer.get();
+                    }
+                    break;
+                }
+                builder.append((char) c);
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public String readUTF()
+                throws IOException
+        {
+            return DataInputStream.readUTF(this);
+        }
+    }
+}
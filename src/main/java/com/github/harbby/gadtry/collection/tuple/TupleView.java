@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import com.github.harbby.gadtry.collection.EachIterator;
+
+import java.nio.ByteBuffer;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Flyweight tuple over columnar arrays or a fixed-width record buffer.
+ * The view is a mutable cursor: {@link #next()} and {@link #moveTo(int)} change the row it reads,
+ * so operators can scan rows without allocating a tuple per row.
+ * Use {@link #copy()} to materialize a real {@code TupleN} that outlives the cursor position.
+ * <p>
+ * getInt/getLong/getDouble read primitive fields without boxing.
+ * Like {@code Tuple9} the arity is at most 9.
+ */
+public abstract class TupleView
+        implements Tuple, EachIterator<TupleView>
+{
+    public enum FieldType
+    {
+        INT(4), LONG(8), DOUBLE(8);
+
+        private final int width;
+
+        FieldType(int width)
+        {
+            this.width = width;
+        }
+    }
+
+    private final int rowCount;
+    protected int row = -1;
+
+    private TupleView(int rowCount)
+    {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @param columns one array per field: int[], long[], double[] or any Object[], all with the same length
+     * @return view positioned before the first row
+     */
+    public static TupleView ofColumns(Object... columns)
+    {
+        requireNonNull(columns, "columns is null");
+        checkArgument(columns.length > 0, "columns is empty");
+        checkArgument(columns.length <= 9, "tuple arity must <= 9, but got %s", columns.length);
+        return new ColumnView(columns);
+    }
+
+    /**
+     * @param buffer fixed-width records from position to limit, heap or direct(off-heap)
+     * @param fields record layout
+     * @return view positioned before the first row
+     */
+    public static TupleView ofRecords(ByteBuffer buffer, FieldType... fields)
+    {
+        requireNonNull(buffer, "buffer is null");
+        requireNonNull(fields, "fields is null");
+        checkArgument(fields.length > 0, "fields is empty");
+        checkArgument(fields.length <= 9, "tuple arity must <= 9, but got %s", fields.length);
+        return new RecordView(buffer, fields);
+    }
+
+    public int rowCount()
+    {
+        return rowCount;
+    }
+
+    public int row()
+    {
+        return row;
+    }
+
+    public TupleView moveTo(int row)
+    {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(row));
+        }
+        this.row = row;
+        return this;
+    }
+
+    @Override
+    public boolean next()
+    {
+        if (row + 1 < rowCount) {
+            row++;
+            return true;
+        }
+        row = rowCount;
+        return false;
+    }
+
+    /**
+     * @return this view, only valid until the next move
+     */
+    @Override
+    public TupleView current()
+    {
+        return this;
+    }
+
+    public abstract int getInt(int pos);
+
+    public abstract long getLong(int pos);
+
+    public abstract double getDouble(int pos);
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T extends Tuple> T copy()
+    {
+        Object[] v = new Object[getArity()];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = getField(i + 1);
+        }
+        return (T) Tuples.create(v);
+    }
+
+    /**
+     * serialize the current row as a real tuple
+     */
+    protected final Object writeReplace()
+    {
+        return copy();
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 1; i <= getArity(); i++) {
+            if (i > 1) {
+                builder.append(", ");
+            }
+            Object value = getField(i);
+            builder.append(value);
+        }
+        return builder.append(")").toString();
+    }
+
+    private static final class ColumnView
+            extends TupleView
+    {
+        private final Object[] columns;
+
+        private ColumnView(Object[] columns)
+        {
+            super(length(columns[0]));
+            for (Object column : columns) {
+                checkArgument(length(column) == rowCount(), "all columns must have the same length");
+            }
+            this.columns = columns.clone();
+        }
+
+        private static int length(Object column)
+        {
+            if (column instanceof Object[]) {
+                return ((Object[]) column).length;
+            }
+            else if (column instanceof int[]) {
+                return ((int[]) column).length;
+            }
+            else if (column instanceof long[]) {
+                return ((long[]) column).length;
+            }
+            else if (column instanceof double[]) {
+                return ((double[]) column).length;
+            }
+            throw new IllegalArgumentException("not support column type " + (column == null ? null : column.getClass()));
+        }
+
+        @Override
+        public int getArity()
+        {
+            return columns.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getField(int pos)
+        {
+            Object column = columns[pos - 1];
+            if (column instanceof Object[]) {
+                return (T) ((Object[]) column)[row];
+            }
+            else if (column instanceof int[]) {
+                return (T) (Integer) ((int[]) column)[row];
+            }
+            else if (column instanceof long[]) {
+                return (T) (Long) ((long[]) column)[row];
+            }
+            else {
+                return (T) (Double) ((double[]) column)[row];
+            }
+        }
+
+        @Override
+        public int getInt(int pos)
+        {
+            return ((int[]) columns[pos - 1])[row];
+        }
+
+        @Override
+        public long getLong(int pos)
+        {
+            return ((long[]) columns[pos - 1])[row];
+        }
+
+        @Override
+        public double getDouble(int pos)
+        {
+            return ((double[]) columns[pos - 1])[row];
+        }
+    }
+
+    private static final class RecordView
+            extends TupleView
+    {
+        private final ByteBuffer buffer;
+        private final FieldType[] fields;
+        private final int[] offsets;
+        private final int base;
+        private final int recordSize;
+
+        private RecordView(ByteBuffer buffer, FieldType[] fields)
+        {
+            super(buffer.remaining() / recordSize(fields));
+            this.buffer = buffer;
+            this.fields = fields.clone();
+            this.offsets = new int[fields.length];
+            this.base = buffer.position();
+            this.recordSize = recordSize(fields);
+            for (int i = 1; i < fields.length; i++) {
+                offsets[i] = offsets[i - 1] + fields[i - 1].width;
+            }
+        }
+
+        private static int recordSize(FieldType[] fields)
+        {
+            int size = 0;
+            for (FieldType field : fields) {
+                size += requireNonNull(field, "field is null").width;
+            }
+            return size;
+        }
+
+        private int index(int pos)
+        {
+            if (row < 0 || row >= rowCount()) {
+                throw new IndexOutOfBoundsException("row " + row);
+            }
+            return base + row * recordSize + offsets[pos - 1];
+        }
+
+        @Override
+        public int getArity()
+        {
+            return fields.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getField(int pos)
+        {
+            switch (fields[pos - 1]) {
+                case INT:
+                    return (T) (Integer) getInt(pos);
+                case LONG:
+                    return (T) (Long) getLong(pos);
+                default:
+                    return (T) (Double) getDouble(pos);
+            }
+        }
+
+        @Override
+        public int getInt(int pos)
+        {
+            return buffer.getInt(index(pos));
+        }
+
+        @Override
+        public long getLong(int pos)
+        {
+            return buffer.getLong(index(pos));
+        }
+
+        @Override
+        public double getDouble(int pos)
+        {
+            return buffer.getDouble(index(pos));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+final class Tuples
+{
+    private Tuples() {}
+
+    /**
+     * @param v field values
+     * @return Tuple1..Tuple9 with the same arity
+     */
+    static Tuple create(Object[] v)
+    {
+        switch (v.length) {
+            case 1:
+                return Tuple1.of(v[0]);
+            case 2:
+                return Tuple2.of(v[0], v[1]);
+            case 3:
+                return Tuple3.of(v[0], v[1], v[2]);
+            case 4:
+                return Tuple4.of(v[0], v[1], v[2], v[3]);
+            case 5:
+                return Tuple5.of(v[0], v[1], v[2], v[3], v[4]);
+            case 6:
+                return Tuple6.of(v[0], v[1], v[2], v[3], v[4], v[5]);
+            case 7:
+                return Tuple7.of(v[0], v[1], v[2], v[3], v[4], v[5], v[6]);
+            case 8:
+                return Tuple8.of(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7]);
+            case 9:
+                return Tuple9.of(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8]);
+            default:
+                throw new UnsupportedOperationException("not support tuple arity " + v.length);
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.github.harbby.gadtry.graph;
 
+import com.github.harbby.gadtry.graph.impl.CsrGraph;
 import com.github.harbby.gadtry.graph.impl.DefaultGraph;
 
 import java.io.Serializable;
@@ -63,6 +64,16 @@ public interface Graph<E, R>
 
     public SearchBuilder<E, R> search();
 
+    /**
+     * 带权最短路径
+     *
+     * @return shortest path builder, edge weight is mapped from edge data
+     */
+    public default ShortestPathBuilder<E, R> shortestPath()
+    {
+        return new ShortestPathBuilder<>(this);
+    }
+
     List<Route<E, R>> searchRuleRoute(String in, Function<Route<E, R>, Boolean> rule);
 
     List<Route<E, R>> searchRuleRoute(Function<Route<E, R>, Boolean> rule);
@@ -76,6 +87,14 @@ public interface Graph<E, R>
         return new GraphBuilder<>();
     }
 
+    /**
+     * builder of an immutable compact(CSR) graph, for graphs with many nodes and edges
+     */
+    static <E, R> CsrGraph.Builder<E, R> compactBuilder()
+    {
+        return CsrGraph.builder();
+    }
+
     public static class GraphBuilder<E, R>
     {
         private final Map<String, Node.Builder<E, R>> rootNodes = new HashMap<>();
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 并行 广度优先 level-synchronous parallel breadth first search.
+ * <p>
+ * Every level(frontier) is split across a fork-join pool, each worker expands its routes with
+ * the same steps as {@link SearchBuilder.Optimizer#BREADTH_FIRST}. Routes found by one level are
+ * merged in frontier order, so without a globalRule stop the result order is the same as the serial search.
+ * nextRule and globalRule are called concurrently and must be thread safe, once globalRule returns false
+ * every worker stops before its next step. Each worker passes its own context view to globalRule,
+ * so {@link SearchContext#getLastRoute()} is always the route the worker just created.
+ * With visitOnce, workers skip nodes visited by earlier levels, a node is marked when the level is merged
+ * and only the first accepted route in frontier order keeps it.
+ */
+final class ParallelSearch
+{
+    private ParallelSearch() {}
+
+    private static final int SPLIT_THRESHOLD = 8;
+
+    static <E, R> void searchByBreadthFirst(
+            Deque<Route<E, R>> routes,
+            SearchContext<E, R> context,
+            Route<E, R> beginNode,
+            ForkJoinPool pool,
+            VisitedSet<E, R> visited,
+            boolean skipCycles)
+    {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        if (visited != null) {
+            visited.visit(beginNode.getLastNode());
+        }
+        List<Route<E, R>> frontier = Collections.singletonList(beginNode);
+        while (!frontier.isEmpty() && !stop.get()) {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            List<Route<E, R>>[] children = new List[frontier.size()];
+            pool.invoke(new ExpandTask<>(frontier, children, 0, frontier.size(), context, visited, skipCycles, stop));
+
+            List<Route<E, R>> next = new ArrayList<>();
+            for (List<Route<E, R>> list : children) {
+                if (list == null) {
+                    continue;
+                }
+                for (Route<E, R> route : list) {
+                    //marked in frontier order after nextRule accepted it, the same route claims the node on every run
+                    if (visited == null || visited.visit(route.getLastNode())) {
+                        next.add(route);
+                    }
+                }
+            }
+            routes.addAll(next);
+            frontier = next;
+        }
+    }
+
+    private static class ExpandTask<E, R>
+            extends RecursiveAction
+    {
+        private final List<Route<E, R>> frontier;
+        private final List<Route<E, R>>[] children;
+        private final int from;
+        private final int to;
+        private final SearchContext<E, R> context;
+        private final VisitedSet<E, R> visited;
+        private final boolean skipCycles;
+        private final AtomicBoolean stop;
+
+        private ExpandTask(List<Route<E, R>> frontier, List<Route<E, R>>[] children, int from, int to,
+                SearchContext<E, R> context, VisitedSet<E, R> visited, boolean skipCycles, AtomicBoolean stop)
+        {
+            this.frontier = frontier;
+            this.children = children;
+            this.from = from;
+            this.to = to;
+            this.context = context;
+            this.visited = visited;
+            this.skipCycles = skipCycles;
+            this.stop = stop;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask<>(frontier, children, from, middle, context, visited, skipCycles, stop),
+                        new ExpandTask<>(frontier, children, middle, to, context, visited, skipCycles, stop));
+                return;
+            }
+            //globalRule must see the route this worker just created, not another worker's
+            SearchContext<E, R> local = context.fork();
+            for (int i = from; i < to && !stop.get(); i++) {
+                children[i] = expand(frontier.get(i), local);
+            }
+        }
+
+        private List<Route<E, R>> expand(Route<E, R> route, SearchContext<E, R> local)
+        {
+            Collection<Edge<E, R>> edges = route.getLastNode().nextNodes();
+            List<Route<E, R>> found = new ArrayList<>();
+            for (Edge<E, R> edge : edges) {
+                if (stop.get()) {
+                    break;
+                }
+                if (skipCycles && route.containsNode(edge.getOutNode().getId())) {
+                    continue;
+                }
+                if (visited != null && visited.contains(edge.getOutNode())) {
+                    continue;
+                }
+                Route<E, R> newRoute = route.append(edge);
+                local.setLastRoute(newRoute);
+
+                if (local.getNextRule().apply(newRoute)) {
+                    found.add(newRoute);
+                }
+
+                if (!local.getGlobalRule().apply(local)) {
+                    stop.set(true);
+                }
+            }
+            return found;
+        }
+    }
+}
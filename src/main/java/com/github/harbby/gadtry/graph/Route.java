@@ -28,6 +28,17 @@ public interface Route<E, R>
 
     public Route.Builder<E, R> copy();
 
+    /**
+     * create a new route with one more edge, this route is not changed
+     *
+     * @param edge next edge, must start at the last node
+     * @return new route
+     */
+    public default Route<E, R> append(Edge<E, R> edge)
+    {
+        return copy().add(edge).create();
+    }
+
     /**
      * 检测死递归
      *
@@ -37,6 +48,15 @@ public interface Route<E, R>
 
     public Deque<Edge<E, R>> getEdges();
 
+    /**
+     * @param id node id
+     * @return true if the node is on this route
+     */
+    public default boolean containsNode(String id)
+    {
+        return getIds().contains(id);
+    }
+
     public int size();
 
     /**
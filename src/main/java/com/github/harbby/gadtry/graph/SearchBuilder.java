@@ -17,10 +17,15 @@ package com.github.harbby.gadtry.graph;
 
 import com.github.harbby.gadtry.collection.MutableList;
 
+import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -32,7 +37,8 @@ public class SearchBuilder<E, R>
     {
         RECURSIVE_DEPTH_FIRST, //递归 深度优先 recursive_depth_first
         BREADTH_FIRST,   //广度优先 breadth_first
-        DEPTH_FIRST   //深度优先 depth_first
+        DEPTH_FIRST,   //深度优先 depth_first
+        PARALLEL_BREADTH_FIRST  //并行广度优先 parallel_breadth_first, rules must be thread safe
     }
 
     private final Graph<E, R> graph;
@@ -42,6 +48,9 @@ public class SearchBuilder<E, R>
     private Node<E, R> endNode;
     private Function<Route<E, R>, Boolean> nextRule;
     private Function<SearchContext<E, R>, Boolean> globalRule = erSearchContext -> true;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private boolean visitOnce = false;
+    private boolean skipCycles = false;
 
     public SearchBuilder(Graph<E, R> graph, Node<E, R> root)
     {
@@ -81,6 +90,36 @@ public class SearchBuilder<E, R>
         return this;
     }
 
+    /**
+     * fork-join pool used by {@link Optimizer#PARALLEL_BREADTH_FIRST}, default is the common pool
+     */
+    public SearchBuilder<E, R> parallelism(ForkJoinPool pool)
+    {
+        this.pool = requireNonNull(pool, "pool is null");
+        return this;
+    }
+
+    /**
+     * every node is reached by at most one route(the first one accepted by nextRule), later edges into a visited node are skipped.
+     * This turns route enumeration into a reachability search that is linear in the graph size.
+     * Skipped edges do not create a route, nextRule is not called for them.
+     */
+    public SearchBuilder<E, R> visitOnce()
+    {
+        this.visitOnce = true;
+        return this;
+    }
+
+    /**
+     * edges into a node that is already on the route are skipped before a route is created,
+     * the same routes as a nextRule with {@link Route#findDeadLoop()} but the check is O(1) per step.
+     */
+    public SearchBuilder<E, R> skipCycles()
+    {
+        this.skipCycles = true;
+        return this;
+    }
+
     public SearchResult<E, R> search()
     {
         requireNonNull(nextRule, "nextRule is null");
@@ -89,20 +128,20 @@ public class SearchBuilder<E, R>
         Route<E, R> begin = Route.builder(beginNode).create();
         final Deque<Route<E, R>> routes = new LinkedList<>();
 
+        final VisitedSet<E, R> visited = visitOnce ? VisitedSet.create(graph) : null;
         switch (optimizer) {
             case DEPTH_FIRST:
-                searchByDepthFirst(routes, searchContext, begin);
+                searchByDepthFirst(routes, searchContext, begin, visited, skipCycles);
                 break;
             case BREADTH_FIRST:
-                searchByBreadthFirst(routes, searchContext, begin);
+                searchByBreadthFirst(routes, searchContext, begin, visited, skipCycles);
+                break;
+            case PARALLEL_BREADTH_FIRST:
+                ParallelSearch.searchByBreadthFirst(routes, searchContext, begin, pool, visited, skipCycles);
                 break;
             case RECURSIVE_DEPTH_FIRST:
             default:
-                try {
-                    searchByRecursiveDepthFirst(routes, searchContext, begin);
-                }
-                catch (RecursiveExitException ignored) {
-                }
+                searchByRecursiveDepthFirst(routes, searchContext, begin, visited, skipCycles);
         }
 
         return new SearchResult<E, R>()
@@ -135,34 +174,71 @@ public class SearchBuilder<E, R>
     }
 
     /*
-     *  递归 深度优先
-     * 如果深度过高可能 throws StackOverflowError
+     * 递归 深度优先
+     * 使用显式栈代替方法递归, 遍历顺序与递归版本相同, 深度很高时也不会 StackOverflowError
+     * skipCycles时 栈上的节点同时记录在path中, 入栈add 出栈remove
      * */
     private static <E, R> void searchByRecursiveDepthFirst(
             Deque<Route<E, R>> routes,
             SearchContext<E, R> context,
-            Route<E, R> route)
+            Route<E, R> beginRoute,
+            VisitedSet<E, R> visited,
+            boolean skipCycles)
     {
-        for (Edge<E, R> edge : route.getLastNode().nextNodes()) {   //use stream.parallel();
-            Route<E, R> newRoute = route.copy().add(edge).create();
+        final Set<String> path = skipCycles ? new HashSet<>(beginRoute.getIds()) : null;
+        if (visited != null) {
+            visited.visit(beginRoute.getLastNode());
+        }
+        final Deque<DepthFirstFrame<E, R>> stack = new ArrayDeque<>();
+        stack.push(new DepthFirstFrame<>(beginRoute));
+        while (!stack.isEmpty()) {
+            DepthFirstFrame<E, R> frame = stack.peek();
+            if (!frame.edges.hasNext()) {
+                stack.pop();
+                if (path != null && frame.route != beginRoute) {
+                    path.remove(frame.route.getLastNodeId());
+                }
+                continue;
+            }
+            Edge<E, R> edge = frame.edges.next();
+            if (path != null && path.contains(edge.getOutNode().getId())) {
+                continue;
+            }
+            if (visited != null && visited.contains(edge.getOutNode())) {
+                continue;
+            }
+            Route<E, R> newRoute = frame.route.append(edge);
             context.setLastRoute(newRoute);
             boolean next = context.getNextRule().apply(newRoute);
             if (next) {
                 routes.add(newRoute);
+                if (visited != null) {
+                    visited.visit(newRoute.getLastNode());
+                }
             }
             if (!context.getGlobalRule().apply(context)) {
-                throw new RecursiveExitException();
+                return;
             }
 
             if (next) {
-                searchByRecursiveDepthFirst(routes, context, newRoute);
+                stack.push(new DepthFirstFrame<>(newRoute));
+                if (path != null) {
+                    path.add(newRoute.getLastNodeId());
+                }
             }
         }
     }
 
-    private static class RecursiveExitException
-            extends RuntimeException
+    private static class DepthFirstFrame<E, R>
     {
+        private final Route<E, R> route;
+        private final Iterator<Edge<E, R>> edges;
+
+        private DepthFirstFrame(Route<E, R> route)
+        {
+            this.route = route;
+            this.edges = route.getLastNode().nextNodes().iterator();
+        }
     }
 
     /**
@@ -171,20 +247,31 @@ public class SearchBuilder<E, R>
     private static <E, R> void searchByBreadthFirst(
             Deque<Route<E, R>> routes,
             SearchContext<E, R> context,
-            Route<E, R> beginNode)
+            Route<E, R> beginNode,
+            VisitedSet<E, R> visited,
+            boolean skipCycles)
     {
+        if (visited != null) {
+            visited.visit(beginNode.getLastNode());
+        }
         final Queue<Route<E, R>> nextNodes = new LinkedList<>();
         nextNodes.add(beginNode);
 
         Route<E, R> route;
         while ((route = nextNodes.poll()) != null) {
             for (Edge<E, R> edge : route.getLastNode().nextNodes()) {   //use stream.parallel();
-                Route<E, R> newRoute = route.copy().add(edge).create();
+                if (skip(route, edge, visited, skipCycles)) {
+                    continue;
+                }
+                Route<E, R> newRoute = route.append(edge);
                 context.setLastRoute(newRoute);
 
                 if (context.getNextRule().apply(newRoute)) {
                     routes.add(newRoute);
                     nextNodes.add(newRoute);
+                    if (visited != null) {
+                        visited.visit(newRoute.getLastNode());
+                    }
                 }
 
                 if (!context.getGlobalRule().apply(context)) {
@@ -201,20 +288,31 @@ public class SearchBuilder<E, R>
     private static <E, R> void searchByDepthFirst(
             Deque<Route<E, R>> routes,
             SearchContext<E, R> context,
-            Route<E, R> beginNode)
+            Route<E, R> beginNode,
+            VisitedSet<E, R> visited,
+            boolean skipCycles)
     {
+        if (visited != null) {
+            visited.visit(beginNode.getLastNode());
+        }
         final Deque<Route<E, R>> nextNodes = new LinkedList<>();  //Stack
         nextNodes.add(beginNode);
 
         Route<E, R> route;
         while ((route = nextNodes.pollLast()) != null) {
             for (Edge<E, R> edge : route.getLastNode().nextNodes()) {   //use stream.parallel();
-                Route<E, R> newRoute = route.copy().add(edge).create();
+                if (skip(route, edge, visited, skipCycles)) {
+                    continue;
+                }
+                Route<E, R> newRoute = route.append(edge);
                 context.setLastRoute(newRoute);
 
                 if (context.getNextRule().apply(newRoute)) {
                     routes.add(newRoute);
                     nextNodes.add(newRoute);
+                    if (visited != null) {
+                        visited.visit(newRoute.getLastNode());
+                    }
                 }
 
                 if (!context.getGlobalRule().apply(context)) {
@@ -224,4 +322,13 @@ public class SearchBuilder<E, R>
             }
         }
     }
+
+    private static <E, R> boolean skip(Route<E, R> route, Edge<E, R> edge, VisitedSet<E, R> visited, boolean skipCycles)
+    {
+        if (skipCycles && route.containsNode(edge.getOutNode().getId())) {
+            return true;
+        }
+        //nodes are marked only after nextRule accepted the route, a rejected edge does not hide the node
+        return visited != null && visited.contains(edge.getOutNode());
+    }
 }
@@ -15,16 +15,17 @@
  */
 package com.github.harbby.gadtry.graph;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class SearchContext<N, E>
 {
     private final Function<Route<N, E>, Boolean> nextRule;
     private final Function<SearchContext<N, E>, Boolean> globalRule;
-    private final long searchStartTime = System.currentTimeMillis();
+    private final long searchStartTime;
+    private final AtomicInteger number;
 
-    private Route<N, E> lastRoute;
-    private int number = 0;
+    private volatile Route<N, E> lastRoute;
 
     public SearchContext(
             Function<Route<N, E>, Boolean> nextRule,
@@ -32,12 +33,30 @@ public class SearchContext<N, E>
     {
         this.nextRule = nextRule;
         this.globalRule = globalRule;
+        this.searchStartTime = System.currentTimeMillis();
+        this.number = new AtomicInteger();
+    }
+
+    private SearchContext(SearchContext<N, E> parent)
+    {
+        this.nextRule = parent.nextRule;
+        this.globalRule = parent.globalRule;
+        this.searchStartTime = parent.searchStartTime;
+        this.number = parent.number;
+    }
+
+    /**
+     * view for one worker of a parallel search, the found node number is shared and lastRoute is the worker's own
+     */
+    SearchContext<N, E> fork()
+    {
+        return new SearchContext<>(this);
     }
 
     void setLastRoute(Route<N, E> lastRoute)
     {
         this.lastRoute = lastRoute;
-        this.number++;
+        this.number.incrementAndGet();
     }
 
     public Route<N, E> getLastRoute()
@@ -57,7 +76,7 @@ public class SearchContext<N, E>
 
     public int getFindNodeNumber()
     {
-        return number;
+        return number.get();
     }
 
     public Function<Route<N, E>, Boolean> getNextRule()
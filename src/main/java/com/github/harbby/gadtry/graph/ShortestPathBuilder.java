@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import com.github.harbby.gadtry.graph.impl.CsrGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 带权最短路径 weighted shortest path search
+ * <p>
+ * The weight of an edge is computed from its data by {@link #weight(ToDoubleFunction)} and must be &gt;= 0.
+ * All algorithms use a binary heap(PriorityQueue) with lazy deletion and run in O((n + m) log n),
+ * instead of enumerating every route with {@link SearchBuilder} and picking the cheapest one.
+ */
+public class ShortestPathBuilder<E, R>
+{
+    public enum Algorithm
+    {
+        DIJKSTRA,
+        A_STAR,  //needs an admissible heuristic
+        BIDIRECTIONAL  //双向 dijkstra, backward search follows in-edges
+    }
+
+    private static final Comparator<QueueEntry<?, ?>> PRIORITY_ORDER = Comparator.comparingDouble(x -> x.priority);
+
+    private final Graph<E, R> graph;
+
+    private Algorithm algorithm = Algorithm.DIJKSTRA;
+    private Node<E, R> beginNode;
+    private Node<E, R> endNode;
+    private ToDoubleFunction<R> weight;
+    private ToDoubleFunction<Node<E, R>> heuristic;
+
+    public ShortestPathBuilder(Graph<E, R> graph)
+    {
+        this.graph = requireNonNull(graph, "graph is null");
+    }
+
+    public ShortestPathBuilder<E, R> algorithm(Algorithm algorithm)
+    {
+        this.algorithm = requireNonNull(algorithm, "algorithm is null");
+        return this;
+    }
+
+    public ShortestPathBuilder<E, R> beginNode(String beginNodeId)
+    {
+        requireNonNull(beginNodeId, "beginNodeId is null");
+        this.beginNode = graph.getNode(beginNodeId);
+        return this;
+    }
+
+    public ShortestPathBuilder<E, R> endNode(String endNodeId)
+    {
+        requireNonNull(endNodeId, "endNodeId is null");
+        this.endNode = graph.getNode(endNodeId);
+        return this;
+    }
+
+    /**
+     * @param weight edge data to edge weight, the weight must be &gt;= 0
+     */
+    public ShortestPathBuilder<E, R> weight(ToDoubleFunction<R> weight)
+    {
+        this.weight = requireNonNull(weight, "weight is null");
+        return this;
+    }
+
+    /**
+     * estimated distance from a node to the end node, used by {@link Algorithm#A_STAR}.
+     * The result is the shortest path if the heuristic never overestimates(admissible)
+     */
+    public ShortestPathBuilder<E, R> heuristic(ToDoubleFunction<Node<E, R>> heuristic)
+    {
+        this.heuristic = requireNonNull(heuristic, "heuristic is null");
+        return this;
+    }
+
+    /**
+     * @return the shortest route from beginNode to endNode, or empty if endNode is unreachable
+     */
+    public Optional<Route<E, R>> search()
+    {
+        requireNonNull(beginNode, "beginNode is null");
+        requireNonNull(endNode, "endNode is null");
+        requireNonNull(weight, "weight is null");
+        if (beginNode.getId().equals(endNode.getId())) {
+            return Optional.of(Route.builder(beginNode).create());
+        }
+
+        switch (algorithm) {
+            case A_STAR:
+                return searchByAStar(requireNonNull(heuristic, "heuristic is null"));
+            case BIDIRECTIONAL:
+                return searchByBidirectional();
+            case DIJKSTRA:
+            default:
+                return searchByAStar(null);
+        }
+    }
+
+    /**
+     * dijkstra is A* without heuristic.
+     * A node is expanded again if a shorter route to it is found later, so an admissible but inconsistent heuristic
+     * still returns the shortest route
+     */
+    private Optional<Route<E, R>> searchByAStar(ToDoubleFunction<Node<E, R>> heuristic)
+    {
+        final String endId = endNode.getId();
+        final Map<String, Label<E, R>> labels = new HashMap<>();
+        final PriorityQueue<QueueEntry<E, R>> queue = new PriorityQueue<>(PRIORITY_ORDER);
+        Label<E, R> begin = new Label<>(beginNode);
+        begin.distance = 0;
+        labels.put(beginNode.getId(), begin);
+        queue.add(new QueueEntry<>(begin, 0, heuristic == null ? 0 : heuristic.applyAsDouble(beginNode)));
+
+        QueueEntry<E, R> entry;
+        while ((entry = queue.poll()) != null) {
+            Label<E, R> label = entry.label;
+            if (entry.distance > label.distance) {
+                continue;  //stale entry
+            }
+            if (endId.equals(label.node.getId())) {
+                return Optional.of(createRoute(label, null));
+            }
+            for (Edge<E, R> edge : label.node.nextNodes()) {
+                Node<E, R> out = edge.getOutNode();
+                double distance = label.distance + weightOf(edge);
+                Label<E, R> next = labels.computeIfAbsent(out.getId(), k -> new Label<>(out));
+                if (distance < next.distance) {
+                    next.distance = distance;
+                    next.edge = edge;
+                    next.prev = label;
+                    double priority = heuristic == null ? distance : distance + heuristic.applyAsDouble(out);
+                    queue.add(new QueueEntry<>(next, distance, priority));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 双向 dijkstra
+     * Expands the side whose queue top is smaller and stops once the two tops together are not shorter
+     * than the best route found, usually settles far fewer nodes than one-way dijkstra
+     */
+    private Optional<Route<E, R>> searchByBidirectional()
+    {
+        final Function<Node<E, R>, Collection<Edge<E, R>>> inEdges = inEdges(graph);
+        final Map<String, Label<E, R>> forward = new HashMap<>();
+        final Map<String, Label<E, R>> backward = new HashMap<>();
+        final PriorityQueue<QueueEntry<E, R>> forwardQueue = new PriorityQueue<>(PRIORITY_ORDER);
+        final PriorityQueue<QueueEntry<E, R>> backwardQueue = new PriorityQueue<>(PRIORITY_ORDER);
+        Label<E, R> begin = new Label<>(beginNode);
+        begin.distance = 0;
+        forward.put(beginNode.getId(), begin);
+        forwardQueue.add(new QueueEntry<>(begin, 0, 0));
+        Label<E, R> end = new Label<>(endNode);
+        end.distance = 0;
+        backward.put(endNode.getId(), end);
+        backwardQueue.add(new QueueEntry<>(end, 0, 0));
+
+        double best = Double.POSITIVE_INFINITY;
+        String meet = null;
+        while (true) {
+            QueueEntry<E, R> forwardTop = peek(forwardQueue);
+            QueueEntry<E, R> backwardTop = peek(backwardQueue);
+            if (forwardTop == null || backwardTop == null || forwardTop.distance + backwardTop.distance >= best) {
+                break;
+            }
+            boolean isForward = forwardTop.distance <= backwardTop.distance;
+            Label<E, R> label = (isForward ? forwardQueue : backwardQueue).poll().label;
+            Map<String, Label<E, R>> labels = isForward ? forward : backward;
+            Map<String, Label<E, R>> other = isForward ? backward : forward;
+            Collection<Edge<E, R>> edges = isForward ? label.node.nextNodes() : inEdges.apply(label.node);
+            for (Edge<E, R> edge : edges) {
+                Node<E, R> next = isForward ? edge.getOutNode() : edge.getInNode();
+                double distance = label.distance + weightOf(edge);
+                Label<E, R> nextLabel = labels.computeIfAbsent(next.getId(), k -> new Label<>(next));
+                if (distance >= nextLabel.distance) {
+                    continue;
+                }
+                nextLabel.distance = distance;
+                nextLabel.edge = edge;
+                nextLabel.prev = label;
+                (isForward ? forwardQueue : backwardQueue).add(new QueueEntry<>(nextLabel, distance, distance));
+                Label<E, R> otherLabel = other.get(next.getId());
+                if (otherLabel != null && distance + otherLabel.distance < best) {
+                    best = distance + otherLabel.distance;
+                    meet = next.getId();
+                }
+            }
+        }
+        if (meet == null) {
+            return Optional.empty();
+        }
+        return Optional.of(createRoute(forward.get(meet), backward.get(meet)));
+    }
+
+    private double weightOf(Edge<E, R> edge)
+    {
+        double value = weight.applyAsDouble(edge.getData());
+        checkArgument(value >= 0, "weight of %s must >= 0, but is %s", edge, value);
+        return value;
+    }
+
+    private static <E, R> QueueEntry<E, R> peek(PriorityQueue<QueueEntry<E, R>> queue)
+    {
+        QueueEntry<E, R> entry = queue.peek();
+        while (entry != null && entry.distance > entry.label.distance) {
+            queue.poll();
+            entry = queue.peek();
+        }
+        return entry;
+    }
+
+    /**
+     * @param forward label of the last node reached from beginNode
+     * @param backward label of the same node reached backward from endNode, or null
+     */
+    private Route<E, R> createRoute(Label<E, R> forward, Label<E, R> backward)
+    {
+        Deque<Edge<E, R>> edges = new ArrayDeque<>();
+        for (Label<E, R> label = forward; label.prev != null; label = label.prev) {
+            edges.addFirst(label.edge);
+        }
+        for (Label<E, R> label = backward; label != null && label.prev != null; label = label.prev) {
+            edges.addLast(label.edge);
+        }
+        return Route.builder(beginNode).addAll(edges).create();
+    }
+
+    /**
+     * {@link CsrGraph} keeps a reverse index, other graphs are scanned once per search
+     */
+    private static <E, R> Function<Node<E, R>, Collection<Edge<E, R>>> inEdges(Graph<E, R> graph)
+    {
+        if (graph instanceof CsrGraph) {
+            CsrGraph<E, R> csrGraph = (CsrGraph<E, R>) graph;
+            return node -> csrGraph.inEdges(csrGraph.indexOf(node));
+        }
+        Map<String, List<Edge<E, R>>> inEdges = new HashMap<>();
+        for (Node<E, R> node : graph.findNode(node -> true)) {
+            for (Edge<E, R> edge : node.nextNodes()) {
+                inEdges.computeIfAbsent(edge.getOutNode().getId(), k -> new ArrayList<>()).add(edge);
+            }
+        }
+        return node -> inEdges.getOrDefault(node.getId(), Collections.emptyList());
+    }
+
+    private static class Label<E, R>
+    {
+        private final Node<E, R> node;
+        private double distance = Double.POSITIVE_INFINITY;
+        private Edge<E, R> edge;
+        private Label<E, R> prev;
+
+        private Label(Node<E, R> node)
+        {
+            this.node = node;
+        }
+    }
+
+    private static class QueueEntry<E, R>
+    {
+        private final Label<E, R> label;
+        private final double distance;
+        private final double priority;
+
+        private QueueEntry(Label<E, R> label, double distance, double priority)
+        {
+            this.label = label;
+            this.distance = distance;
+            this.priority = priority;
+        }
+    }
+}
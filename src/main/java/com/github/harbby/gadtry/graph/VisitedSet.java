@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import com.github.harbby.gadtry.graph.impl.CsrGraph;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of visited nodes used by searches that visit each node once.
+ * A {@link CsrGraph} uses a bitmap over its int node ids, other graphs use a set of node ids.
+ * Not thread safe, {@link ParallelSearch} only reads it while a level is expanded and marks nodes between levels.
+ */
+interface VisitedSet<E, R>
+{
+    boolean contains(Node<E, R> node);
+
+    /**
+     * @return true if the node was not visited before and is marked visited now
+     */
+    boolean visit(Node<E, R> node);
+
+    static <E, R> VisitedSet<E, R> create(Graph<E, R> graph)
+    {
+        if (graph instanceof CsrGraph) {
+            return new BitmapVisitedSet<>((CsrGraph<E, R>) graph);
+        }
+        return new IdVisitedSet<>();
+    }
+
+    class BitmapVisitedSet<E, R>
+            implements VisitedSet<E, R>
+    {
+        private final CsrGraph<E, R> graph;
+        private final BitSet bitSet;
+
+        private BitmapVisitedSet(CsrGraph<E, R> graph)
+        {
+            this.graph = graph;
+            //one more bit for the virtual root
+            this.bitSet = new BitSet(graph.nodeCount() + 1);
+        }
+
+        @Override
+        public boolean contains(Node<E, R> node)
+        {
+            return bitSet.get(graph.indexOf(node));
+        }
+
+        @Override
+        public boolean visit(Node<E, R> node)
+        {
+            int index = graph.indexOf(node);
+            if (bitSet.get(index)) {
+                return false;
+            }
+            bitSet.set(index);
+            return true;
+        }
+    }
+
+    class IdVisitedSet<E, R>
+            implements VisitedSet<E, R>
+    {
+        private final Set<String> ids = new HashSet<>();
+
+        @Override
+        public boolean contains(Node<E, R> node)
+        {
+            return ids.contains(node.getId());
+        }
+
+        @Override
+        public boolean visit(Node<E, R> node)
+        {
+            return ids.add(node.getId());
+        }
+    }
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph.impl;
+
+import com.github.harbby.gadtry.collection.primitive.IntList;
+import com.github.harbby.gadtry.graph.Edge;
+import com.github.harbby.gadtry.graph.Graph;
+import com.github.harbby.gadtry.graph.Node;
+import com.github.harbby.gadtry.graph.Route;
+import com.github.harbby.gadtry.graph.SearchBuilder;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkState;
+import static com.github.harbby.gadtry.base.Strings.isNotBlank;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * 不可变的压缩稀疏行(CSR) graph
+ * <p>
+ * Nodes are numbered 0..n-1, the out-edges of node i are targets[offsets[i]..offsets[i+1]) sorted by target,
+ * a String to int dictionary maps node ids. There is no object per node or edge,
+ * {@link Node} and {@link Edge} are lightweight views created on access.
+ * The virtual root "/" is stored as node n and links all nodes without in-edges, same as {@link DefaultGraph}.
+ */
+public class CsrGraph<E, R>
+        implements Graph<E, R>
+{
+    private static final String ROOT_ID = "/";
+
+    private final String name;
+    private final Map<String, Integer> dictionary;
+    private final String[] ids;
+    private final Object[] nodeData;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Object[] edgeData;
+    /**
+     * reverse index built on first use: in-edges of node i are reverseEdges[reverseOffsets[i]..reverseOffsets[i+1]),
+     * reverseSources holds the source node of each of them
+     */
+    private transient volatile int[][] reverseIndex;
+
+    private CsrGraph(String name, Map<String, Integer> dictionary, String[] ids, Object[] nodeData, int[] offsets, int[] targets, Object[] edgeData)
+    {
+        this.name = name;
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.nodeData = nodeData;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edgeData = edgeData;
+    }
+
+    public static <E, R> Builder<E, R> builder()
+    {
+        return new Builder<>();
+    }
+
+    public int nodeCount()
+    {
+        return ids.length - 1;
+    }
+
+    /**
+     * @return number of edges, not including the edges of the virtual root
+     */
+    public int edgeCount()
+    {
+        return offsets[nodeCount()];
+    }
+
+    /**
+     * @return node index of id, or -1 if not exists
+     */
+    public int indexOf(String id)
+    {
+        Integer index = dictionary.get(id);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return node index of a node of this graph, the virtual root is {@link #nodeCount()}
+     */
+    public int indexOf(Node<E, R> node)
+    {
+        if (node instanceof CsrNode && ((CsrNode<?, ?>) node).graph == this) {
+            return ((CsrNode<?, ?>) node).index;
+        }
+        int index = indexOf(node.getId());
+        checkState(index != -1, "node " + node + " not in graph");
+        return index;
+    }
+
+    public String getId(int index)
+    {
+        return ids[index];
+    }
+
+    public Node<E, R> getNode(int index)
+    {
+        if (index < 0 || index >= ids.length) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        return new CsrNode<>(this, index);
+    }
+
+    public int outDegree(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * @return the {@code i}th next node index of node {@code index}
+     */
+    public int nextNode(int index, int i)
+    {
+        return targets[offsets[index] + i];
+    }
+
+    /**
+     * @return edges into node {@code index}, not including the edges of the virtual root.
+     * The reverse index is built on the first call in O(n + m)
+     */
+    public List<Edge<E, R>> inEdges(int index)
+    {
+        if (index < 0 || index > nodeCount()) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        int[][] reverse = reverseIndex();
+        int[] reverseOffsets = reverse[0];
+        int[] reverseSources = reverse[1];
+        int[] reverseEdges = reverse[2];
+        int begin = index == nodeCount() ? 0 : reverseOffsets[index];
+        int size = index == nodeCount() ? 0 : reverseOffsets[index + 1] - begin;
+        return new AbstractList<Edge<E, R>>()
+        {
+            @Override
+            public Edge<E, R> get(int i)
+            {
+                if (i < 0 || i >= size) {
+                    throw new IndexOutOfBoundsException(String.valueOf(i));
+                }
+                return new CsrEdge<>(CsrGraph.this, reverseSources[begin + i], reverseEdges[begin + i]);
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    private int[][] reverseIndex()
+    {
+        int[][] reverse = this.reverseIndex;
+        if (reverse != null) {
+            return reverse;
+        }
+        int n = nodeCount();
+        int m = edgeCount();
+        int[] reverseOffsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            reverseOffsets[targets[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] cursor = Arrays.copyOf(reverseOffsets, n);
+        int[] reverseSources = new int[m];
+        int[] reverseEdges = new int[m];
+        for (int node = 0; node < n; node++) {
+            for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+                int position = cursor[targets[edge]]++;
+                reverseSources[position] = node;
+                reverseEdges[position] = edge;
+            }
+        }
+        reverse = new int[][] {reverseOffsets, reverseSources, reverseEdges};
+        this.reverseIndex = reverse;
+        return reverse;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public List<Route<E, R>> searchRuleRoute(String in, Function<Route<E, R>, Boolean> rule)
+    {
+        Node<E, R> begin = getNode(in);
+        return new ArrayList<>(new SearchBuilder<>(this, begin)
+                .optimizer(SearchBuilder.Optimizer.DEPTH_FIRST)
+                .nextRule(rule)
+                .search()
+                .getRoutes());
+    }
+
+    @Override
+    public List<Route<E, R>> searchRuleRoute(Function<Route<E, R>, Boolean> rule)
+    {
+        return new ArrayList<>(search()
+                .optimizer(SearchBuilder.Optimizer.DEPTH_FIRST)
+                .nextRule(rule)
+                .search()
+                .getRoutes());
+    }
+
+    @Override
+    public Route<E, R> getRoute(String... nodeIds)
+    {
+        Node<E, R> begin = getNode(nodeIds[0]);
+        Route.Builder<E, R> route = Route.builder(begin);
+        for (int i = 1; i < nodeIds.length; i++) {
+            Edge<E, R> edge = begin.getNextNode(nodeIds[i]).orElseThrow(() -> new IllegalArgumentException("NO SUCH ROUTE"));
+            route.add(edge);
+            begin = edge.getOutNode();
+        }
+        return route.create();
+    }
+
+    @Override
+    public Node<E, R> getNode(String id)
+    {
+        Integer index = requireNonNull(dictionary.get(id), "NO SUCH Node " + id);
+        return new CsrNode<>(this, index);
+    }
+
+    @Override
+    public List<String> printShow()
+    {
+        List<Node<?, ?>> nodes = getNode(nodeCount()).nextNodes().stream().map(Edge::getOutNode).collect(Collectors.toList());
+        return GraphUtil.printShow(nodes);
+    }
+
+    @Override
+    public Iterable<String> printShow(String id)
+    {
+        List<String> builder = GraphUtil.printShow(getNode(id));
+        builder.forEach(System.out::println);
+        return builder;
+    }
+
+    @Override
+    public List<Node<E, R>> findNode(Function<Node<E, R>, Boolean> rule)
+    {
+        List<Node<E, R>> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount(); i++) {
+            Node<E, R> node = new CsrNode<>(this, i);
+            if (rule.apply(node)) {
+                nodes.add(node);
+            }
+        }
+        return nodes;
+    }
+
+    @Override
+    public SearchBuilder<E, R> search()
+    {
+        return new SearchBuilder<>(this, getNode(nodeCount()));
+    }
+
+    private static class CsrNode<E, R>
+            implements Node<E, R>
+    {
+        private final CsrGraph<E, R> graph;
+        private final int index;
+
+        private CsrNode(CsrGraph<E, R> graph, int index)
+        {
+            this.graph = graph;
+            this.index = index;
+        }
+
+        @Override
+        public String getId()
+        {
+            return graph.ids[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E getData()
+        {
+            return (E) graph.nodeData[index];
+        }
+
+        @Override
+        public Collection<Edge<E, R>> nextNodes()
+        {
+            int begin = graph.offsets[index];
+            int size = graph.offsets[index + 1] - begin;
+            return new AbstractList<Edge<E, R>>()
+            {
+                @Override
+                public Edge<E, R> get(int i)
+                {
+                    if (i < 0 || i >= size) {
+                        throw new IndexOutOfBoundsException(String.valueOf(i));
+                    }
+                    return new CsrEdge<>(graph, index, begin + i);
+                }
+
+                @Override
+                public int size()
+                {
+                    return size;
+                }
+            };
+        }
+
+        @Override
+        public Optional<Edge<E, R>> getNextNode(String id)
+        {
+            int target = graph.indexOf(id);
+            if (target == -1) {
+                return Optional.empty();
+            }
+            int begin = graph.offsets[index];
+            int end = graph.offsets[index + 1];
+            int i = Arrays.binarySearch(graph.targets, begin, end, target);
+            return i < 0 ? Optional.empty() : Optional.of(new CsrEdge<>(graph, index, i));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return index;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CsrNode)) {
+                return false;
+            }
+            CsrNode<?, ?> other = (CsrNode<?, ?>) obj;
+            return graph == other.graph && index == other.index;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "node:" + getId();
+        }
+    }
+
+    private static class CsrEdge<E, R>
+            implements Edge<E, R>
+    {
+        private final CsrGraph<E, R> graph;
+        private final int inNode;
+        private final int edge;
+
+        private CsrEdge(CsrGraph<E, R> graph, int inNode, int edge)
+        {
+            this.graph = graph;
+            this.inNode = inNode;
+            this.edge = edge;
+        }
+
+        @Override
+        public Node<E, R> getInNode()
+        {
+            return new CsrNode<>(graph, inNode);
+        }
+
+        @Override
+        public Node<E, R> getOutNode()
+        {
+            return new CsrNode<>(graph, graph.targets[edge]);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public R getData()
+        {
+            return graph.edgeData == null ? null : (R) graph.edgeData[edge];
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return edge;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CsrEdge)) {
+                return false;
+            }
+            CsrEdge<?, ?> other = (CsrEdge<?, ?>) obj;
+            return graph == other.graph && edge == other.edge;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "edge:" + graph.ids[inNode] + "->" + graph.ids[graph.targets[edge]];
+        }
+    }
+
+    /**
+     * Collects nodes and edges into primitive arrays, no per node/edge objects are kept
+     */
+    public static class Builder<E, R>
+    {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<E> nodeData = new ArrayList<>();
+        private final IntList edgeSources = new IntList();
+        private final IntList edgeTargets = new IntList();
+        private List<R> edgeData;
+        private String name;
+
+        public Builder<E, R> name(String name)
+        {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<E, R> addNode(String nodeId)
+        {
+            return addNode(nodeId, null);
+        }
+
+        public Builder<E, R> addNode(String nodeId, E data)
+        {
+            checkState(isNotBlank(nodeId), "nodeId is null or empty");
+            if (!dictionary.containsKey(nodeId)) {
+                dictionary.put(nodeId, ids.size());
+                ids.add(nodeId);
+                nodeData.add(data);
+            }
+            return this;
+        }
+
+        public Builder<E, R> addEdge(String node1, String node2)
+        {
+            return addEdge(node1, node2, null);
+        }
+
+        public Builder<E, R> addEdge(String node1, String node2, R data)
+        {
+            Integer in = requireNonNull(dictionary.get(node1), "Unable to create edge because " + node1 + " does not exist");
+            Integer out = requireNonNull(dictionary.get(node2), "Unable to create edge because " + node2 + " does not exist");
+            if (data != null && edgeData == null) {
+                edgeData = new ArrayList<>(edgeSources.size() + 16);
+                for (int i = 0; i < edgeSources.size(); i++) {
+                    edgeData.add(null);
+                }
+            }
+            edgeSources.add(in);
+            edgeTargets.add(out);
+            if (edgeData != null) {
+                edgeData.add(data);
+            }
+            return this;
+        }
+
+        public CsrGraph<E, R> create()
+        {
+            int n = ids.size();
+            int m = edgeSources.size();
+            //counting sort edges by source
+            int[] counts = new int[n + 2];
+            for (int i = 0; i < m; i++) {
+                counts[edgeSources.get(i) + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                counts[i + 1] += counts[i];
+            }
+            long[] sorted = new long[m];
+            int[] cursor = Arrays.copyOf(counts, n);
+            for (int i = 0; i < m; i++) {
+                //target in high bits, sort by target then by insertion order
+                sorted[cursor[edgeSources.get(i)]++] = ((long) edgeTargets.get(i) << 32) | i;
+            }
+
+            //sort each row, duplicate edges keep the last added one
+            boolean[] hasInEdge = new boolean[n];
+            IntList offsets = new IntList(n + 2);
+            IntList targets = new IntList(m);
+            List<Object> data = edgeData == null ? null : new ArrayList<>(m);
+            for (int node = 0; node < n; node++) {
+                offsets.add(targets.size());
+                Arrays.sort(sorted, counts[node], counts[node + 1]);
+                for (int i = counts[node]; i < counts[node + 1]; i++) {
+                    int target = (int) (sorted[i] >>> 32);
+                    if (i + 1 < counts[node + 1] && (int) (sorted[i + 1] >>> 32) == target) {
+                        continue;
+                    }
+                    hasInEdge[target] = true;
+                    targets.add(target);
+                    if (data != null) {
+                        data.add(edgeData.get((int) sorted[i]));
+                    }
+                }
+            }
+            //virtual root, links all nodes without in-edges
+            offsets.add(targets.size());
+            for (int node = 0; node < n; node++) {
+                if (!hasInEdge[node]) {
+                    targets.add(node);
+                    if (data != null) {
+                        data.add(null);
+                    }
+                }
+            }
+            offsets.add(targets.size());
+
+            String[] idArray = ids.toArray(new String[n + 1]);
+            idArray[n] = ROOT_ID;
+            Object[] nodeArray = nodeData.toArray(new Object[n + 1]);
+            return new CsrGraph<>(name, new HashMap<>(dictionary), idArray, nodeArray,
+                    offsets.toArray(), targets.toArray(), data == null ? null : data.toArray());
+        }
+    }
+}
@@ -16,59 +16,113 @@
 package com.github.harbby.gadtry.graph.impl;
 
 import com.github.harbby.gadtry.base.Iterators;
-import com.github.harbby.gadtry.base.Lazys;
+import com.github.harbby.gadtry.collection.ImmutableSet;
 import com.github.harbby.gadtry.graph.Edge;
 import com.github.harbby.gadtry.graph.Node;
 import com.github.harbby.gadtry.graph.Route;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.function.Supplier;
 
 import static com.github.harbby.gadtry.base.MoreObjects.toStringHelper;
 
+/**
+ * Persistent route.
+ * A route created by {@link #append(Edge)} only keeps a pointer to its parent route and the new edge,
+ * so all routes of a search share their common prefix and every step is O(1).
+ * The edge Deque and the id list are only materialized when requested.
+ */
 public class RouteImpl<E, R>
         implements Route<E, R>
 {
     private final Node<E, R> begin;
-    private final Deque<Edge<E, R>> edges;
-    private final Supplier<Boolean> findDeadLoop;   //如果出现两次则说明发现循环
-    private final Supplier<List<String>> nodeIds;
+    /**
+     * null if the edges were given by {@link Route.Builder}
+     */
+    private final RouteImpl<E, R> parent;
+    private final Edge<E, R> lastEdge;
+    private final int size;
+
+    private volatile Deque<Edge<E, R>> edges;
+    private volatile List<String> nodeIds;
+    private volatile ImmutableSet<String> nodeSet;
+    private byte deadLoop;   //0: unknown, 1: true, 2: false
 
     public RouteImpl(Node<E, R> begin, Deque<Edge<E, R>> edges)
     {
         this.begin = begin;
-        this.edges = edges;
-        this.findDeadLoop = Lazys.goLazy(() -> {
-            Edge<E, R> lastEdge = getLastEdge();
-            return begin.getId().equals(lastEdge.getOutNode().getId()) ||
-                    edges.stream().anyMatch(erEdge -> erEdge != lastEdge && erEdge.getOutNode().getId()
-                            .equals(getLastNode().getId())); //如果出现两次则无须继续递归查找
-        });
-        this.nodeIds = Lazys.goLazy(() -> {
-            List<String> list = new ArrayList<>(this.size() + 1);
-            list.add(begin.getId());
-            this.edges.forEach(erEdge -> {
-                list.add(erEdge.getOutNode().getId());
-            });
-            return list;
-        });
+        this.parent = null;
+        //the caller(e.g. a reused Route.Builder) may still change the deque, size and lastEdge are cached
+        this.edges = new LinkedList<>(edges);
+        this.lastEdge = edges.peekLast();
+        this.size = edges.size();
+    }
+
+    private RouteImpl(RouteImpl<E, R> parent, Edge<E, R> edge)
+    {
+        this.begin = parent.begin;
+        this.parent = parent;
+        this.lastEdge = edge;
+        this.size = parent.size + 1;
+    }
+
+    @Override
+    public Route<E, R> append(Edge<E, R> edge)
+    {
+        return new RouteImpl<>(this, edge);
     }
 
     @Override
     public Route.Builder<E, R> copy()
     {
-        return Route.builder(begin).addAll(this.edges);
+        return Route.builder(begin).addAll(this.edges());
     }
 
     @Override
     public List<String> getIds()
     {
-        return nodeIds.get();
+        List<String> ids = this.nodeIds;
+        if (ids == null) {
+            ids = new ArrayList<>(this.size() + 1);
+            ids.add(begin.getId());
+            for (Edge<E, R> edge : edges()) {
+                ids.add(edge.getOutNode().getId());
+            }
+            ids = Collections.unmodifiableList(ids);
+            this.nodeIds = ids;
+        }
+        return ids;
+    }
+
+    /**
+     * O(1) after the parent route was checked: the node set is built incrementally from the parent's set
+     */
+    @Override
+    public boolean containsNode(String id)
+    {
+        return nodeSet().contains(id);
+    }
+
+    private ImmutableSet<String> nodeSet()
+    {
+        ImmutableSet<String> set = this.nodeSet;
+        if (set == null) {
+            ImmutableSet<String> parentSet = parent == null ? null : parent.nodeSet;
+            if (parentSet != null) {
+                set = parentSet.added(lastEdge.getOutNode().getId());
+            }
+            else {
+                set = ImmutableSet.copy(getIds());
+            }
+            this.nodeSet = set;
+        }
+        return set;
     }
 
     /**
@@ -79,19 +133,69 @@ public class RouteImpl<E, R>
     @Override
     public boolean findDeadLoop()
     {
-        return findDeadLoop.get();
+        if (deadLoop == 0) {
+            deadLoop = computeDeadLoop() ? (byte) 1 : (byte) 2;
+        }
+        return deadLoop == 1;
+    }
+
+    /**
+     * 如果出现两次则说明发现循环, walks the parent pointers without materializing the route
+     */
+    private boolean computeDeadLoop()
+    {
+        Edge<E, R> lastEdge = getLastEdge();
+        String lastId = lastEdge.getOutNode().getId();
+        if (begin.getId().equals(lastId)) {
+            return true;
+        }
+        ImmutableSet<String> parentSet = parent == null ? null : parent.nodeSet;
+        if (parentSet != null) {
+            return parentSet.contains(lastId);
+        }
+        RouteImpl<E, R> route = this;
+        while (route.parent != null) {
+            if (route.lastEdge != lastEdge && route.lastEdge.getOutNode().getId().equals(lastId)) {
+                return true;
+            }
+            route = route.parent;
+        }
+        return route.edges.stream().anyMatch(erEdge -> erEdge != lastEdge && erEdge.getOutNode().getId().equals(lastId));
     }
 
+    /**
+     * @return a copy, changes do not affect this route
+     */
     @Override
     public Deque<Edge<E, R>> getEdges()
     {
-        return edges;
+        return new LinkedList<>(edges());
+    }
+
+    private Deque<Edge<E, R>> edges()
+    {
+        Deque<Edge<E, R>> deque = this.edges;
+        if (deque == null) {
+            LinkedList<Edge<E, R>> list = new LinkedList<>();
+            RouteImpl<E, R> route = this;
+            while (route.edges == null) {
+                list.addFirst(route.lastEdge);
+                route = route.parent;
+            }
+            Iterator<Edge<E, R>> iterator = route.edges.descendingIterator();
+            while (iterator.hasNext()) {
+                list.addFirst(iterator.next());
+            }
+            deque = list;
+            this.edges = deque;
+        }
+        return deque;
     }
 
     @Override
     public int size()
     {
-        return edges.size();
+        return size;
     }
 
     /**
@@ -100,32 +204,37 @@ public class RouteImpl<E, R>
     @Override
     public Node<E, R> getLastNode(int index)
     {
-        Iterator<Edge<E, R>> iterator = this.edges.descendingIterator();
-
-        if (this.size() == index) {
+        if (index < 0 || index > size) {
+            throw new NoSuchElementException(String.valueOf(index));
+        }
+        if (index == size) {
             return begin;
         }
-        else if (this.size() > index) {
-            return Iterators.getFirst(iterator, index).getOutNode();
+        RouteImpl<E, R> route = this;
+        int i = index;
+        while (i > 0 && route.parent != null) {
+            route = route.parent;
+            i--;
         }
-        else {
-            throw new NoSuchElementException(String.valueOf(index));
+        if (i == 0) {
+            return route.lastEdge.getOutNode();
         }
+        return Iterators.getFirst(route.edges.descendingIterator(), i).getOutNode();
     }
 
     @Override
     public Edge<E, R> getLastEdge()
     {
-        if (edges.isEmpty()) {
+        if (size == 0) {
             throw new IllegalStateException("this Route only begin node");
         }
-        return edges.getLast();
+        return lastEdge;
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(begin, edges);
+        return Objects.hash(begin, edges());
     }
 
     @Override
@@ -140,7 +249,7 @@ public class RouteImpl<E, R>
         }
 
         RouteImpl other = (RouteImpl) obj;
-        return Objects.equals(this.begin, other.begin) && Objects.equals(this.edges, other.edges);
+        return this.size == other.size && Objects.equals(this.begin, other.begin) && Objects.equals(this.edges(), other.edges());
     }
 
     @Override
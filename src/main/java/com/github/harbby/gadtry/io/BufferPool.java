@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import com.github.harbby.gadtry.base.Platform;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+
+/**
+ * Thread local, size-classed pool of heap byte arrays and direct ByteBuffers.
+ * Sizes are rounded up to a power of two between 4KB and 1MB, larger requests are not pooled.
+ * Each thread keeps at most {@value #MAX_CACHED_PER_CLASS} buffers per size class, so a buffer
+ * borrowed and released on the same thread is reused without allocation.
+ * <p>
+ * Cached direct buffers are kept until the thread dies, at most {@value #MAX_DIRECT_BYTES_PER_THREAD} bytes
+ * per thread, a released direct buffer over that limit is not cached. Long-lived threads that are done
+ * with io, e.g. pooled worker threads, should call {@link #clear()} to free their direct memory at once.
+ * <p>
+ * A released buffer must not be used again by the caller, and a released direct buffer must be one
+ * returned by {@link #borrowDirect(int)}, not a slice or duplicate of it.
+ */
+public final class BufferPool
+{
+    private BufferPool() {}
+
+    private static final int MIN_SHIFT = 12;
+    private static final int MAX_SHIFT = 20;
+    private static final int MAX_CACHED_PER_CLASS = 2;
+    private static final int MAX_DIRECT_BYTES_PER_THREAD = 2 * 1024 * 1024;
+
+    private static final ThreadLocal<Cache> CACHE = ThreadLocal.withInitial(Cache::new);
+
+    private static final LongAdder heapHits = new LongAdder();
+    private static final LongAdder heapMisses = new LongAdder();
+    private static final LongAdder directHits = new LongAdder();
+    private static final LongAdder directMisses = new LongAdder();
+
+    private static class Cache
+    {
+        private final ArrayDeque<byte[]>[] heap = newQueues();
+        private final ArrayDeque<ByteBuffer>[] direct = newQueues();
+        private long directBytes;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <T> ArrayDeque<T>[] newQueues()
+        {
+            ArrayDeque<T>[] queues = new ArrayDeque[MAX_SHIFT - MIN_SHIFT + 1];
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new ArrayDeque<>(MAX_CACHED_PER_CLASS);
+            }
+            return queues;
+        }
+    }
+
+    /**
+     * @return size class index, or -1 if the size is larger than the max pooled size
+     */
+    private static int sizeClass(int size)
+    {
+        if (size <= 1 << MIN_SHIFT) {
+            return 0;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * @return the size class of a released buffer, or -1 if it is not a pooled size
+     */
+    private static int exactSizeClass(int capacity)
+    {
+        if (Integer.bitCount(capacity) != 1) {
+            return -1;
+        }
+        int shift = Integer.numberOfTrailingZeros(capacity);
+        return shift < MIN_SHIFT || shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * @param minSize min length
+     * @return byte array with length at least minSize, content is undefined
+     */
+    public static byte[] borrowBytes(int minSize)
+    {
+        checkArgument(minSize >= 0, "minSize must >= 0");
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass == -1) {
+            heapMisses.increment();
+            return new byte[minSize];
+        }
+        byte[] bytes = CACHE.get().heap[sizeClass].poll();
+        if (bytes != null) {
+            heapHits.increment();
+            return bytes;
+        }
+        heapMisses.increment();
+        return new byte[1 << (sizeClass + MIN_SHIFT)];
+    }
+
+    public static void release(byte[] bytes)
+    {
+        int sizeClass = exactSizeClass(bytes.length);
+        if (sizeClass != -1) {
+            ArrayDeque<byte[]> queue = CACHE.get().heap[sizeClass];
+            if (queue.size() < MAX_CACHED_PER_CLASS) {
+                queue.push(bytes);
+            }
+        }
+    }
+
+    /**
+     * @param minSize min capacity
+     * @return cleared direct buffer with capacity at least minSize and limit equal to capacity
+     */
+    public static ByteBuffer borrowDirect(int minSize)
+    {
+        checkArgument(minSize >= 0, "minSize must >= 0");
+        int sizeClass = sizeClass(minSize);
+        if (sizeClass == -1) {
+            directMisses.increment();
+            return ByteBuffer.allocateDirect(minSize);
+        }
+        Cache cache = CACHE.get();
+        ByteBuffer buffer = cache.direct[sizeClass].poll();
+        if (buffer != null) {
+            cache.directBytes -= buffer.capacity();
+            directHits.increment();
+            buffer.clear();
+            return buffer;
+        }
+        directMisses.increment();
+        return ByteBuffer.allocateDirect(1 << (sizeClass + MIN_SHIFT));
+    }
+
+    public static void release(ByteBuffer buffer)
+    {
+        if (!buffer.isDirect()) {
+            return;
+        }
+        int sizeClass = exactSizeClass(buffer.capacity());
+        if (sizeClass != -1) {
+            Cache cache = CACHE.get();
+            ArrayDeque<ByteBuffer> queue = cache.direct[sizeClass];
+            if (queue.size() < MAX_CACHED_PER_CLASS && cache.directBytes + buffer.capacity() <= MAX_DIRECT_BYTES_PER_THREAD) {
+                queue.push(buffer);
+                cache.directBytes += buffer.capacity();
+            }
+        }
+    }
+
+    /**
+     * Drop all buffers cached by the current thread, cached direct buffers are freed immediately
+     * instead of waiting for gc.
+     */
+    public static void clear()
+    {
+        Cache cache = CACHE.get();
+        CACHE.remove();
+        for (ArrayDeque<ByteBuffer> queue : cache.direct) {
+            ByteBuffer buffer;
+            while ((buffer = queue.poll()) != null) {
+                Platform.freeDirectBuffer(buffer);
+            }
+        }
+        for (ArrayDeque<byte[]> queue : cache.heap) {
+            queue.clear();
+        }
+        cache.directBytes = 0;
+    }
+
+    public static Metrics metrics()
+    {
+        return new Metrics(heapHits.sum(), heapMisses.sum(), directHits.sum(), directMisses.sum());
+    }
+
+    public static class Metrics
+    {
+        private final long heapHits;
+        private final long heapMisses;
+        private final long directHits;
+        private final long directMisses;
+
+        private Metrics(long heapHits, long heapMisses, long directHits, long directMisses)
+        {
+            this.heapHits = heapHits;
+            this.heapMisses = heapMisses;
+            this.directHits = directHits;
+            this.directMisses = directMisses;
+        }
+
+        public long getHeapHits()
+        {
+            return heapHits;
+        }
+
+        public long getHeapMisses()
+        {
+            return heapMisses;
+        }
+
+        public long getDirectHits()
+        {
+            return directHits;
+        }
+
+        public long getDirectMisses()
+        {
+            return directMisses;
+        }
+
+        public double getHitRate()
+        {
+            long total = heapHits + heapMisses + directHits + directMisses;
+            return total == 0 ? 0 : (heapHits + directHits) / (double) total;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("heapHits=%s, heapMisses=%s, directHits=%s, directMisses=%s, hitRate=%.3f",
+                    heapHits, heapMisses, directHits, directMisses, getHitRate());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import com.github.harbby.gadtry.function.exception.Function;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Thread-safe reader of many byte ranges of one file.
+ * Every read goes through positional {@link FileChannel#read(ByteBuffer, long)}, the channel position is
+ * never shared or mutated, so any number of threads can read ranges concurrently without locking.
+ * <p>
+ * Interrupting a thread blocked in a read closes the FileChannel for all threads(see
+ * {@link java.nio.channels.InterruptibleChannel}). A reader opened by {@link #open(File)} reopens the file,
+ * only the interrupted read fails with {@link ClosedByInterruptException} and the other reads are retried.
+ * A reader created by {@link #of(FileChannel)} cannot reopen its channel and is unusable after such an
+ * interrupt, and so are the views returned by {@link #range(long, long)} before it.
+ * <pre>
+ * try (FileRangeReader reader = FileRangeReader.open(file)) {
+ *     SeekableByteChannel part = reader.range(1024, 4096);
+ *     List&lt;ByteBuffer&gt; blocks = reader.read(Arrays.asList(Range.of(0, 100), Range.of(120, 80)), 64);
+ * }
+ * </pre>
+ */
+public class FileRangeReader
+        implements Closeable
+{
+    /**
+     * coalesced reads never grow larger than this
+     */
+    private static final long MAX_COALESCED_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * null if the channel can not be reopened
+     */
+    private final File file;
+    private volatile FileChannel channel;
+    private volatile boolean closed;
+
+    private FileRangeReader(File file, FileChannel channel)
+    {
+        this.file = file;
+        this.channel = requireNonNull(channel, "channel is null");
+    }
+
+    public static FileRangeReader open(File file)
+            throws IOException
+    {
+        requireNonNull(file, "file is null");
+        return new FileRangeReader(file, FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * the reader owns the channel and closes it on {@link #close()}
+     */
+    public static FileRangeReader of(FileChannel channel)
+    {
+        return new FileRangeReader(null, channel);
+    }
+
+    public long size()
+            throws IOException
+    {
+        return withChannel(FileChannel::size);
+    }
+
+    /**
+     * independent channel view over [start, start + length), each view has its own position.
+     * closing the view does not close the file
+     */
+    public SeekableByteChannel range(long start, long length)
+    {
+        return new RangeNioChannel(channel, start, length, false);
+    }
+
+    public SeekableByteChannel range(Range range)
+    {
+        return range(range.start, range.length);
+    }
+
+    /**
+     * read one range fully, the result is shorter than {@code length} only at end of file
+     */
+    public ByteBuffer read(long start, int length)
+            throws IOException
+    {
+        checkArgument(start >= 0L, "start must be non-negative");
+        checkArgument(length >= 0, "length must be non-negative");
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, start);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * read many ranges, ranges whose gap is at most {@code maxGap} bytes are coalesced into one read.
+     * The result buffers keep the order of {@code ranges}, coalesced ranges are slices of one shared buffer.
+     *
+     * @param maxGap negative to disable coalescing
+     */
+    public List<ByteBuffer> read(List<Range> ranges, long maxGap)
+            throws IOException
+    {
+        requireNonNull(ranges, "ranges is null");
+        Range[] sorted = ranges.toArray(new Range[0]);
+        Integer[] order = new Integer[sorted.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(sorted[a].start, sorted[b].start));
+
+        ByteBuffer[] result = new ByteBuffer[sorted.length];
+        int i = 0;
+        while (i < order.length) {
+            long start = sorted[order[i]].start;
+            long end = sorted[order[i]].end();
+            int j = i + 1;
+            while (j < order.length && maxGap >= 0) {
+                Range next = sorted[order[j]];
+                long newEnd = Math.max(end, next.end());
+                if (next.start - end > maxGap || newEnd - start > MAX_COALESCED_SIZE) {
+                    break;
+                }
+                end = newEnd;
+                j++;
+            }
+            checkArgument(end - start <= Integer.MAX_VALUE, "range too large");
+            ByteBuffer block = read(start, (int) (end - start));
+            for (int k = i; k < j; k++) {
+                Range range = sorted[order[k]];
+                int offset = (int) (range.start - start);
+                ByteBuffer slice = block.duplicate();
+                slice.position(Math.min(offset, block.limit()));
+                slice.limit(Math.min(offset + range.length, block.limit()));
+                result[order[k]] = slice.slice();
+            }
+            i = j;
+        }
+        return Arrays.asList(result);
+    }
+
+    private void readFully(ByteBuffer buffer, long position)
+            throws IOException
+    {
+        while (buffer.hasRemaining()) {
+            long offset = position;
+            int n = withChannel(channel -> channel.read(buffer, offset));
+            if (n < 0) {
+                return;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * run the io, if the channel was closed by an interrupt, reopen it and retry.
+     * The interrupted thread itself gets the {@link ClosedByInterruptException}
+     */
+    private <T> T withChannel(Function<FileChannel, T, IOException> io)
+            throws IOException
+    {
+        while (true) {
+            FileChannel current = channel;
+            try {
+                return io.apply(current);
+            }
+            catch (ClosedChannelException e) {
+                if (closed || file == null) {
+                    throw e;
+                }
+                reopen(current);
+                if (e instanceof ClosedByInterruptException) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private synchronized void reopen(FileChannel broken)
+            throws IOException
+    {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (channel == broken) {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+    }
+
+    @Override
+    public synchronized void close()
+            throws IOException
+    {
+        closed = true;
+        channel.close();
+    }
+
+    public static final class Range
+    {
+        private final long start;
+        private final int length;
+
+        private Range(long start, int length)
+        {
+            checkArgument(start >= 0L, "start must be non-negative");
+            checkArgument(length >= 0, "length must be non-negative");
+            this.start = start;
+            this.length = length;
+        }
+
+        public static Range of(long start, int length)
+        {
+            return new Range(start, length);
+        }
+
+        public long getStart()
+        {
+            return start;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        private long end()
+        {
+            return start + length;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + start + ", " + end() + ")";
+        }
+    }
+}
@@ -15,12 +15,24 @@
  */
 package com.github.harbby.gadtry.io;
 
+import com.github.harbby.gadtry.base.Platform;
+
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -39,6 +51,13 @@ public class IOUtils
      */
     private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
 
+    /**
+     * files at least this large are memory mapped by {@link #readAllBytes(File)}
+     */
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private static final int DIRECT_BUFFER_SIZE = 64 * 1024;
+
     /**
      * Copies from one stream to another.
      *
@@ -73,14 +92,155 @@ public class IOUtils
     public static void copyBytes(InputStream in, OutputStream out, int buffSize)
             throws IOException
     {
+        if (in instanceof FileInputStream && out instanceof FileOutputStream) {
+            //file to file, copy in kernel
+            copy(((FileInputStream) in).getChannel(), ((FileOutputStream) out).getChannel());
+            return;
+        }
         PrintStream ps = out instanceof PrintStream ? (PrintStream) out : null;
-        byte[] buf = new byte[buffSize];
-        int bytesRead = -1;
-        while ((bytesRead = in.read(buf)) >= 0) {
-            out.write(buf, 0, bytesRead);
-            if ((ps != null) && ps.checkError()) {
-                throw new IOException("Unable to write to output stream.");
+        byte[] buf = BufferPool.borrowBytes(buffSize);
+        try {
+            int bytesRead = -1;
+            while ((bytesRead = in.read(buf, 0, buffSize)) >= 0) {
+                out.write(buf, 0, bytesRead);
+                if ((ps != null) && ps.checkError()) {
+                    throw new IOException("Unable to write to output stream.");
+                }
+            }
+        }
+        finally {
+            BufferPool.release(buf);
+        }
+    }
+
+    /**
+     * Copies from one channel to another.
+     * A FileChannel source is copied by {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+     * (sendfile on linux), other channels through a pooled direct buffer.
+     * Reads from the current position of the source.
+     *
+     * @param in  source channel
+     * @param out target channel
+     * @return number of bytes copied
+     * @throws IOException IOException
+     */
+    public static long copy(ReadableByteChannel in, WritableByteChannel out)
+            throws IOException
+    {
+        long total = 0;
+        if (in instanceof FileChannel) {
+            FileChannel src = (FileChannel) in;
+            long position = src.position();
+            total = transferTo(src, position, Math.max(0, src.size() - position), out);
+            src.position(position + total);
+        }
+        //non file channels, or pipes and growing files after transferTo
+        ByteBuffer buffer = BufferPool.borrowDirect(DIRECT_BUFFER_SIZE);
+        try {
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    total += out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        finally {
+            BufferPool.release(buffer);
+        }
+        return total;
+    }
+
+    /**
+     * transferTo may copy less bytes than requested, loop until count bytes or end of file.
+     * The position of the source channel is not changed.
+     *
+     * @param src      source file
+     * @param position start position in the source file
+     * @param count    max number of bytes
+     * @param target   target channel
+     * @return number of bytes copied
+     * @throws IOException IOException
+     */
+    public static long transferTo(FileChannel src, long position, long count, WritableByteChannel target)
+            throws IOException
+    {
+        long transferred = 0;
+        while (transferred < count) {
+            long n = src.transferTo(position + transferred, count - transferred, target);
+            if (n <= 0) {
+                break;
+            }
+            transferred += n;
+        }
+        return transferred;
+    }
+
+    /**
+     * Copies a file by {@link FileChannel#transferTo(long, long, WritableByteChannel)}, the target is overwritten.
+     *
+     * @param src source file
+     * @param dst target file
+     * @return number of bytes copied
+     * @throws IOException IOException
+     */
+    public static long copyFile(File src, File dst)
+            throws IOException
+    {
+        try (FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(dst.toPath(), StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return transferTo(in, 0, in.size(), out);
+        }
+    }
+
+    /**
+     * Reads a whole file, large files are memory mapped and copied once into the result.
+     * The file is always read until EOF, so files with a wrong size(procfs, pipes) or growing files are fully read.
+     *
+     * @param file input file
+     * @return byte array
+     * @throws IOException throw IOException
+     */
+    public static byte[] readAllBytes(File file)
+            throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_BUFFER_SIZE) {
+                throw new OutOfMemoryError("Required array size too large");
+            }
+            byte[] bytes = new byte[(int) size];
+            if (size >= MAP_THRESHOLD) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                try {
+                    mapped.get(bytes);
+                }
+                finally {
+                    Platform.freeDirectBuffer(mapped);
+                }
+                channel.position(size);
+            }
+            else {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    //read fully
+                }
+                if (buffer.hasRemaining()) {
+                    return Arrays.copyOf(bytes, buffer.position());
+                }
+            }
+            // the size may be wrong(procfs reports 0) or the file is growing, so read the rest until EOF
+            byte[] rest = readAllBytes(Channels.newInputStream(channel));
+            if (rest.length == 0) {
+                return bytes;
+            }
+            if (MAX_BUFFER_SIZE - bytes.length < rest.length) {
+                throw new OutOfMemoryError("Required array size too large");
             }
+            byte[] result = Arrays.copyOf(bytes, bytes.length + rest.length);
+            System.arraycopy(rest, 0, result, bytes.length, rest.length);
+            return result;
         }
     }
 
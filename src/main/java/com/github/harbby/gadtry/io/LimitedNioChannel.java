@@ -52,10 +52,15 @@ public class LimitedNioChannel
         else {
             int result;
             if (dst.remaining() > this.left) {
-                ByteBuffer tmp = ByteBuffer.allocate((int) this.left);
-                result = this.readChannel.read(tmp);
-                tmp.flip();
-                dst.put(tmp);
+                int oldLimit = dst.limit();
+                //enforce the range on dst itself, no extra buffer and copy
+                dst.limit(dst.position() + (int) this.left);
+                try {
+                    result = this.readChannel.read(dst);
+                }
+                finally {
+                    dst.limit(oldLimit);
+                }
             }
             else {
                 result = this.readChannel.read(dst);
@@ -94,7 +99,7 @@ public class LimitedNioChannel
     public long size()
             throws IOException
     {
-        return (int) Math.min((long) this.readChannel.size(), this.left);
+        return Math.min(this.readChannel.size(), this.left);
     }
 
     @Override
@@ -0,0 +1,399 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import com.github.harbby.gadtry.base.Platform;
+import com.github.harbby.gadtry.collection.EachIterator;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streaming line reader in constant memory.
+ * Bytes are read in bulk into one pooled buffer and scanned for {@code '\n'} 8 bytes at a time,
+ * every line is exposed as the same reusable {@link Line} view over that buffer,
+ * decoding to String only happens when {@link Line#toString()} or a CharSequence method is called.
+ * <p>
+ * Lines end with {@code \n} or {@code \r\n}, the terminator is not part of the line.
+ * The Line returned by {@link #current()} is only valid until the next call of {@link #next()}.
+ */
+public final class LineReader
+        implements EachIterator<LineReader.Line>
+{
+    private static final Unsafe UNSAFE = Platform.getUnsafe();
+    private static final long BYTE_ARRAY_OFFSET = Unsafe.ARRAY_BYTE_BASE_OFFSET;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Source source;
+    private final Line line;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private boolean hasLine;
+
+    private LineReader(Source source, Charset charset)
+    {
+        this.source = source;
+        this.line = new Line(charset);
+        this.buffer = BufferPool.borrowBytes(DEFAULT_BUFFER_SIZE);
+    }
+
+    public static LineReader of(ReadableByteChannel channel)
+    {
+        return of(channel, StandardCharsets.UTF_8);
+    }
+
+    public static LineReader of(ReadableByteChannel channel, Charset charset)
+    {
+        requireNonNull(channel, "channel is null");
+        requireNonNull(charset, "charset is null");
+        return new LineReader(new ChannelSource(channel), charset);
+    }
+
+    /**
+     * read a file through memory mapped windows, files larger than 2GB are supported
+     */
+    public static LineReader of(File file)
+            throws IOException
+    {
+        return of(file, StandardCharsets.UTF_8);
+    }
+
+    public static LineReader of(File file, Charset charset)
+            throws IOException
+    {
+        requireNonNull(file, "file is null");
+        requireNonNull(charset, "charset is null");
+        return new LineReader(new MappedSource(FileChannel.open(file.toPath(), StandardOpenOption.READ)), charset);
+    }
+
+    @Override
+    public boolean next()
+    {
+        line.reset();
+        hasLine = false;
+        try {
+            int scanFrom = position;
+            while (true) {
+                int index = indexOfNewline(buffer, scanFrom, limit);
+                if (index != -1) {
+                    int end = index > position && buffer[index - 1] == '\r' ? index - 1 : index;
+                    line.set(buffer, position, end - position);
+                    position = index + 1;
+                    hasLine = true;
+                    return true;
+                }
+                if (eof) {
+                    if (position < limit) {
+                        int end = buffer[limit - 1] == '\r' ? limit - 1 : limit;
+                        line.set(buffer, position, end - position);
+                        position = limit;
+                        hasLine = true;
+                        return true;
+                    }
+                    return false;
+                }
+                scanFrom = limit - position;
+                fill();
+            }
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+    }
+
+    /**
+     * move the unread bytes to the front, grow the buffer if a line does not fit, then read more
+     */
+    private void fill()
+            throws IOException
+    {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+        else if (remaining == buffer.length) {
+            byte[] bigger = BufferPool.borrowBytes(buffer.length * 2);
+            System.arraycopy(buffer, 0, bigger, 0, remaining);
+            BufferPool.release(buffer);
+            buffer = bigger;
+        }
+        position = 0;
+        limit = remaining;
+        int n = source.read(buffer, limit, buffer.length - limit);
+        if (n < 0) {
+            eof = true;
+        }
+        else {
+            limit += n;
+        }
+    }
+
+    static int indexOfNewline(byte[] bytes, int from, int to)
+    {
+        int i = from;
+        if (LITTLE_ENDIAN) {
+            for (; i + 8 <= to; i += 8) {
+                long word = UNSAFE.getLong(bytes, BYTE_ARRAY_OFFSET + i) ^ 0x0A0A0A0A0A0A0A0AL;
+                //the lowest set high bit marks the first '\n' byte
+                long found = (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+                if (found != 0) {
+                    return i + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; i < to; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Line current()
+    {
+        if (!hasLine) {
+            throw new NoSuchElementException();
+        }
+        return line;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (buffer != null) {
+            BufferPool.release(buffer);
+            buffer = null;
+            eof = true;
+            position = 0;
+            limit = 0;
+            source.close();
+        }
+    }
+
+    /**
+     * Reusable view of one line in the reader buffer.
+     */
+    public static final class Line
+            implements CharSequence
+    {
+        private final Charset charset;
+        private byte[] array;
+        private int offset;
+        private int length;
+        private String string;
+
+        private Line(Charset charset)
+        {
+            this.charset = charset;
+        }
+
+        private void set(byte[] array, int offset, int length)
+        {
+            this.array = array;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private void reset()
+        {
+            this.string = null;
+        }
+
+        /**
+         * @return the backing buffer, line bytes are [offset(), offset() + byteLength())
+         */
+        public byte[] array()
+        {
+            return array;
+        }
+
+        public int offset()
+        {
+            return offset;
+        }
+
+        public int byteLength()
+        {
+            return length;
+        }
+
+        public byte byteAt(int index)
+        {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return array[offset + index];
+        }
+
+        public boolean isEmpty()
+        {
+            return length == 0;
+        }
+
+        public ByteBuffer asByteBuffer()
+        {
+            return ByteBuffer.wrap(array, offset, length).slice();
+        }
+
+        public byte[] copyBytes()
+        {
+            return Arrays.copyOfRange(array, offset, offset + length);
+        }
+
+        @Override
+        public int length()
+        {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return toString().subSequence(start, end);
+        }
+
+        /**
+         * decode the line, the result is cached until the reader moves
+         */
+        @Override
+        public String toString()
+        {
+            if (string == null) {
+                string = new String(array, offset, length, charset);
+            }
+            return string;
+        }
+    }
+
+    private interface Source
+    {
+        /**
+         * @return number of bytes read, or -1 at end of input
+         */
+        int read(byte[] bytes, int offset, int length)
+                throws IOException;
+
+        void close()
+                throws IOException;
+    }
+
+    private static class ChannelSource
+            implements Source
+    {
+        private final ReadableByteChannel channel;
+
+        private ChannelSource(ReadableByteChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            int n;
+            do {
+                n = channel.read(buffer);
+            }
+            while (n == 0 && buffer.hasRemaining());
+            return n;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            channel.close();
+        }
+    }
+
+    private static class MappedSource
+            implements Source
+    {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        private MappedSource(FileChannel channel)
+                throws IOException
+        {
+            this.channel = channel;
+            this.size = channel.size();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+                throws IOException
+        {
+            if (window == null || !window.hasRemaining()) {
+                long nextStart = window == null ? 0 : windowStart + window.capacity();
+                unmap();
+                if (nextStart >= size) {
+                    return -1;
+                }
+                windowStart = nextStart;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(MAP_WINDOW_SIZE, size - windowStart));
+            }
+            int n = Math.min(length, window.remaining());
+            window.get(bytes, offset, n);
+            return n;
+        }
+
+        private void unmap()
+        {
+            if (window != null) {
+                Platform.freeDirectBuffer(window);
+                window = null;
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            unmap();
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Block compressor writing the LZ4 block format(no frame format).
+ * Greedy matching with a single-probe hash table, favours speed over ratio.
+ */
+final class Lz4Codec
+{
+    private Lz4Codec() {}
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 65535;
+    static final int HASH_LOG = 12;
+
+    static int maxCompressedLength(int length)
+    {
+        return length + length / 255 + 16;
+    }
+
+    private static int readInt(byte[] bytes, int index)
+    {
+        return (bytes[index] & 0xFF) | (bytes[index + 1] & 0xFF) << 8
+                | (bytes[index + 2] & 0xFF) << 16 | (bytes[index + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence)
+    {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    /**
+     * @param table hash table of {@code 1 << HASH_LOG} entries, reused between calls
+     * @return compressed length, dst must have {@link #maxCompressedLength(int)} bytes from dstOff
+     */
+    static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int[] table)
+    {
+        int srcEnd = srcOff + srcLen;
+        int anchor = srcOff;
+        int dp = dstOff;
+        if (srcLen > MF_LIMIT) {
+            Arrays.fill(table, -1);
+            int matchLimit = srcEnd - LAST_LITERALS;
+            int mfLimit = srcEnd - MF_LIMIT;
+            int sp = srcOff;
+            while (sp < mfLimit) {
+                int sequence = readInt(src, sp);
+                int h = hash(sequence);
+                int ref = table[h];
+                table[h] = sp;
+                if (ref < 0 || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sp++;
+                    continue;
+                }
+                while (sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1]) {
+                    sp--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+                int token = dp;
+                dp = writeSequence(src, anchor, sp - anchor, dst, dp);
+                dst[dp++] = (byte) (sp - ref);
+                dst[dp++] = (byte) ((sp - ref) >>> 8);
+                int extra = matchLength - MIN_MATCH;
+                dst[token] |= (byte) Math.min(extra, 15);
+                if (extra >= 15) {
+                    dp = writeLength(extra - 15, dst, dp);
+                }
+                sp += matchLength;
+                anchor = sp;
+            }
+        }
+        return writeSequence(src, anchor, srcEnd - anchor, dst, dp) - dstOff;
+    }
+
+    /**
+     * write token + literals, the caller fills the match length part of the token
+     */
+    private static int writeSequence(byte[] src, int literalOff, int literalLength, byte[] dst, int dp)
+    {
+        int token = dp++;
+        dst[token] = (byte) (Math.min(literalLength, 15) << 4);
+        if (literalLength >= 15) {
+            dp = writeLength(literalLength - 15, dst, dp);
+        }
+        System.arraycopy(src, literalOff, dst, dp, literalLength);
+        return dp + literalLength;
+    }
+
+    private static int writeLength(int length, byte[] dst, int dp)
+    {
+        while (length >= 255) {
+            dst[dp++] = (byte) 255;
+            length -= 255;
+        }
+        dst[dp++] = (byte) length;
+        return dp;
+    }
+
+    static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int rawLength)
+            throws IOException
+    {
+        int sp = srcOff;
+        int srcEnd = srcOff + srcLen;
+        int dp = dstOff;
+        int dstEnd = dstOff + rawLength;
+        try {
+            while (true) {
+                int token = src[sp++] & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        literalLength += b;
+                    }
+                    while (b == 255);
+                }
+                if (literalLength > srcEnd - sp || literalLength > dstEnd - dp) {
+                    throw new IOException("corrupted lz4 block");
+                }
+                System.arraycopy(src, sp, dst, dp, literalLength);
+                sp += literalLength;
+                dp += literalLength;
+                if (sp >= srcEnd) {
+                    break;
+                }
+                int offset = (src[sp++] & 0xFF) | (src[sp++] & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        matchLength += b;
+                    }
+                    while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                int ref = dp - offset;
+                if (offset == 0 || ref < dstOff || matchLength > dstEnd - dp) {
+                    throw new IOException("corrupted lz4 block");
+                }
+                if (offset >= matchLength) {
+                    System.arraycopy(dst, ref, dst, dp, matchLength);
+                    dp += matchLength;
+                }
+                else {
+                    for (int i = 0; i < matchLength; i++) {
+                        dst[dp++] = dst[ref++];
+                    }
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("corrupted lz4 block", e);
+        }
+        if (dp != dstEnd) {
+            throw new IOException("corrupted lz4 block, expected " + rawLength + " bytes but got " + (dp - dstOff));
+        }
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import com.github.harbby.gadtry.base.ObjectInputStreamProxy;
+import com.github.harbby.gadtry.collection.EachIterator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.NoSuchElementException;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static com.github.harbby.gadtry.base.MoreObjects.checkState;
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streaming java serialization of object sequences to and from channels.
+ * <p>
+ * Objects are written by one ObjectOutputStream(so class descriptors are shared) into length prefixed blocks:
+ * <pre>
+ * block: [codec: byte][rawLength: int][storedLength: int][payload: storedLength bytes]
+ * </pre>
+ * With compression enabled every block is compressed with a LZ4 block codec, blocks that do not shrink are stored raw.
+ * The reader is an {@link EachIterator}, so large object streams are replayed without materializing them.
+ */
+public final class ObjectChannels
+{
+    private ObjectChannels() {}
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    private static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+    private static final int HEADER_SIZE = 9;
+    private static final byte CODEC_RAW = 0;
+    private static final byte CODEC_LZ4 = 1;
+    /**
+     * ObjectOutputStream keeps a reference to every written object, reset the handle table periodically
+     */
+    private static final int RESET_INTERVAL = 1024;
+
+    public static Writer writer(WritableByteChannel channel)
+    {
+        return writer(channel, false);
+    }
+
+    public static Writer writer(WritableByteChannel channel, boolean compression)
+    {
+        return writer(channel, compression, DEFAULT_BLOCK_SIZE);
+    }
+
+    public static Writer writer(WritableByteChannel channel, boolean compression, int blockSize)
+    {
+        requireNonNull(channel, "channel is null");
+        checkArgument(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE, "blockSize must be in (0, " + MAX_BLOCK_SIZE + "]");
+        try {
+            return new Writer(new BlockOutputStream(channel, compression, blockSize));
+        }
+        catch (IOException e) {
+            throw throwsThrowable(e);
+        }
+    }
+
+    public static <T> EachIterator<T> reader(ReadableByteChannel channel)
+            throws IOException
+    {
+        return reader(channel, null);
+    }
+
+    /**
+     * @param classLoader used to resolve classes, null means the latest user defined loader
+     */
+    public static <T> EachIterator<T> reader(ReadableByteChannel channel, ClassLoader classLoader)
+            throws IOException
+    {
+        requireNonNull(channel, "channel is null");
+        BlockInputStream blocks = new BlockInputStream(channel);
+        ObjectInputStream in;
+        try {
+            in = new ObjectInputStreamProxy(blocks, classLoader);
+        }
+        catch (IOException e) {
+            blocks.close();
+            throw e;
+        }
+        return new Reader<>(in);
+    }
+
+    public static final class Writer
+            implements Closeable, Flushable
+    {
+        private final ObjectOutputStream out;
+        private long count;
+        private boolean closed;
+
+        private Writer(BlockOutputStream blocks)
+                throws IOException
+        {
+            this.out = new ObjectOutputStream(blocks);
+        }
+
+        public void write(Object value)
+                throws IOException
+        {
+            checkState(!closed, "writer is closed");
+            out.writeBoolean(true);
+            out.writeObject(value);
+            if (++count % RESET_INTERVAL == 0) {
+                out.reset();
+            }
+        }
+
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * flush the current block to the channel
+         */
+        @Override
+        public void flush()
+                throws IOException
+        {
+            checkState(!closed, "writer is closed");
+            out.flush();
+        }
+
+        /**
+         * write the end marker, flush and close the channel
+         */
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                out.writeBoolean(false);
+            }
+            finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class Reader<T>
+            implements EachIterator<T>
+    {
+        private final ObjectInputStream in;
+        private T current;
+        private boolean hasCurrent;
+        private boolean finished;
+
+        private Reader(ObjectInputStream in)
+        {
+            this.in = in;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean next()
+        {
+            hasCurrent = false;
+            current = null;
+            if (finished) {
+                return false;
+            }
+            try {
+                if (!in.readBoolean()) {
+                    finished = true;
+                    return false;
+                }
+                current = (T) in.readObject();
+                hasCurrent = true;
+                return true;
+            }
+            catch (IOException | ClassNotFoundException e) {
+                finished = true;
+                throw throwsThrowable(e);
+            }
+        }
+
+        @Override
+        public T current()
+        {
+            if (!hasCurrent) {
+                throw new NoSuchElementException();
+            }
+            return current;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            finished = true;
+            in.close();
+        }
+    }
+
+    private static class BlockOutputStream
+            extends OutputStream
+    {
+        private final WritableByteChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        private final int[] table;
+        private byte[] buffer;
+        private byte[] compressed;
+        private int count;
+
+        private BlockOutputStream(WritableByteChannel channel, boolean compression, int blockSize)
+        {
+            this.channel = channel;
+            this.buffer = BufferPool.borrowBytes(blockSize);
+            if (compression) {
+                this.compressed = BufferPool.borrowBytes(Lz4Codec.maxCompressedLength(buffer.length));
+                this.table = new int[1 << Lz4Codec.HASH_LOG];
+            }
+            else {
+                this.table = null;
+            }
+        }
+
+        @Override
+        public void write(int b)
+                throws IOException
+        {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+                throws IOException
+        {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void writeBlock()
+                throws IOException
+        {
+            byte codec = CODEC_RAW;
+            byte[] payload = buffer;
+            int storedLength = count;
+            if (table != null) {
+                int n = Lz4Codec.compress(buffer, 0, count, compressed, 0, table);
+                if (n < count) {
+                    codec = CODEC_LZ4;
+                    payload = compressed;
+                    storedLength = n;
+                }
+            }
+            header.clear();
+            header.put(codec).putInt(count).putInt(storedLength).flip();
+            writeFully(header);
+            writeFully(ByteBuffer.wrap(payload, 0, storedLength));
+            count = 0;
+        }
+
+        private void writeFully(ByteBuffer src)
+                throws IOException
+        {
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+
+        @Override
+        public void flush()
+                throws IOException
+        {
+            if (count > 0) {
+                writeBlock();
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                flush();
+            }
+            finally {
+                BufferPool.release(buffer);
+                buffer = null;
+                if (compressed != null) {
+                    BufferPool.release(compressed);
+                }
+                channel.close();
+            }
+        }
+    }
+
+    private static class BlockInputStream
+            extends InputStream
+    {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        private byte[] buffer = BufferPool.borrowBytes(DEFAULT_BLOCK_SIZE);
+        private byte[] compressed;
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        private BlockInputStream(ReadableByteChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        /**
+         * @return false at the end of the channel
+         */
+        private boolean readBlock()
+                throws IOException
+        {
+            header.clear();
+            if (!readFully(header)) {
+                return false;
+            }
+            header.flip();
+            byte codec = header.get();
+            int rawLength = header.getInt();
+            int storedLength = header.getInt();
+            if (rawLength < 0 || rawLength > MAX_BLOCK_SIZE || storedLength < 0 || storedLength > Lz4Codec.maxCompressedLength(rawLength)) {
+                throw new IOException("corrupted block header, rawLength " + rawLength + " storedLength " + storedLength);
+            }
+            buffer = ensureCapacity(buffer, rawLength);
+            if (codec == CODEC_RAW) {
+                checkBlock(storedLength == rawLength && readFully(ByteBuffer.wrap(buffer, 0, rawLength)));
+            }
+            else if (codec == CODEC_LZ4) {
+                compressed = ensureCapacity(compressed, storedLength);
+                checkBlock(readFully(ByteBuffer.wrap(compressed, 0, storedLength)));
+                Lz4Codec.decompress(compressed, 0, storedLength, buffer, 0, rawLength);
+            }
+            else {
+                throw new IOException("unknown block codec " + codec);
+            }
+            position = 0;
+            limit = rawLength;
+            return true;
+        }
+
+        private static void checkBlock(boolean ok)
+                throws IOException
+        {
+            if (!ok) {
+                throw new EOFException("unexpected end of block");
+            }
+        }
+
+        private static byte[] ensureCapacity(byte[] bytes, int size)
+        {
+            if (bytes != null && bytes.length >= size) {
+                return bytes;
+            }
+            if (bytes != null) {
+                BufferPool.release(bytes);
+            }
+            return BufferPool.borrowBytes(size);
+        }
+
+        /**
+         * @return false if the channel ended before any byte was read
+         */
+        private boolean readFully(ByteBuffer dst)
+                throws IOException
+        {
+            boolean empty = true;
+            while (dst.hasRemaining()) {
+                int n = channel.read(dst);
+                if (n < 0) {
+                    if (empty) {
+                        return false;
+                    }
+                    throw new EOFException("unexpected end of block");
+                }
+                empty &= n == 0;
+            }
+            return true;
+        }
+
+        private boolean ensureData()
+                throws IOException
+        {
+            while (position == limit) {
+                if (eof || !readBlock()) {
+                    eof = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int read()
+                throws IOException
+        {
+            return ensureData() ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+                throws IOException
+        {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureData()) {
+                return -1;
+            }
+            int n = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available()
+        {
+            return limit - position;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            if (buffer == null) {
+                return;
+            }
+            eof = true;
+            position = 0;
+            limit = 0;
+            BufferPool.release(buffer);
+            buffer = null;
+            if (compressed != null) {
+                BufferPool.release(compressed);
+                compressed = null;
+            }
+            channel.close();
+        }
+    }
+}
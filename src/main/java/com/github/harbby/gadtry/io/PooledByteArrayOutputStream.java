@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * ByteArrayOutputStream whose internal buffer is borrowed from {@link BufferPool}
+ * and returned by {@link #close()}. Not thread safe.
+ */
+public class PooledByteArrayOutputStream
+        extends OutputStream
+{
+    private byte[] buf;
+    private int count;
+
+    public PooledByteArrayOutputStream()
+    {
+        this(4096);
+    }
+
+    public PooledByteArrayOutputStream(int initialSize)
+    {
+        this.buf = BufferPool.borrowBytes(initialSize);
+    }
+
+    private void ensureCapacity(int minCapacity)
+    {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required array size too large");
+        }
+        if (minCapacity > buf.length) {
+            int newCapacity = buf.length < (1 << 30) ? Math.max(buf.length << 1, minCapacity) : minCapacity;
+            byte[] newBuf = BufferPool.borrowBytes(newCapacity);
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            BufferPool.release(buf);
+            buf = newBuf;
+        }
+    }
+
+    @Override
+    public void write(int b)
+    {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len)
+    {
+        if ((off < 0) || (len < 0) || (off > b.length) || (off + len > b.length)) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    public void writeTo(OutputStream out)
+            throws IOException
+    {
+        out.write(buf, 0, count);
+    }
+
+    public void reset()
+    {
+        count = 0;
+    }
+
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @return the internal buffer, valid bytes are [0, size()), only valid until the next write or close
+     */
+    public byte[] getBuffer()
+    {
+        return buf;
+    }
+
+    public byte[] toByteArray()
+    {
+        return Arrays.copyOf(buf, count);
+    }
+
+    @Override
+    public void close()
+    {
+        if (buf != null && buf.length > 0) {
+            BufferPool.release(buf);
+            buf = new byte[0];
+            count = 0;
+        }
+    }
+}
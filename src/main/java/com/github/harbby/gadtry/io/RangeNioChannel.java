@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import static com.github.harbby.gadtry.base.MoreObjects.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A window [start, start + length) of a FileChannel.
+ * All io is done with positional {@link FileChannel#read(ByteBuffer, long)}/{@link FileChannel#write(ByteBuffer, long)},
+ * the range is enforced by narrowing the caller's buffer limit, so no temporary buffer is allocated
+ * and the position of the underlying channel is never touched.
+ * Positions of this channel are relative to {@code start}.
+ */
+public class RangeNioChannel
+        implements SeekableByteChannel, ScatteringByteChannel, GatheringByteChannel
+{
+    private final FileChannel channel;
+    private final long start;
+    private final long length;
+    private final boolean closeChannel;
+    private long position;
+    private volatile boolean open = true;
+
+    public RangeNioChannel(FileChannel channel, long start, long length)
+    {
+        this(channel, start, length, true);
+    }
+
+    RangeNioChannel(FileChannel channel, long start, long length, boolean closeChannel)
+    {
+        this.channel = requireNonNull(channel, "channel is null");
+        checkArgument(start >= 0L, "start must be non-negative");
+        checkArgument(length >= 0L, "length must be non-negative");
+        this.start = start;
+        this.length = length;
+        this.closeChannel = closeChannel;
+    }
+
+    public long start()
+    {
+        return start;
+    }
+
+    /**
+     * read from {@code position}(relative to start) without changing the position of this channel
+     */
+    public int read(ByteBuffer dst, long position)
+            throws IOException
+    {
+        checkArgument(position >= 0L, "position must be non-negative");
+        ensureOpen();
+        long left = length - position;
+        if (left <= 0) {
+            return -1;
+        }
+        if (dst.remaining() <= left) {
+            return channel.read(dst, start + position);
+        }
+        int oldLimit = dst.limit();
+        dst.limit(dst.position() + (int) left);
+        try {
+            return channel.read(dst, start + position);
+        }
+        finally {
+            dst.limit(oldLimit);
+        }
+    }
+
+    /**
+     * write at {@code position}(relative to start) without changing the position of this channel.
+     * bytes beyond the end of the range are not written
+     */
+    public int write(ByteBuffer src, long position)
+            throws IOException
+    {
+        checkArgument(position >= 0L, "position must be non-negative");
+        ensureOpen();
+        long left = length - position;
+        if (src.remaining() <= left) {
+            return channel.write(src, start + position);
+        }
+        if (left <= 0) {
+            throw new IOException("write beyond the end of range, position " + position + " length " + length);
+        }
+        int oldLimit = src.limit();
+        src.limit(src.position() + (int) left);
+        try {
+            return channel.write(src, start + position);
+        }
+        finally {
+            src.limit(oldLimit);
+        }
+    }
+
+    @Override
+    public int read(ByteBuffer dst)
+            throws IOException
+    {
+        int n = read(dst, position);
+        if (n > 0) {
+            position += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length)
+            throws IOException
+    {
+        checkArgument(offset >= 0 && length >= 0 && offset + length <= dsts.length, "offset or length out of bounds");
+        ensureOpen();
+        if (position >= this.length) {
+            return -1;
+        }
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            ByteBuffer dst = dsts[i];
+            while (dst.hasRemaining()) {
+                int n = read(dst);
+                if (n <= 0) {
+                    return total == 0 && n < 0 ? -1 : total;
+                }
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts)
+            throws IOException
+    {
+        return read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src)
+            throws IOException
+    {
+        int n = write(src, position);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException
+    {
+        checkArgument(offset >= 0 && length >= 0 && offset + length <= srcs.length, "offset or length out of bounds");
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            ByteBuffer src = srcs[i];
+            while (src.hasRemaining()) {
+                if (position >= this.length) {
+                    if (total == 0) {
+                        write(src);
+                    }
+                    return total;
+                }
+                total += write(src);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs)
+            throws IOException
+    {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long position()
+            throws IOException
+    {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public RangeNioChannel position(long newPosition)
+            throws IOException
+    {
+        checkArgument(newPosition >= 0L, "position must be non-negative");
+        ensureOpen();
+        this.position = newPosition;
+        return this;
+    }
+
+    /**
+     * @return the range length, bounded by the current size of the file
+     */
+    @Override
+    public long size()
+            throws IOException
+    {
+        ensureOpen();
+        return Math.max(0L, Math.min(length, channel.size() - start));
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size)
+            throws IOException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    private void ensureOpen()
+            throws ClosedChannelException
+    {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open && channel.isOpen();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (open) {
+            open = false;
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -16,9 +16,11 @@
 package com.github.harbby.gadtry.jvm;
 
 import com.github.harbby.gadtry.base.Serializables;
+import com.github.harbby.gadtry.io.BufferPool;
 import com.github.harbby.gadtry.io.IOUtils;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
@@ -141,10 +143,27 @@ public class JVMLauncherImpl<R extends Serializable>
             byte type;
             while ((type = reader.readByte()) != -1) {
                 if (type == 1) {
-                    consoleHandler.accept(new String(readLensByte(reader), UTF_8));
+                    int length = reader.readInt();
+                    byte[] buffer = BufferPool.borrowBytes(length);
+                    try {
+                        reader.readFully(buffer, 0, length);
+                        consoleHandler.accept(new String(buffer, 0, length, UTF_8));
+                    }
+                    finally {
+                        BufferPool.release(buffer);
+                    }
                 }
                 else if (type == 0) {
-                    VmResult<R> result = Serializables.byteToObject(readLensByte(reader), classLoader);
+                    int length = reader.readInt();
+                    byte[] buffer = BufferPool.borrowBytes(length);
+                    VmResult<R> result;
+                    try {
+                        reader.readFully(buffer, 0, length);
+                        result = Serializables.byteToObject(new ByteArrayInputStream(buffer, 0, length), classLoader);
+                    }
+                    finally {
+                        BufferPool.release(buffer);
+                    }
                     process.destroy();
                     return result;
                 }
@@ -167,15 +186,6 @@ public class JVMLauncherImpl<R extends Serializable>
         throw new JVMException("Jvm child process abnormal exit, exit code " + process.exitValue());
     }
 
-    private byte[] readLensByte(DataInputStream reader)
-            throws IOException
-    {
-        int length = reader.readInt();
-        byte[] bytes = new byte[length];
-        int len = reader.read(bytes);
-        return bytes;
-    }
-
     private String getUserAddClasspath()
     {
         return userJars.stream()
@@ -30,10 +30,16 @@ public class SystemOutputStream
     }
 
     @Override
-    public void write(int b)
+    public synchronized void write(int b)
             throws IOException
     {
-        this.write(new byte[] {(byte) b});
+        if (tryClose) {
+            return;
+        }
+        out.write(1);
+        this.writeInt(1);
+        out.write(b);
+        out.flush();
     }
 
     @Override
@@ -51,7 +57,7 @@ public class SystemOutputStream
             return;
         }
         out.write(1);
-        this.writeInt(len - off);
+        this.writeInt(len);
         out.write(buf, off, len);
         out.flush();
     }
@@ -15,11 +15,17 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.IteratorPlus;
+import com.github.harbby.gadtry.collection.MutableList;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class FilesTest
 {
@@ -52,4 +58,87 @@ public class FilesTest
         });
         Assert.assertEquals(fileList.size(), 0);
     }
+
+    private static File createTree()
+            throws IOException
+    {
+        File root = java.nio.file.Files.createTempDirectory("gadtry-files-test").toFile();
+        for (int i = 0; i < 5; i++) {
+            File dir = new File(root, "dir" + i + "/sub" + i);
+            Assert.assertTrue(dir.mkdirs());
+            for (int j = 0; j < 20; j++) {
+                Assert.assertTrue(new File(dir, j + ".txt").createNewFile());
+            }
+            Assert.assertTrue(new File(root, i + ".log").createNewFile());
+        }
+        return root;
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    @Test
+    public void walkFilesTest()
+            throws Exception
+    {
+        File root = createTree();
+        try {
+            List<File> expected = Files.listFiles(root, true);
+            Assert.assertEquals(105, expected.size());
+            try (IteratorPlus<File> iterator = Files.walkFiles(root, true)) {
+                Assert.assertEquals(new HashSet<>(expected), new HashSet<>(MutableList.copy(iterator)));
+            }
+            Assert.assertEquals(5, MutableList.copy(Files.walkFiles(root, false)).size());
+            //filter applies to directories as in listFiles
+            List<File> filtered = MutableList.copy(Files.walkFiles(root, true, f -> !f.getName().equals("dir0")));
+            Assert.assertEquals(85, filtered.size());
+        }
+        finally {
+            delete(root);
+        }
+    }
+
+    @Test
+    public void walkFilesEarlyCloseTest()
+            throws Exception
+    {
+        File root = createTree();
+        try {
+            IteratorPlus<File> iterator = Files.walkFiles(root, true);
+            Assert.assertTrue(iterator.hasNext());
+            iterator.next();
+            iterator.close();
+            Assert.assertFalse(iterator.hasNext());
+            Assert.assertFalse(Files.walkFiles(new File(root, "not_exists"), true).hasNext());
+        }
+        finally {
+            delete(root);
+        }
+    }
+
+    @Test
+    public void listFilesParallelTest()
+            throws Exception
+    {
+        File root = createTree();
+        try {
+            Assert.assertEquals(new HashSet<>(Files.listFiles(root, true)), new HashSet<>(Files.listFilesParallel(root, f -> true)));
+
+            AtomicInteger visited = new AtomicInteger();
+            boolean completed = Files.walkFilesParallel(root, f -> true, ForkJoinPool.commonPool(), f -> visited.incrementAndGet() < 10);
+            Assert.assertFalse(completed);
+            Assert.assertTrue(visited.get() < 105);
+        }
+        finally {
+            delete(root);
+        }
+    }
 }
@@ -15,6 +15,83 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.IteratorPlus;
+import com.github.harbby.gadtry.collection.MutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 public class IteratorPlusTest
 {
+    @Test
+    public void topKTest()
+    {
+        IteratorPlus<Integer> iterator = Iterators.wrap(Arrays.asList(5, 1, 9, 3, 7, 9, 2).iterator());
+        Assert.assertEquals(Arrays.asList(9, 9, 7), iterator.topK(3, Integer::compareTo));
+
+        iterator = Iterators.wrap(Arrays.asList(5, 1, 9).iterator());
+        Assert.assertEquals(Arrays.asList(1, 5), iterator.topK(2, Comparator.reverseOrder()));
+
+        Assert.assertEquals(Arrays.asList(2, 1), Iterators.wrap(Arrays.asList(1, 2).iterator()).topK(5, Integer::compareTo));
+        Assert.assertTrue(Iterators.wrap(Arrays.asList(1, 2).iterator()).topK(0, Integer::compareTo).isEmpty());
+    }
+
+    @Test
+    public void sortedInMemoryTest()
+    {
+        IteratorPlus<Integer> iterator = Iterators.wrap(Arrays.asList(5, 1, 9, 3).iterator());
+        Assert.assertEquals(Arrays.asList(1, 3, 5, 9), MutableList.copy(iterator.sorted(Integer::compareTo)));
+    }
+
+    @Test
+    public void externalSortedTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-sort-test").toFile();
+        List<Integer> input = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        Collections.shuffle(input, new Random(12345));
+
+        List<Integer> out = new ArrayList<>();
+        boolean[] closed = new boolean[1];
+        IteratorPlus<Integer> source = new IteratorPlus<Integer>()
+        {
+            private final IteratorPlus<Integer> iterator = Iterators.wrap(input.iterator());
+
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Integer next()
+            {
+                return iterator.next();
+            }
+
+            @Override
+            public void close()
+            {
+                closed[0] = true;
+            }
+        };
+        try (IteratorPlus<Integer> sorted = source.sorted(Integer::compareTo, 999, spillDir)) {
+            Assert.assertEquals(10, spillDir.list().length);
+            sorted.forEachRemaining(out::add);
+        }
+        Assert.assertTrue(closed[0]);
+        Assert.assertEquals(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()), out);
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
 }
@@ -15,16 +15,33 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.EachIterator;
+import com.github.harbby.gadtry.collection.IteratorPlus;
 import com.github.harbby.gadtry.collection.MutableList;
 import com.github.harbby.gadtry.collection.MutableSet;
+import com.github.harbby.gadtry.collection.tuple.ObjIntTuple2;
+import com.github.harbby.gadtry.collection.tuple.ObjLongTuple2;
+import com.github.harbby.gadtry.collection.tuple.Tuple2;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class IteratorsTest
 {
@@ -273,4 +290,273 @@ public class IteratorsTest
         System.out.println(out);
         Assert.assertEquals(out, Arrays.asList(1, null, 5));
     }
+
+    @Test
+    public void reduceByKeyTest()
+    {
+        Iterator<Tuple2<String, Integer>> iterator = Iterators.of(Tuple2.of("a", 1), Tuple2.of("b", 2), Tuple2.of("a", 3));
+        Map<String, Integer> out = Iterators.reduceByKey(iterator, Integer::sum).toStream()
+                .collect(Collectors.toMap(Tuple2::f1, Tuple2::f2));
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 4);
+        expected.put("b", 2);
+        Assert.assertEquals(expected, out);
+    }
+
+    @Test
+    public void spillableReduceByKeyTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        Iterator<Tuple2<Integer, Long>> input = IntStream.range(0, 10_000)
+                .mapToObj(i -> Tuple2.of(i % 997, 1L))
+                .iterator();
+
+        List<Tuple2<Integer, Long>> out = MutableList.copy(Iterators.reduceByKey(input, Long::sum, Integer::compareTo, 100, spillDir));
+        Assert.assertEquals(997, out.size());
+        for (int i = 0; i < out.size(); i++) {
+            Assert.assertEquals(i, out.get(i).f1().intValue());
+            Assert.assertEquals(i < 10_000 % 997 ? 11L : 10L, out.get(i).f2().longValue());
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    @Test
+    public void spillableReduceByKeyFanInTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        Iterator<Tuple2<Integer, Long>> input = IntStream.range(0, 10_000)
+                .mapToObj(i -> Tuple2.of(i % 997, 1L))
+                .iterator();
+        //100 spills, merged 3 at a time
+        try (IteratorPlus<Tuple2<Integer, Long>> iterator = Iterators.reduceByKey(input, Long::sum, Integer::compareTo, 100, spillDir, 3)) {
+            Assert.assertTrue(spillDir.list().length <= 3);
+            List<Tuple2<Integer, Long>> out = MutableList.copy(iterator);
+            Assert.assertEquals(997, out.size());
+            for (int i = 0; i < out.size(); i++) {
+                Assert.assertEquals(i, out.get(i).f1().intValue());
+                Assert.assertEquals(i < 10_000 % 997 ? 11L : 10L, out.get(i).f2().longValue());
+            }
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    @Test
+    public void spillableSortedFanInTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        //key and input index, sort by key only: equal keys must keep the input order
+        List<Tuple2<Integer, Integer>> input = IntStream.range(0, 5000)
+                .mapToObj(i -> Tuple2.of((i * 7919) % 101, i))
+                .collect(Collectors.toList());
+        Comparator<Tuple2<Integer, Integer>> comparator = Comparator.comparing(Tuple2::f1);
+        try (IteratorPlus<Tuple2<Integer, Integer>> iterator = Iterators.sorted(input.iterator(), comparator, 50, spillDir, 4)) {
+            Assert.assertTrue(spillDir.list().length <= 4);
+            List<Tuple2<Integer, Integer>> expected = new ArrayList<>(input);
+            expected.sort(comparator);
+            Assert.assertEquals(expected, MutableList.copy(iterator));
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+
+        Iterator<Tuple2<Integer, Object>> broken = IntStream.range(0, 100)
+                .mapToObj(i -> Tuple2.<Integer, Object>of(i, new BrokenValue()))
+                .iterator();
+        try {
+            Iterators.sorted(broken, Comparator.comparing(Tuple2::f1), 10, spillDir, 2);
+            Assert.fail();
+        }
+        catch (Exception e) {
+            Assert.assertEquals("broken value", e.getMessage());
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    private static class BrokenValue
+            implements Serializable
+    {
+        private void readObject(ObjectInputStream in)
+                throws IOException
+        {
+            throw new IOException("broken value");
+        }
+    }
+
+    @Test
+    public void mergeFailureDeleteSpillFilesTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        Iterator<Tuple2<Integer, Object>> input = IntStream.range(0, 100)
+                .mapToObj(i -> Tuple2.<Integer, Object>of(i, new BrokenValue()))
+                .iterator();
+        try {
+            Iterators.reduceByKey(input, (x, y) -> x, Integer::compareTo, 10, spillDir, 2);
+            Assert.fail();
+        }
+        catch (Exception e) {
+            Assert.assertEquals("broken value", e.getMessage());
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    @Test
+    public void spillFailureDeleteSpillFilesTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        //the second run can not be serialized, SpillFiles.write fails with NotSerializableException
+        Iterator<Object> input = Arrays.<Object>asList("a", "b", new Object(), "c").iterator();
+        try {
+            Iterators.sorted(input, Comparator.comparing(Object::toString), 2, spillDir);
+            Assert.fail();
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e instanceof NotSerializableException);
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+
+        Iterator<Tuple2<Integer, Object>> tuples = Arrays.<Tuple2<Integer, Object>>asList(
+                Tuple2.of(1, "a"), Tuple2.of(2, "b"), Tuple2.of(3, new Object()), Tuple2.of(4, "c")).iterator();
+        try {
+            Iterators.reduceByKey(tuples, (x, y) -> x, Integer::compareTo, 2, spillDir);
+            Assert.fail();
+        }
+        catch (Exception e) {
+            Assert.assertTrue(e instanceof NotSerializableException);
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    @Test
+    public void spillableGroupByKeyCloseTest()
+            throws Exception
+    {
+        File spillDir = Files.createTempDirectory("gadtry-spill-test").toFile();
+        Iterator<Tuple2<Integer, Integer>> input = IntStream.range(0, 1000)
+                .mapToObj(i -> Tuple2.of(i % 10, i))
+                .iterator();
+
+        try (IteratorPlus<Tuple2<Integer, List<Integer>>> iterator = Iterators.groupByKey(input, Integer::compareTo, 3, spillDir)) {
+            Tuple2<Integer, List<Integer>> first = iterator.next();
+            Assert.assertEquals(0, first.f1().intValue());
+            Assert.assertEquals(100, first.f2().size());
+            Assert.assertTrue(first.f2().stream().allMatch(x -> x % 10 == 0));
+            Assert.assertTrue(spillDir.list().length > 0);
+        }
+        Assert.assertEquals(0, spillDir.list().length);
+        Assert.assertTrue(spillDir.delete());
+    }
+
+    @Test
+    public void reservoirSampleTest()
+    {
+        Random random = new Random(12345);
+        int[] counts = new int[100];
+        for (int trial = 0; trial < 2000; trial++) {
+            List<Integer> sample = Iterators.reservoirSample(IntStream.range(0, 100).iterator(), 10, random);
+            Assert.assertEquals(10, sample.size());
+            Assert.assertEquals(10, MutableSet.copy(sample).size());
+            sample.forEach(x -> counts[x]++);
+        }
+        //expected 200 per element
+        for (int count : counts) {
+            Assert.assertTrue(String.valueOf(count), count > 140 && count < 260);
+        }
+
+        Assert.assertEquals(Arrays.asList(1, 2), Iterators.reservoirSample(Iterators.of(1, 2), 5, random));
+        Assert.assertTrue(Iterators.reservoirSample(Iterators.of(1, 2), 0, random).isEmpty());
+    }
+
+    @Test
+    public void eachIteratorReservoirSampleSkipCurrentTest()
+    {
+        int[] currentCalls = new int[1];
+        EachIterator<Integer> iterator = new EachIterator<Integer>()
+        {
+            private int i = -1;
+
+            @Override
+            public boolean next()
+            {
+                return ++i < 1_000_000;
+            }
+
+            @Override
+            public Integer current()
+            {
+                currentCalls[0]++;
+                return i;
+            }
+        };
+        List<Integer> sample = Iterators.reservoirSample(iterator, 10, new Random(12345));
+        Assert.assertEquals(10, sample.size());
+        Assert.assertTrue(currentCalls[0] < 1000);
+    }
+
+    @Test
+    public void bernoulliSampleTest()
+    {
+        long size = Iterators.size(Iterators.bernoulliSample(IntStream.range(0, 100_000).iterator(), 0.1, new Random(12345)));
+        Assert.assertTrue(String.valueOf(size), size > 9_500 && size < 10_500);
+
+        Assert.assertEquals(3, Iterators.size(Iterators.bernoulliSample(Iterators.of(1, 2, 3), 1.0, new Random())));
+        Assert.assertFalse(Iterators.bernoulliSample(Iterators.of(1, 2, 3), 0.0, new Random()).hasNext());
+
+        EachIterator<Integer> each = Iterators.bernoulliSample(new EachIterator<Integer>()
+        {
+            private int i = -1;
+
+            @Override
+            public boolean next()
+            {
+                return ++i < 100_000;
+            }
+
+            @Override
+            public Integer current()
+            {
+                return i;
+            }
+        }, 0.5, new Random(12345));
+        int number = 0;
+        int last = -1;
+        while (each.next()) {
+            Assert.assertTrue(each.current() > last);
+            last = each.current();
+            number++;
+        }
+        Assert.assertTrue(String.valueOf(number), number > 49_000 && number < 51_000);
+    }
+
+    @Test
+    public void stratifiedSampleTest()
+    {
+        Map<Integer, List<Integer>> sample = Iterators.stratifiedSample(IntStream.range(0, 1000).iterator(), x -> x % 3, 5, new Random(12345));
+        Assert.assertEquals(MutableSet.of(0, 1, 2), sample.keySet());
+        sample.forEach((key, values) -> {
+            Assert.assertEquals(5, values.size());
+            Assert.assertTrue(values.stream().allMatch(x -> x % 3 == key));
+        });
+    }
+
+    @Test
+    public void zipPrimitiveIndexTest()
+    {
+        Iterator<ObjIntTuple2<String>> intIndex = Iterators.zipIntIndex(Iterators.of("a", "b"), 1);
+        Assert.assertEquals(ObjIntTuple2.of("a", 1), intIndex.next());
+        Assert.assertEquals(2, intIndex.next().f2());
+        Assert.assertFalse(intIndex.hasNext());
+
+        Iterator<ObjLongTuple2<String>> longIndex = Iterators.zipLongIndex(Iterators.of("a", "b"), Integer.MAX_VALUE);
+        Assert.assertEquals(ObjLongTuple2.of("a", Integer.MAX_VALUE), longIndex.next());
+        Assert.assertEquals(Integer.MAX_VALUE + 1L, longIndex.next().f2());
+        Assert.assertFalse(longIndex.hasNext());
+    }
 }
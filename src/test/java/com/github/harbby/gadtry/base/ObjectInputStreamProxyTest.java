@@ -24,6 +24,10 @@ import org.junit.runner.RunWith;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
 
 import static com.github.harbby.gadtry.aop.mock.MockGo.when;
 
@@ -62,4 +66,38 @@ public class ObjectInputStreamProxyTest
 
         Assert.assertEquals(1, (int) objectInputStream.readObject());
     }
+
+    @Test
+    public void resolveClassCacheTest()
+            throws IOException, ClassNotFoundException
+    {
+        ClassLoader classLoader = this.getClass().getClassLoader();
+        ObjectStreamClass desc = ObjectStreamClass.lookupAny(ObjectInputStreamProxyTest.class);
+        ObjectInputStreamProxy objectInputStream = new ObjectInputStreamProxy(new ByteArrayInputStream(Serializables.serialize(1)), classLoader);
+        objectInputStream.resolveClass(desc);
+        ObjectInputStreamProxy.CacheMetrics before = ObjectInputStreamProxy.cacheMetrics();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(ObjectInputStreamProxyTest.class, objectInputStream.resolveClass(desc));
+        }
+        ObjectInputStreamProxy.CacheMetrics after = ObjectInputStreamProxy.cacheMetrics();
+        Assert.assertEquals(before.getHits() + 10, after.getHits());
+        Assert.assertEquals(before.getMisses(), after.getMisses());
+        Assert.assertTrue(after.getHitRate() > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void resolveProxyClassTest()
+            throws IOException, ClassNotFoundException
+    {
+        InvocationHandler handler = (InvocationHandler & Serializable) (proxy, method, args) -> "proxy";
+        Supplier<String> supplier = (Supplier<String>) Proxy.newProxyInstance(this.getClass().getClassLoader(),
+                new Class<?>[] {Supplier.class, Serializable.class}, handler);
+        byte[] bytes = Serializables.serialize((Serializable) supplier);
+        for (int i = 0; i < 2; i++) {
+            Supplier<String> copy = Serializables.byteToObject(bytes, this.getClass().getClassLoader());
+            Assert.assertEquals("proxy", copy.get());
+            Assert.assertSame(supplier.getClass(), copy.getClass());
+        }
+    }
 }
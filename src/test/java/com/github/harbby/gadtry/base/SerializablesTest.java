@@ -15,11 +15,16 @@
  */
 package com.github.harbby.gadtry.base;
 
+import com.github.harbby.gadtry.collection.tuple.Tuple2;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class SerializablesTest
 {
@@ -32,4 +37,62 @@ public class SerializablesTest
 
         Assert.assertEquals(Serializables.byteToObject(inputStream), "123456");
     }
+
+    @Test
+    public void sessionSerializeTest()
+            throws IOException, ClassNotFoundException
+    {
+        try (SerializerSession session = Serializables.newSession()) {
+            List<String> shared = new ArrayList<>(Arrays.asList("a", "b"));
+            for (int i = 0; i < 10; i++) {
+                Tuple2<Integer, List<String>> tuple = Tuple2.of(i, shared);
+                byte[] bytes = session.serialize(tuple);
+                //every result is a standalone stream
+                Assert.assertEquals(tuple, Serializables.byteToObject(bytes));
+                Assert.assertEquals(tuple, session.deserialize(bytes));
+                Assert.assertEquals(tuple, session.deserialize(Serializables.serialize(tuple)));
+                shared.add("c" + i);
+            }
+        }
+    }
+
+    @Test
+    public void sessionBatchTest()
+            throws IOException, ClassNotFoundException
+    {
+        List<Tuple2<Integer, String>> tuples = new ArrayList<>();
+        int singleSize = 0;
+        try (SerializerSession session = Serializables.newSession(SerializablesTest.class.getClassLoader())) {
+            for (int i = 0; i < 100; i++) {
+                tuples.add(Tuple2.of(i, "v" + i));
+                singleSize += session.serialize(tuples.get(i)).length;
+            }
+            byte[] bytes = session.serializeAll(tuples);
+            Assert.assertTrue(bytes.length * 3 < singleSize);
+            Assert.assertEquals(tuples, session.deserializeAll(bytes));
+            Assert.assertEquals(tuples.subList(0, 2), session.deserializeAll(session.serializeAll(tuples.subList(0, 2))));
+        }
+    }
+
+    @Test
+    public void sessionRecoverTest()
+            throws IOException, ClassNotFoundException
+    {
+        try (SerializerSession session = Serializables.newSession()) {
+            try {
+                session.serialize(Tuple2.of(1, new Object()));
+                Assert.fail();
+            }
+            catch (NotSerializableException ignored) {
+            }
+            byte[] bytes = session.serialize("ok");
+            try {
+                session.deserialize(Arrays.copyOf(bytes, bytes.length - 1));
+                Assert.fail();
+            }
+            catch (IOException ignored) {
+            }
+            Assert.assertEquals("ok", session.deserialize(bytes));
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class ImmutableMapTest
+{
+    @Test
+    public void randomUpdateRemoveTest()
+    {
+        Random random = new Random(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        ImmutableMap<Integer, Integer> map = ImmutableMap.of();
+        for (int i = 0; i < 50_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.removed(key);
+            }
+            else {
+                expected.put(key, i);
+                map = map.updated(key, i);
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(expected, map);
+        Assert.assertEquals(expected.hashCode(), map.hashCode());
+        for (Integer key : expected.keySet()) {
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void hashCollisionTest()
+    {
+        Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+        ImmutableMap<String, Integer> map = ImmutableMap.of("Aa", 1, "BB", 2, "C", 3);
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(1, (int) map.get("Aa"));
+        Assert.assertEquals(2, (int) map.get("BB"));
+
+        ImmutableMap<String, Integer> removed = map.removed("Aa");
+        Assert.assertEquals(2, removed.size());
+        Assert.assertNull(removed.get("Aa"));
+        Assert.assertEquals(2, (int) removed.get("BB"));
+        Assert.assertEquals(ImmutableMap.of("C", 3), removed.removed("BB"));
+    }
+
+    @Test
+    public void nullKeyTest()
+    {
+        ImmutableMap<String, Integer> map = ImmutableMap.of(null, 1, "a", 2);
+        Assert.assertEquals(2, map.size());
+        Assert.assertTrue(map.containsKey(null));
+        Assert.assertEquals(1, (int) map.get(null));
+        Assert.assertEquals(ImmutableMap.of("a", 2), map.removed(null));
+    }
+
+    @Test
+    public void structuralSharingTest()
+    {
+        ImmutableMap<String, Integer> v1 = ImmutableMap.of("a", 1, "b", 2);
+        ImmutableMap<String, Integer> v2 = v1.updated("a", 10).removed("b").updated("c", 3);
+        Assert.assertEquals(ImmutableMap.of("a", 1, "b", 2), new HashMap<>(v1));
+        Assert.assertEquals(ImmutableMap.of("a", 10, "c", 3), new HashMap<>(v2));
+        Assert.assertSame(v1, v1.removed("not exists"));
+    }
+
+    @Test
+    public void builderTest()
+    {
+        Random random = new Random(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        ImmutableMap.Builder<Integer, Integer> builder = ImmutableMap.builder();
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt(5_000);
+            expected.put(key, i);
+            builder.put(key, i);
+        }
+        ImmutableMap<Integer, Integer> map = builder.build();
+        ImmutableMap<Integer, Integer> perfect = ImmutableMap.<Integer, Integer>builder().putAll(expected).minimalPerfectHash(true).build();
+        for (ImmutableMap<Integer, Integer> m : Arrays.asList(map, perfect)) {
+            Assert.assertEquals(expected, m);
+            Assert.assertEquals(expected.size(), m.size());
+            for (int key = -10; key < 5_010; key++) {
+                Assert.assertEquals(expected.get(key), m.get(key));
+                Assert.assertEquals(expected.containsKey(key), m.containsKey(key));
+            }
+        }
+    }
+
+    @Test
+    public void builderNullKeyAndUpdateTest()
+    {
+        ImmutableMap<String, Integer> map = ImmutableMap.<String, Integer>builder()
+                .put(null, 0).put("a", 1).put("b", 2).put("a", 3)
+                .minimalPerfectHash(true)
+                .build();
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(0, (int) map.get(null));
+        Assert.assertEquals(3, (int) map.get("a"));
+        Assert.assertNull(map.get("c"));
+
+        ImmutableMap<String, Integer> updated = map.updated("c", 4).removed(null);
+        Assert.assertEquals(ImmutableMap.of("a", 3, "b", 2, "c", 4), updated);
+        Assert.assertEquals(3, map.size());
+        Assert.assertSame(map, map.removed("not exists"));
+    }
+
+    @Test
+    public void perfectHashFallbackTest()
+    {
+        //"Aa" and "BB" have the same hashCode and can not be separated by a perfect hash
+        ImmutableMap<String, Integer> map = ImmutableMap.<String, Integer>builder()
+                .put("Aa", 1).put("BB", 2).put("C", 3)
+                .minimalPerfectHash(true)
+                .build();
+        Assert.assertEquals(ImmutableMap.of("Aa", 1, "BB", 2, "C", 3), map);
+        Assert.assertEquals(2, (int) map.get("BB"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void putTest()
+    {
+        ImmutableMap.of("a", 1).put("b", 2);
+    }
+}
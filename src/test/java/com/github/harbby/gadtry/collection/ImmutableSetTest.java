@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class ImmutableSetTest
+{
+    @Test
+    public void randomAddRemoveTest()
+    {
+        Random random = new Random(0);
+        Set<Integer> expected = new HashSet<>();
+        ImmutableSet<Integer> set = ImmutableSet.of();
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(2_000);
+            if (random.nextBoolean()) {
+                expected.remove(value);
+                set = set.removed(value);
+            }
+            else {
+                expected.add(value);
+                set = set.added(value);
+            }
+        }
+        Assert.assertEquals(expected, set);
+        Assert.assertEquals(expected.hashCode(), set.hashCode());
+    }
+
+    @Test
+    public void persistentTest()
+    {
+        ImmutableSet<String> v1 = ImmutableSet.of("a", "b", "a");
+        ImmutableSet<String> v2 = v1.added("c").removed("a");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), v1);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("b", "c")), v2);
+        Assert.assertSame(v1, v1.added("a"));
+        Assert.assertSame(v1, ImmutableSet.copy(v1));
+    }
+}
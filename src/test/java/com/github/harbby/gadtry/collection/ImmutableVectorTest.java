@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ImmutableVectorTest
+{
+    @Test
+    public void appendAndPopTest()
+    {
+        int size = 32 * 32 * 32 + 100;
+        List<Integer> expected = new ArrayList<>();
+        ImmutableVector<Integer> vector = ImmutableVector.empty();
+        for (int i = 0; i < size; i++) {
+            expected.add(i);
+            vector = vector.appended(i);
+        }
+        Assert.assertEquals(expected, vector);
+        for (int i = 0; i < size; i += 97) {
+            Assert.assertEquals(i, (int) vector.get(i));
+        }
+        while (!expected.isEmpty()) {
+            expected.remove(expected.size() - 1);
+            vector = vector.removedLast();
+            Assert.assertEquals(expected.size(), vector.size());
+            if (!expected.isEmpty()) {
+                Assert.assertEquals(expected.get(expected.size() - 1), vector.get(vector.size() - 1));
+            }
+        }
+        Assert.assertTrue(vector.isEmpty());
+    }
+
+    @Test
+    public void popThenAppendTest()
+    {
+        ImmutableVector<Integer> vector = ImmutableVector.copyOf(IntStream.range(0, 32 * 32 + 33).boxed().collect(Collectors.toList()));
+        for (int i = 0; i < 40; i++) {
+            vector = vector.removedLast();
+        }
+        for (int i = 0; i < 40; i++) {
+            vector = vector.appended(-i);
+        }
+        List<Integer> expected = IntStream.range(0, 32 * 32 - 7).boxed().collect(Collectors.toList());
+        for (int i = 0; i < 40; i++) {
+            expected.add(-i);
+        }
+        Assert.assertEquals(expected, vector);
+    }
+
+    @Test
+    public void updatedTest()
+    {
+        ImmutableVector<Integer> v1 = ImmutableVector.copyOf(IntStream.range(0, 2000).boxed().collect(Collectors.toList()));
+        ImmutableVector<Integer> v2 = v1.updated(5, -5).updated(1999, -1999);
+        Assert.assertEquals(5, (int) v1.get(5));
+        Assert.assertEquals(1999, (int) v1.get(1999));
+        Assert.assertEquals(-5, (int) v2.get(5));
+        Assert.assertEquals(-1999, (int) v2.get(1999));
+        Assert.assertEquals(v1.subList(6, 1999), v2.subList(6, 1999));
+    }
+
+    @Test
+    public void vectorOfTest()
+    {
+        Assert.assertEquals(Arrays.asList(1, 2, 3), ImmutableVector.vectorOf(1, 2, 3));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void removedLastOnEmptyTest()
+    {
+        ImmutableVector.empty().removedLast();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBoundsTest()
+    {
+        ImmutableVector.vectorOf(1).get(1);
+    }
+}
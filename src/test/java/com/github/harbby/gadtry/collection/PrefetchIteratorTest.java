@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection;
+
+import com.github.harbby.gadtry.base.Iterators;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.harbby.gadtry.base.Throwables.throwsThrowable;
+
+public class PrefetchIteratorTest
+{
+    @Test
+    public void prefetchTest()
+            throws Exception
+    {
+        List<Integer> input = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        try (IteratorPlus<Integer> iterator = Iterators.wrap(input.iterator()).prefetch(4, 100)) {
+            Assert.assertEquals(input, MutableList.copy(iterator));
+            Assert.assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void eachIteratorPrefetchTest()
+            throws Exception
+    {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        EachIterator<Integer> source = new EachIterator<Integer>()
+        {
+            private int i = -1;
+
+            @Override
+            public boolean next()
+            {
+                return ++i < 1001;
+            }
+
+            @Override
+            public Integer current()
+            {
+                return i;
+            }
+
+            @Override
+            public void close()
+            {
+                closed.set(true);
+            }
+        };
+        try (IteratorPlus<Integer> iterator = source.prefetch(2, 10)) {
+            Assert.assertEquals(1001, iterator.size());
+        }
+        Assert.assertTrue(closed.get());
+    }
+
+    @Test
+    public void prefetchThrowSourceExceptionTest()
+            throws Exception
+    {
+        EachIterator<Integer> source = new EachIterator<Integer>()
+        {
+            private int i = -1;
+
+            @Override
+            public boolean next()
+            {
+                return ++i < 100;
+            }
+
+            @Override
+            public Integer current()
+            {
+                if (i == 50) {
+                    throw new IllegalStateException("read failed");
+                }
+                return i;
+            }
+        };
+        try (IteratorPlus<Integer> iterator = source.prefetch(2, 10)) {
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(i, iterator.next().intValue());
+            }
+            iterator.next();
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals("read failed", e.getMessage());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void prefetchSourceInterruptedTest()
+            throws Exception
+    {
+        Iterator<Integer> source = new Iterator<Integer>()
+        {
+            private int i = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return i < 100;
+            }
+
+            @Override
+            public Integer next()
+            {
+                if (i == 50) {
+                    Thread.currentThread().interrupt();
+                    throw throwsThrowable(new InterruptedException("source interrupted"));
+                }
+                return i++;
+            }
+        };
+        try (IteratorPlus<Integer> iterator = PrefetchIterator.of(source, 2, 10)) {
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(i, iterator.next().intValue());
+            }
+            iterator.hasNext();
+            Assert.fail();
+        }
+        catch (InterruptedException e) {
+            Assert.assertEquals("source interrupted", e.getMessage());
+            Assert.assertFalse(Thread.currentThread().isInterrupted());
+        }
+    }
+
+    @Test
+    public void closeBeforeExhaustedTest()
+            throws Exception
+    {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        IteratorPlus<Integer> source = new IteratorPlus<Integer>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return true;
+            }
+
+            @Override
+            public Integer next()
+            {
+                return 1;
+            }
+
+            @Override
+            public void close()
+                    throws IOException
+            {
+                closed.set(true);
+            }
+        };
+        IteratorPlus<Integer> iterator = source.prefetch(2, 16);
+        Assert.assertEquals(1, iterator.next().intValue());
+        iterator.close();
+        Assert.assertTrue(closed.get());
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test(timeout = 10_000)
+    public void closeWithSourceIgnoreInterruptTest()
+            throws Exception
+    {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        EachIterator<Integer> source = new EachIterator<Integer>()
+        {
+            private int i = -1;
+
+            @Override
+            public boolean next()
+            {
+                //blocking io source, clears the interrupt and goes on
+                try {
+                    TimeUnit.MILLISECONDS.sleep(200);
+                }
+                catch (InterruptedException ignored) {
+                }
+                i++;
+                return true;
+            }
+
+            @Override
+            public Integer current()
+            {
+                return i;
+            }
+
+            @Override
+            public void close()
+            {
+                closed.set(true);
+            }
+        };
+        IteratorPlus<Integer> iterator = source.prefetch(1, 1);
+        Assert.assertEquals(0, (int) iterator.next());
+        //close while the producer is inside the source with a full queue
+        TimeUnit.MILLISECONDS.sleep(300);
+        iterator.close();
+        Assert.assertTrue(closed.get());
+        Assert.assertFalse(iterator.hasNext());
+    }
+}
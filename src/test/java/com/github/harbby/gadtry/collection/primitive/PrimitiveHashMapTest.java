@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class PrimitiveHashMapTest
+{
+    @Test
+    public void long2ObjectMapRandomTest()
+    {
+        Random random = new Random(0);
+        Map<Long, String> expected = new HashMap<>();
+        Long2ObjectMap<String> map = new Long2ObjectMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = (random.nextInt(2_000) - 1_000) * 1_000_003L;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            }
+            else {
+                Assert.assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        Map<Long, String> iterated = new HashMap<>();
+        Long2ObjectMap<String>.Cursor cursor = map.cursor();
+        while (cursor.next()) {
+            iterated.put(cursor.key(), cursor.value());
+        }
+        Assert.assertEquals(expected, iterated);
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Assert.assertEquals("default", map.getOrDefault(1L, "default"));
+    }
+
+    @Test
+    public void int2IntMapRandomTest()
+    {
+        Random random = new Random(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Int2IntMap map = new Int2IntMap(16);
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(5_000) - 2_500;
+            switch (random.nextInt(3)) {
+                case 0:
+                    Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+                case 1:
+                    expected.put(key, i);
+                    map.put(key, i);
+                    break;
+                default:
+                    Assert.assertEquals((int) expected.merge(key, 1, Integer::sum), map.addTo(key, 1));
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        for (int key = -2_600; key < 2_600; key++) {
+            Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+            Assert.assertEquals((int) expected.getOrDefault(key, -1), map.getOrDefault(key, -1));
+        }
+    }
+
+    @Test
+    public void long2DoubleMapZeroKeyTest()
+    {
+        Long2DoubleMap map = new Long2DoubleMap();
+        map.put(0L, 1.5);
+        map.addTo(0L, 1.0);
+        map.addTo(7L, 0.5);
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(2.5, map.getOrDefault(0L, -1), 0);
+        Assert.assertEquals("{0=2.5, 7=0.5}", map.toString());
+        Assert.assertTrue(map.remove(0L));
+        Assert.assertFalse(map.containsKey(0L));
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.cursor().next());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void cursorBeforeNextTest()
+    {
+        new Int2LongMap().cursor().key();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+
+public class PrimitiveHashSetTest
+{
+    @Test
+    public void longHashSetRandomTest()
+    {
+        Random random = new Random(0);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet set = new LongHashSet();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), set.remove(key));
+            }
+            else {
+                Assert.assertEquals(expected.add(key), set.add(key));
+            }
+            Assert.assertEquals(expected.size(), set.size());
+        }
+        for (long key = -1_100; key < 1_100; key++) {
+            Assert.assertEquals(expected.contains(key), set.contains(key));
+        }
+        Set<Long> iterated = new HashSet<>();
+        PrimitiveIterator.OfLong iterator = set.iterator();
+        while (iterator.hasNext()) {
+            iterated.add(iterator.nextLong());
+        }
+        Assert.assertEquals(expected, iterated);
+    }
+
+    @Test
+    public void intHashSetTest()
+    {
+        IntHashSet set = IntHashSet.of(0, 1, -1, 1);
+        Assert.assertEquals(3, set.size());
+        Assert.assertTrue(set.contains(0));
+        Assert.assertTrue(set.remove(0));
+        Assert.assertFalse(set.contains(0));
+        int[] sum = {0};
+        set.forEach(x -> sum[0] += x);
+        Assert.assertEquals(0, sum[0]);
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+        Assert.assertFalse(set.iterator().hasNext());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.primitive;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class PrimitiveListTest
+{
+    @Test
+    public void intListTest()
+    {
+        IntList list = new IntList();
+        for (int i = 0; i < 100; i++) {
+            list.add(99 - i);
+        }
+        Assert.assertEquals(100, list.size());
+        Assert.assertEquals(99, list.get(0));
+        Assert.assertEquals(4950, list.stream().sum());
+        list.sort();
+        Assert.assertEquals(0, list.get(0));
+        Assert.assertEquals(99, list.removeLast());
+        Assert.assertEquals(5, list.set(5, -5));
+        Assert.assertEquals(5, list.indexOf(-5));
+        Assert.assertEquals(IntList.of(0, 1, 2), IntList.of(0, 1, 2));
+        Assert.assertEquals("[1, 2]", IntList.of(1, 2).toString());
+
+        PrimitiveIterator.OfInt iterator = list.iterator();
+        int sum = 0;
+        while (iterator.hasNext()) {
+            sum += iterator.nextInt();
+        }
+        Assert.assertEquals(4950 - 99 - 10, sum);
+    }
+
+    @Test
+    public void longListTest()
+    {
+        LongList list = LongList.of(3L, 1L);
+        list.addAll(new long[] {Long.MAX_VALUE, 2L});
+        Assert.assertArrayEquals(new long[] {3L, 1L, Long.MAX_VALUE, 2L}, list.toArray());
+        list.clear();
+        Assert.assertTrue(list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBoundsTest()
+    {
+        IntList list = new IntList(10);
+        list.add(1);
+        list.get(1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void removeLastOnEmptyTest()
+    {
+        new LongList().removeLast();
+    }
+}
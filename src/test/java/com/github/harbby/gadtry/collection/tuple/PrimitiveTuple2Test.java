@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrimitiveTuple2Test
+{
+    @Test
+    public void objLongTuple2Test()
+    {
+        ObjLongTuple2<String> tuple = ObjLongTuple2.of("k1", 1L);
+        Assert.assertEquals("k1", tuple.f1());
+        Assert.assertEquals(1L, tuple.f2());
+        Assert.assertEquals("(k1, 1)", tuple.toString());
+        Assert.assertEquals(2, tuple.getArity());
+        Assert.assertEquals(1L, tuple.<Long>getField(2).longValue());
+        Assert.assertEquals(tuple, tuple.copy());
+        Assert.assertEquals(tuple.hashCode(), tuple.copy().hashCode());
+        Assert.assertNotEquals(tuple, ObjLongTuple2.of("k1", 2L));
+        try {
+            tuple.getField(3);
+            Assert.fail();
+        }
+        catch (IndexOutOfBoundsException e) {
+            Assert.assertEquals("3", e.getMessage());
+        }
+    }
+
+    @Test
+    public void objIntTuple2Test()
+    {
+        ObjIntTuple2<String> tuple = ObjIntTuple2.of(null, 1);
+        Assert.assertNull(tuple.f1());
+        Assert.assertEquals(1, tuple.f2());
+        Assert.assertEquals(tuple, tuple.copy());
+        Assert.assertEquals(tuple.hashCode(), ObjIntTuple2.of(null, 1).hashCode());
+    }
+
+    @Test
+    public void longLongTuple2Test()
+    {
+        LongLongTuple2 tuple = LongLongTuple2.of(1L, 2L);
+        Assert.assertEquals(1L, tuple.<Long>getField(1).longValue());
+        Assert.assertEquals(tuple, tuple.copy());
+        Assert.assertNotEquals(tuple, LongLongTuple2.of(2L, 1L));
+        Assert.assertEquals("(1, 2)", tuple.toString());
+    }
+
+    @Test
+    public void intDoubleTuple2Test()
+    {
+        IntDoubleTuple2 tuple = IntDoubleTuple2.of(1, Double.NaN);
+        Assert.assertEquals(tuple, tuple.copy());
+        Assert.assertNotEquals(tuple, IntDoubleTuple2.of(1, 0.0));
+        Assert.assertNotEquals(tuple, LongLongTuple2.of(1, 0));
+        Assert.assertEquals(1, tuple.<Integer>getField(1).intValue());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import com.github.harbby.gadtry.base.Serializables;
+import com.github.harbby.gadtry.collection.EachIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TupleSerializerTest
+{
+    private final TupleSerializer<Tuple2<Integer, String>> inner = TupleSerializer.of(FieldCodec.varInt(), FieldCodec.string());
+    private final TupleSerializer<Tuple4<Long, Double, Tuple2<Integer, String>, String>> serializer = TupleSerializer.of(
+            FieldCodec.varLong(), FieldCodec.doubleCodec(), inner, FieldCodec.nullable(FieldCodec.string()));
+
+    @Test
+    public void roundTripTest()
+            throws IOException
+    {
+        Tuple4<Long, Double, Tuple2<Integer, String>, String> tuple = Tuple4.of(-1L, 2.5, Tuple2.of(Integer.MIN_VALUE, "中文"), null);
+        byte[] bytes = serializer.serialize(tuple);
+        Assert.assertEquals(tuple, serializer.deserialize(bytes));
+        Assert.assertTrue(bytes.length < Serializables.serialize(tuple).length);
+    }
+
+    @Test
+    public void byteBufferReadLineTest()
+            throws IOException
+    {
+        FieldCodec<String> lineCodec = new FieldCodec<String>()
+        {
+            @Override
+            public void encode(String value, DataOutput out)
+                    throws IOException
+            {
+                out.writeBytes(value);
+            }
+
+            @Override
+            public String decode(DataInput in)
+                    throws IOException
+            {
+                return in.readLine();
+            }
+        };
+        TupleSerializer<Tuple3<String, String, String>> lines = TupleSerializer.of(lineCodec, lineCodec, lineCodec);
+        byte[] bytes = "a\rb\r\nc\nd".getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        Tuple3<String, String, String> tuple = lines.read(buffer);
+        Assert.assertEquals(Tuple3.of("a", "b", "c"), tuple);
+        Assert.assertEquals(1, buffer.remaining());
+
+        //same as DataInputStream, null at the end of input
+        DataInputStream expected = new DataInputStream(new ByteArrayInputStream("x".getBytes(StandardCharsets.ISO_8859_1)));
+        Assert.assertEquals(Tuple3.of(expected.readLine(), expected.readLine(), expected.readLine()),
+                lines.read(ByteBuffer.wrap("x".getBytes(StandardCharsets.ISO_8859_1))));
+    }
+
+    @Test
+    public void varIntTest()
+    {
+        TupleSerializer<Tuple2<Integer, Long>> numbers = TupleSerializer.of(FieldCodec.varInt(), FieldCodec.varLong());
+        Assert.assertEquals(2, numbers.serialize(Tuple2.of(-64, 63L)).length);
+        int[] ints = {0, 1, -1, 127, 128, -65, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        long[] longs = {0, 1, -1, Long.MAX_VALUE, Long.MIN_VALUE, 1L << 40};
+        for (int i = 0; i < ints.length; i++) {
+            Tuple2<Integer, Long> tuple = Tuple2.of(ints[i], longs[i % longs.length]);
+            Assert.assertEquals(tuple, numbers.deserialize(numbers.serialize(tuple)));
+        }
+    }
+
+    @Test
+    public void streamTest()
+            throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TupleSerializer.Writer<Tuple2<Integer, String>> writer = inner.writer(new DataOutputStream(bytes))) {
+            for (int i = 0; i < 100; i++) {
+                writer.write(Tuple2.of(i, "v" + i));
+            }
+        }
+        bytes.write(42);  //bytes after the end marker are not read
+        List<Tuple2<Integer, String>> out = new ArrayList<>();
+        EachIterator<Tuple2<Integer, String>> reader = inner.reader(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        while (reader.next()) {
+            out.add(reader.current());
+        }
+        Assert.assertEquals(100, out.size());
+        Assert.assertEquals(Tuple2.of(99, "v99"), out.get(99));
+    }
+
+    @Test
+    public void byteBufferTest()
+            throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        try (TupleSerializer.Writer<Tuple2<Integer, String>> writer = inner.writer(buffer)) {
+            writer.write(Tuple2.of(1, "a")).write(Tuple2.of(2, "b"));
+        }
+        inner.write(Tuple2.of(3, "c"), buffer);
+        buffer.flip();
+
+        EachIterator<Tuple2<Integer, String>> reader = inner.reader(buffer);
+        Assert.assertTrue(reader.next());
+        Assert.assertTrue(reader.next());
+        Assert.assertEquals(Tuple2.of(2, "b"), reader.current());
+        Assert.assertFalse(reader.next());
+        Assert.assertEquals(Tuple2.of(3, "c"), inner.read(buffer));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = IllegalArgumentException.class)
+    public void arityCheckTest()
+    {
+        TupleSerializer serializer = inner;
+        serializer.serialize(Tuple3.of(1, "a", 2));
+    }
+}
@@ -15,12 +15,17 @@
  */
 package com.github.harbby.gadtry.collection.tuple;
 
+import com.github.harbby.gadtry.base.Serializables;
 import com.github.harbby.gadtry.base.Streams;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 
 public class TupleTest
 {
@@ -74,4 +79,50 @@ public class TupleTest
             }
         }
     }
+
+    @Test
+    public void tupleHashCodeTest()
+            throws Exception
+    {
+        for (Class aClass : tupleClass) {
+            Constructor[] constructors = aClass.getConstructors();
+            int columnCnt = constructors[0].getParameterCount();
+            Object[] array = Streams.range(0, columnCnt).mapToObj(x -> x == 1 ? null : "v" + x).toArray();
+            Tuple tuple = (Tuple) constructors[0].newInstance(array);
+            //same hash as Objects.hash
+            Assert.assertEquals(Objects.hash(array), tuple.hashCode());
+            Assert.assertEquals(tuple.hashCode(), tuple.hashCode());
+            Tuple copy = Serializables.byteToObject(Serializables.serialize(tuple));
+            Assert.assertEquals(tuple.hashCode(), copy.hashCode());
+            Assert.assertEquals(tuple, copy);
+        }
+    }
+
+    @Test
+    public void tupleMutableElementEqualsTest()
+    {
+        List<String> list1 = new ArrayList<>();
+        List<String> list2 = new ArrayList<>(Collections.singletonList("a"));
+        Tuple3<String, List<String>, Integer> tuple1 = Tuple3.of("k", list1, 1);
+        Tuple3<String, List<String>, Integer> tuple2 = Tuple3.of("k", list2, 1);
+        Assert.assertNotEquals(tuple1.hashCode(), tuple2.hashCode());
+        Assert.assertNotEquals(tuple1, tuple2);
+        //hash is not cached by default, contents converge
+        list1.add("a");
+        Assert.assertEquals(tuple1, tuple2);
+        Assert.assertEquals(tuple1.hashCode(), tuple2.hashCode());
+    }
+
+    @Test
+    public void tupleCachedHashTest()
+    {
+        Tuple3<String, Integer, Long> tuple = Tuple3.ofCachedHash("k", 1, 2L);
+        Assert.assertEquals(Objects.hash("k", 1, 2L), tuple.hashCode());
+        Assert.assertEquals(tuple.hashCode(), tuple.hashCode());
+        Assert.assertEquals(Tuple3.of("k", 1, 2L), tuple);
+        Assert.assertEquals(tuple, tuple.copy());
+        Assert.assertEquals(tuple.hashCode(), tuple.copy().hashCode());
+        Assert.assertEquals(Objects.hash(1, 2, 3, 4, 5, 6, 7, 8, 9),
+                Tuple9.ofCachedHash(1, 2, 3, 4, 5, 6, 7, 8, 9).hashCode());
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.collection.tuple;
+
+import com.github.harbby.gadtry.base.Serializables;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TupleViewTest
+{
+    @Test
+    public void columnViewTest()
+    {
+        TupleView view = TupleView.ofColumns(new int[] {1, 2, 3}, new String[] {"a", "b", "c"}, new double[] {0.5, 1.5, 2.5});
+        Assert.assertEquals(3, view.rowCount());
+        Assert.assertEquals(3, view.getArity());
+        List<Tuple3<Integer, String, Double>> rows = new ArrayList<>();
+        long sum = 0;
+        while (view.next()) {
+            Assert.assertSame(view, view.current());
+            sum += view.getInt(1);
+            rows.add(view.copy());
+        }
+        Assert.assertEquals(6, sum);
+        Assert.assertEquals(Tuple3.of(2, "b", 1.5), rows.get(1));
+        Assert.assertFalse(view.next());
+
+        view.moveTo(2);
+        Assert.assertEquals("c", view.getField(2));
+        Assert.assertEquals(2.5, view.getDouble(3), 0);
+        Assert.assertEquals("(3, c, 2.5)", view.toString());
+    }
+
+    @Test
+    public void recordViewTest()
+    {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(3 * 16);
+        for (int i = 0; i < 3; i++) {
+            buffer.putInt(i).putLong(i * 10L).putInt(-i);
+        }
+        buffer.flip();
+        TupleView view = TupleView.ofRecords(buffer, TupleView.FieldType.INT, TupleView.FieldType.LONG, TupleView.FieldType.INT);
+        Assert.assertEquals(3, view.rowCount());
+        int row = 0;
+        while (view.next()) {
+            Assert.assertEquals(row, view.getInt(1));
+            Assert.assertEquals(row * 10L, view.getLong(2));
+            Assert.assertEquals(Tuple3.of(row, row * 10L, -row), view.copy());
+            row++;
+        }
+        Assert.assertEquals(3, row);
+    }
+
+    @Test
+    public void serializeAsTupleTest()
+            throws Exception
+    {
+        TupleView view = TupleView.ofColumns(new long[] {7L}, new Object[] {"x"}).moveTo(0);
+        byte[] bytes = Serializables.serialize(view);
+        Tuple2<Long, String> tuple = Serializables.byteToObject(bytes);
+        Assert.assertEquals(Tuple2.of(7L, "x"), tuple);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void columnLengthCheckTest()
+    {
+        TupleView.ofColumns(new int[2], new int[3]);
+    }
+
+    @Test
+    public void arityCheckTest()
+    {
+        Object[] columns = new Object[10];
+        Arrays.fill(columns, new int[1]);
+        try {
+            TupleView.ofColumns(columns);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("tuple arity must <= 9, but got 10", e.getMessage());
+        }
+        TupleView.FieldType[] fields = new TupleView.FieldType[10];
+        Arrays.fill(fields, TupleView.FieldType.INT);
+        try {
+            TupleView.ofRecords(ByteBuffer.allocate(40), fields);
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertEquals("tuple arity must <= 9, but got 10", e.getMessage());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void moveToOutOfBoundsTest()
+    {
+        TupleView.ofColumns(new int[2]).moveTo(2);
+    }
+}
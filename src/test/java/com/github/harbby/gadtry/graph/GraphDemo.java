@@ -142,6 +142,23 @@ public class GraphDemo
         Assert.assertEquals(9L, distances);
     }
 
+    @Test
+    public void test8ShortestPathReturn9AToC()
+    {
+        for (ShortestPathBuilder.Algorithm algorithm : ShortestPathBuilder.Algorithm.values()) {
+            Route<Void, EdgeData> route = graph.shortestPath()
+                    .algorithm(algorithm)
+                    .beginNode("A")
+                    .endNode("C")
+                    .weight(EdgeData::getDistance)
+                    .heuristic(node -> 0)
+                    .search()
+                    .get();
+            Assert.assertEquals(9L, getRouteDistance(route));
+            Assert.assertEquals("A-B-C", String.join("-", route.getIds()));
+        }
+    }
+
     @Test
     public void test9SearchMinRouteReturn9BToB()
     {
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public class ParallelSearchTest
+{
+    static Graph<Void, Void> createGraph(boolean compact, int nodes, int edges)
+    {
+        Random random = new Random(0);
+        Graph.GraphBuilder<Void, Void> builder = Graph.builder();
+        com.github.harbby.gadtry.graph.impl.CsrGraph.Builder<Void, Void> csrBuilder = Graph.compactBuilder();
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode(String.valueOf(i));
+            csrBuilder.addNode(String.valueOf(i));
+        }
+        for (int i = 0; i < edges; i++) {
+            String in = String.valueOf(random.nextInt(nodes));
+            String out = String.valueOf(random.nextInt(nodes));
+            builder.addEdge(in, out);
+            csrBuilder.addEdge(in, out);
+        }
+        return compact ? csrBuilder.create() : builder.create();
+    }
+
+    private static List<String> search(Graph<Void, Void> graph, SearchBuilder.Optimizer optimizer)
+    {
+        return graph.search()
+                .optimizer(optimizer)
+                .beginNode("1")
+                .nextRule(route -> route.size() <= 3 && !route.findDeadLoop())
+                .search()
+                .getRoutes().stream()
+                .map(route -> String.join("-", route.getIds()))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void sameResultAsBreadthFirstTest()
+    {
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph<Void, Void> graph = createGraph(compact, 300, 4000);
+            List<String> expected = search(graph, SearchBuilder.Optimizer.BREADTH_FIRST);
+            Assert.assertTrue(expected.size() > 1000);
+            Assert.assertEquals(expected, search(graph, SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST));
+        }
+    }
+
+    @Test
+    public void globalRuleStopTest()
+    {
+        Graph<Void, Void> graph = createGraph(true, 300, 2000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SearchResult<Void, Void> result = graph.search()
+                    .optimizer(SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST)
+                    .parallelism(pool)
+                    .beginNode("1")
+                    .nextRule(route -> !route.findDeadLoop())
+                    .globalRule(context -> context.getFindNodeNumber() < 500)
+                    .search();
+            //workers stop at their next step, a few more steps may be taken concurrently
+            Assert.assertTrue(result.getFindNodeNumber() >= 500);
+            Assert.assertTrue(result.getFindNodeNumber() < 600);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void globalRuleLastRouteStopTest()
+    {
+        Graph<Void, Void> graph = createGraph(true, 300, 2000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                Set<Route<Void, Void>> seen = ConcurrentHashMap.newKeySet();
+                SearchResult<Void, Void> result = graph.search()
+                        .optimizer(SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST)
+                        .parallelism(pool)
+                        .beginNode("1")
+                        .nextRule(route -> !route.findDeadLoop())
+                        .globalRule(context -> {
+                            Assert.assertTrue(seen.add(context.getLastRoute()));
+                            return !"7".equals(context.getLastRoute().getLastNodeId());
+                        })
+                        .search();
+                //every route is seen by globalRule exactly once, the search stops soon after reaching node 7
+                Assert.assertEquals(result.getFindNodeNumber(), seen.size());
+                Assert.assertTrue(seen.stream().anyMatch(route -> "7".equals(route.getLastNodeId())));
+                Assert.assertTrue(result.getFindNodeNumber() < 100_000);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void visitOnceTest()
+    {
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph<Void, Void> graph = createGraph(compact, 2000, 3000);
+            Set<String> reachable = new HashSet<>();
+            Deque<Node<Void, Void>> stack = new ArrayDeque<>();
+            stack.push(graph.getNode("1"));
+            reachable.add("1");
+            while (!stack.isEmpty()) {
+                for (Edge<Void, Void> edge : stack.pop().nextNodes()) {
+                    if (reachable.add(edge.getOutNode().getId())) {
+                        stack.push(edge.getOutNode());
+                    }
+                }
+            }
+
+            List<Route<Void, Void>> routes = graph.search()
+                    .optimizer(SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST)
+                    .visitOnce()
+                    .beginNode("1")
+                    .nextRule(route -> true)
+                    .search()
+                    .getRoutes();
+            Set<String> found = routes.stream().map(Route::getLastNodeId).collect(Collectors.toSet());
+            found.add("1");
+            Assert.assertEquals(reachable.size() - 1, routes.size());
+            Assert.assertEquals(reachable, found);
+        }
+    }
+
+    @Test
+    public void visitOnceAfterNextRuleTest()
+    {
+        Graph<Void, String> graph = Graph.<Void, String>builder()
+                .addNode("A").addNode("B").addNode("C")
+                .addEdge("A", "B", "bad")
+                .addEdge("A", "C", "good")
+                .addEdge("C", "B", "good")
+                .create();
+        List<String> routes = graph.search()
+                .optimizer(SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST)
+                .visitOnce()
+                .beginNode("A")
+                .nextRule(route -> !"bad".equals(route.getLastEdge().getData()))
+                .search()
+                .getRoutes().stream()
+                .map(route -> String.join("-", route.getIds()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("A-C", "A-C-B"), routes);
+    }
+
+    @Test
+    public void visitOnceDeterministicTest()
+    {
+        Graph<Void, Void> graph = createGraph(true, 2000, 6000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> expected = null;
+            for (int i = 0; i < 5; i++) {
+                List<String> routes = graph.search()
+                        .optimizer(SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST)
+                        .parallelism(pool)
+                        .visitOnce()
+                        .beginNode("1")
+                        .nextRule(route -> !route.getLastNodeId().endsWith("7"))
+                        .search()
+                        .getRoutes().stream()
+                        .map(route -> String.join("-", route.getIds()))
+                        .collect(Collectors.toList());
+                if (expected == null) {
+                    expected = routes;
+                    Assert.assertTrue(expected.size() > 100);
+                }
+                Assert.assertEquals(expected, routes);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+}
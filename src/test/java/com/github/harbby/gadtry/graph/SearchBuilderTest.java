@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.github.harbby.gadtry.graph.ParallelSearchTest.createGraph;
+
+public class SearchBuilderTest
+{
+    private static Set<String> reachable(Graph<Void, Void> graph, String begin)
+    {
+        Set<String> reachable = new HashSet<>();
+        Deque<Node<Void, Void>> stack = new ArrayDeque<>();
+        stack.push(graph.getNode(begin));
+        reachable.add(begin);
+        while (!stack.isEmpty()) {
+            for (Edge<Void, Void> edge : stack.pop().nextNodes()) {
+                if (reachable.add(edge.getOutNode().getId())) {
+                    stack.push(edge.getOutNode());
+                }
+            }
+        }
+        return reachable;
+    }
+
+    @Test
+    public void visitOnceTest()
+    {
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph<Void, Void> graph = createGraph(compact, 2000, 3000);
+            Set<String> reachable = reachable(graph, "1");
+            for (SearchBuilder.Optimizer optimizer : SearchBuilder.Optimizer.values()) {
+                SearchResult<Void, Void> result = graph.search()
+                        .optimizer(optimizer)
+                        .visitOnce()
+                        .beginNode("1")
+                        .nextRule(route -> true)
+                        .search();
+                List<Route<Void, Void>> routes = result.getRoutes();
+                Set<String> found = routes.stream().map(Route::getLastNodeId).collect(Collectors.toSet());
+                found.add("1");
+                Assert.assertEquals(reachable.size() - 1, routes.size());
+                Assert.assertEquals(reachable, found);
+                //skipped edges do not call nextRule, the parallel search merges nodes found twice by one level
+                if (optimizer == SearchBuilder.Optimizer.PARALLEL_BREADTH_FIRST) {
+                    Assert.assertTrue(routes.size() <= result.getFindNodeNumber());
+                }
+                else {
+                    Assert.assertEquals(routes.size(), result.getFindNodeNumber());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void visitOnceEdgeDataRuleTest()
+    {
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph.GraphBuilder<Void, String> builder = Graph.builder();
+            com.github.harbby.gadtry.graph.impl.CsrGraph.Builder<Void, String> csrBuilder = Graph.compactBuilder();
+            for (String id : new String[] {"A", "B", "C"}) {
+                builder.addNode(id);
+                csrBuilder.addNode(id);
+            }
+            builder.addEdge("A", "B", "bad").addEdge("A", "C", "good").addEdge("C", "B", "good");
+            csrBuilder.addEdge("A", "B", "bad").addEdge("A", "C", "good").addEdge("C", "B", "good");
+            Graph<Void, String> graph = compact ? csrBuilder.create() : builder.create();
+            for (SearchBuilder.Optimizer optimizer : SearchBuilder.Optimizer.values()) {
+                Set<String> routes = graph.search()
+                        .optimizer(optimizer)
+                        .visitOnce()
+                        .beginNode("A")
+                        .nextRule(route -> !"bad".equals(route.getLastEdge().getData()))
+                        .search()
+                        .getRoutes().stream()
+                        .map(route -> String.join("-", route.getIds()))
+                        .collect(Collectors.toSet());
+                Assert.assertEquals(optimizer.name(), new HashSet<>(Arrays.asList("A-C", "A-C-B")), routes);
+            }
+        }
+    }
+
+    @Test
+    public void visitOnceRandomRuleTest()
+    {
+        //nodes ending with 7 are rejected, every other node reachable through accepted routes must be found
+        Graph<Void, Void> graph = createGraph(true, 2000, 6000);
+        Set<String> expected = new HashSet<>();
+        Deque<Node<Void, Void>> stack = new ArrayDeque<>();
+        stack.push(graph.getNode("1"));
+        while (!stack.isEmpty()) {
+            for (Edge<Void, Void> edge : stack.pop().nextNodes()) {
+                String id = edge.getOutNode().getId();
+                if (!id.endsWith("7") && !id.equals("1") && expected.add(id)) {
+                    stack.push(edge.getOutNode());
+                }
+            }
+        }
+        for (SearchBuilder.Optimizer optimizer : SearchBuilder.Optimizer.values()) {
+            Set<String> found = graph.search()
+                    .optimizer(optimizer)
+                    .visitOnce()
+                    .beginNode("1")
+                    .nextRule(route -> !route.getLastNodeId().endsWith("7"))
+                    .search()
+                    .getRoutes().stream()
+                    .map(Route::getLastNodeId)
+                    .collect(Collectors.toSet());
+            Assert.assertEquals(optimizer.name(), expected, found);
+        }
+    }
+
+    @Test
+    public void visitOnceBreadthFirstShortestTest()
+    {
+        Graph<Void, Void> graph = createGraph(true, 500, 1500);
+        List<Route<Void, Void>> all = graph.search()
+                .optimizer(SearchBuilder.Optimizer.BREADTH_FIRST)
+                .beginNode("1")
+                .nextRule(route -> route.size() <= 3 && !route.findDeadLoop())
+                .search()
+                .getRoutes();
+        List<Route<Void, Void>> once = graph.search()
+                .optimizer(SearchBuilder.Optimizer.BREADTH_FIRST)
+                .visitOnce()
+                .beginNode("1")
+                .nextRule(route -> route.size() <= 3)
+                .search()
+                .getRoutes();
+        for (Route<Void, Void> route : once) {
+            int shortest = all.stream()
+                    .filter(x -> x.getLastNodeId().equals(route.getLastNodeId()))
+                    .mapToInt(Route::size)
+                    .min().getAsInt();
+            Assert.assertEquals(shortest, route.size());
+        }
+    }
+
+    @Test
+    public void skipCyclesTest()
+    {
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph<Void, Void> graph = createGraph(compact, 100, 400);
+            for (SearchBuilder.Optimizer optimizer : SearchBuilder.Optimizer.values()) {
+                List<String> expected = graph.search()
+                        .optimizer(optimizer)
+                        .beginNode("1")
+                        .nextRule(route -> route.size() <= 4 && !route.findDeadLoop())
+                        .search()
+                        .getRoutes().stream()
+                        .map(route -> String.join("-", route.getIds()))
+                        .collect(Collectors.toList());
+                Assert.assertTrue(expected.size() > 100);
+
+                SearchResult<Void, Void> result = graph.search()
+                        .optimizer(optimizer)
+                        .skipCycles()
+                        .beginNode("1")
+                        .nextRule(route -> {
+                            Assert.assertFalse(route.findDeadLoop());
+                            return route.size() <= 4;
+                        })
+                        .search();
+                List<String> found = result.getRoutes().stream()
+                        .map(route -> String.join("-", route.getIds()))
+                        .collect(Collectors.toList());
+                Assert.assertEquals(optimizer.name(), expected, found);
+            }
+        }
+    }
+
+    @Test
+    public void containsNodeTest()
+    {
+        Graph<Void, Void> graph = Graph.<Void, Void>builder()
+                .addNode("a").addNode("b").addNode("c")
+                .addEdge("a", "b").addEdge("b", "c").addEdge("c", "a")
+                .create();
+        Node<Void, Void> a = graph.getNode("a");
+        Edge<Void, Void> ab = a.getNextNode("b").get();
+        Edge<Void, Void> bc = graph.getNode("b").getNextNode("c").get();
+        Edge<Void, Void> ca = graph.getNode("c").getNextNode("a").get();
+
+        Route<Void, Void> route = Route.builder(a).create();
+        Assert.assertTrue(route.containsNode("a"));
+        Assert.assertFalse(route.containsNode("b"));
+
+        Route<Void, Void> abc = route.append(ab).append(bc);
+        Assert.assertTrue(abc.containsNode("b"));
+        Assert.assertTrue(abc.containsNode("c"));
+        Assert.assertFalse(abc.findDeadLoop());
+        Route<Void, Void> loop = abc.append(ca);
+        Assert.assertTrue(loop.findDeadLoop());
+        Assert.assertTrue(abc.containsNode("a"));
+        Assert.assertFalse(abc.containsNode("d"));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph;
+
+import com.github.harbby.gadtry.graph.impl.CsrGraph;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+public class ShortestPathBuilderTest
+{
+    private static final int NODES = 200;
+
+    private static Graph<Void, Double> createGraph(boolean compact, int[][] edges, double[] weights)
+    {
+        Graph.GraphBuilder<Void, Double> builder = Graph.builder();
+        CsrGraph.Builder<Void, Double> csrBuilder = Graph.compactBuilder();
+        for (int i = 0; i < NODES; i++) {
+            builder.addNode(String.valueOf(i));
+            csrBuilder.addNode(String.valueOf(i));
+        }
+        for (int i = 0; i < edges.length; i++) {
+            builder.addEdge(String.valueOf(edges[i][0]), String.valueOf(edges[i][1]), weights[i]);
+            csrBuilder.addEdge(String.valueOf(edges[i][0]), String.valueOf(edges[i][1]), weights[i]);
+        }
+        return compact ? csrBuilder.create() : builder.create();
+    }
+
+    /**
+     * bellman-ford as reference
+     */
+    private static double[] distances(int[][] edges, double[] weights, int begin)
+    {
+        double[] distances = new double[NODES];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[begin] = 0;
+        for (int round = 0; round < NODES; round++) {
+            for (int i = 0; i < edges.length; i++) {
+                distances[edges[i][1]] = Math.min(distances[edges[i][1]], distances[edges[i][0]] + weights[i]);
+            }
+        }
+        return distances;
+    }
+
+    private static double getRouteDistance(Route<Void, Double> route)
+    {
+        return route.getEdges().stream().mapToDouble(Edge::getData).sum();
+    }
+
+    @Test
+    public void sameDistanceAsBellmanFordTest()
+    {
+        Random random = new Random(0);
+        int[][] edges = new int[600][];
+        double[] weights = new double[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            //duplicate edges keep the last one, avoid them
+            int in = random.nextInt(NODES);
+            int out = (in + 1 + random.nextInt(NODES - 1)) % NODES;
+            edges[i] = new int[] {in, out};
+            weights[i] = random.nextInt(100);
+            for (int j = 0; j < i; j++) {
+                if (edges[j][0] == in && edges[j][1] == out) {
+                    weights[i] = weights[j];
+                }
+            }
+        }
+        double[] expected = distances(edges, weights, 0);
+        int reachable = 0;
+        for (boolean compact : new boolean[] {true, false}) {
+            Graph<Void, Double> graph = createGraph(compact, edges, weights);
+            for (ShortestPathBuilder.Algorithm algorithm : ShortestPathBuilder.Algorithm.values()) {
+                for (int end = 1; end < NODES; end++) {
+                    Optional<Route<Void, Double>> route = graph.shortestPath()
+                            .algorithm(algorithm)
+                            .beginNode("0")
+                            .endNode(String.valueOf(end))
+                            .weight(Double::doubleValue)
+                            .heuristic(node -> 0)
+                            .search();
+                    if (Double.isInfinite(expected[end])) {
+                        Assert.assertFalse(route.isPresent());
+                        continue;
+                    }
+                    reachable++;
+                    Assert.assertEquals(algorithm.name(), expected[end], getRouteDistance(route.get()), 0);
+                    Assert.assertEquals("0", route.get().getIds().get(0));
+                    Assert.assertEquals(String.valueOf(end), route.get().getLastNodeId());
+                }
+            }
+        }
+        Assert.assertTrue(reachable > 1000);
+    }
+
+    @Test
+    public void aStarGridTest()
+    {
+        //20x20 grid, node id is "x,y", weight is 1 for every step
+        int size = 20;
+        Graph.GraphBuilder<Void, Double> builder = Graph.builder();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                builder.addNode(x + "," + y);
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (x + 1 < size) {
+                    builder.addEdge(x + "," + y, (x + 1) + "," + y, 1.0);
+                    builder.addEdge((x + 1) + "," + y, x + "," + y, 1.0);
+                }
+                if (y + 1 < size && !(y == 9 && x > 0)) {
+                    builder.addEdge(x + "," + y, x + "," + (y + 1), 1.0);
+                    builder.addEdge(x + "," + (y + 1), x + "," + y, 1.0);
+                }
+            }
+        }
+        Graph<Void, Double> graph = builder.create();
+        //wall between row 9 and row 10, the only way through is x = 0
+        Route<Void, Double> dijkstra = graph.shortestPath()
+                .beginNode("19,0").endNode("19,19")
+                .weight(Double::doubleValue)
+                .search().get();
+        Route<Void, Double> aStar = graph.shortestPath()
+                .algorithm(ShortestPathBuilder.Algorithm.A_STAR)
+                .beginNode("19,0").endNode("19,19")
+                .weight(Double::doubleValue)
+                .heuristic(node -> {
+                    String[] xy = node.getId().split(",");
+                    return Math.abs(19 - Integer.parseInt(xy[0])) + Math.abs(19 - Integer.parseInt(xy[1]));
+                })
+                .search().get();
+        Assert.assertEquals(19 + 19 + 19, dijkstra.size());
+        Assert.assertEquals(dijkstra.size(), aStar.size());
+        Assert.assertTrue(aStar.containsNode("0,10"));
+    }
+
+    @Test
+    public void unreachableAndSameNodeTest()
+    {
+        Graph<Void, Double> graph = Graph.<Void, Double>builder()
+                .addNode("a").addNode("b").addNode("c")
+                .addEdge("a", "b", 1.0)
+                .create();
+        for (ShortestPathBuilder.Algorithm algorithm : ShortestPathBuilder.Algorithm.values()) {
+            ShortestPathBuilder<Void, Double> builder = graph.shortestPath()
+                    .algorithm(algorithm)
+                    .weight(Double::doubleValue)
+                    .heuristic(node -> 0);
+            Assert.assertFalse(builder.beginNode("a").endNode("c").search().isPresent());
+            Assert.assertFalse(builder.beginNode("b").endNode("a").search().isPresent());
+            Route<Void, Double> route = builder.beginNode("a").endNode("a").search().get();
+            Assert.assertEquals(0, route.size());
+            Assert.assertEquals("a", route.getLastNodeId());
+        }
+    }
+
+    @Test
+    public void negativeWeightTest()
+    {
+        Graph<Void, Double> graph = Graph.<Void, Double>builder()
+                .addNode("a").addNode("b")
+                .addEdge("a", "b", -1.0)
+                .create();
+        try {
+            graph.shortestPath().beginNode("a").endNode("b").weight(Double::doubleValue).search();
+            Assert.fail();
+        }
+        catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("must >= 0"));
+        }
+    }
+
+    @Test
+    public void csrInEdgesTest()
+    {
+        CsrGraph<Void, Void> graph = Graph.<Void, Void>compactBuilder()
+                .addNode("a").addNode("b").addNode("c")
+                .addEdge("a", "c").addEdge("b", "c").addEdge("c", "a")
+                .create();
+        Assert.assertEquals(2, graph.inEdges(graph.indexOf("c")).size());
+        Assert.assertEquals("a", graph.inEdges(graph.indexOf("c")).get(0).getInNode().getId());
+        Assert.assertEquals("b", graph.inEdges(graph.indexOf("c")).get(1).getInNode().getId());
+        Assert.assertEquals("c", graph.inEdges(graph.indexOf("a")).get(0).getInNode().getId());
+        Assert.assertTrue(graph.inEdges(graph.indexOf("b")).isEmpty());
+        Assert.assertTrue(graph.inEdges(graph.nodeCount()).isEmpty());
+    }
+}
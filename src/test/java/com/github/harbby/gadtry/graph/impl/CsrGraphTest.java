@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.graph.impl;
+
+import com.github.harbby.gadtry.base.Serializables;
+import com.github.harbby.gadtry.graph.Edge;
+import com.github.harbby.gadtry.graph.Graph;
+import com.github.harbby.gadtry.graph.Node;
+import com.github.harbby.gadtry.graph.Route;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class CsrGraphTest
+{
+    private final CsrGraph<String, Integer> graph = Graph.<String, Integer>compactBuilder()
+            .name("csr")
+            .addNode("a1", "data1")
+            .addNode("a2")
+            .addNode("a3")
+            .addNode("a4")
+            .addNode("a5")
+            .addEdge("a1", "a3", 1)
+            .addEdge("a1", "a2", 2)
+            .addEdge("a2", "a4")
+            .addEdge("a2", "a5", 3)
+            .addEdge("a2", "a5", 4)
+            .addEdge("a5", "a2", 5)
+            .create();
+
+    @Test
+    public void nodeAndEdgeTest()
+    {
+        Assert.assertEquals("csr", graph.getName());
+        Assert.assertEquals(5, graph.nodeCount());
+        Assert.assertEquals(5, graph.edgeCount());
+        Assert.assertEquals("data1", graph.getNode("a1").getData());
+
+        Node<String, Integer> a2 = graph.getNode("a2");
+        Assert.assertEquals(a2, graph.getNode(graph.indexOf("a2")));
+        Assert.assertEquals(1, graph.indexOf(a2));
+        Assert.assertEquals(-1, graph.indexOf("a100"));
+        Assert.assertEquals(Arrays.asList("a4", "a5"), a2.nextNodes().stream().map(x -> x.getOutNode().getId()).collect(Collectors.toList()));
+        //duplicate edge keeps the last one
+        Edge<String, Integer> edge = a2.getNextNode("a5").get();
+        Assert.assertEquals(4, (int) edge.getData());
+        Assert.assertEquals(a2, edge.getInNode());
+        Assert.assertFalse(a2.getNextNode("a1").isPresent());
+        Assert.assertFalse(a2.getNextNode("a100").isPresent());
+        Assert.assertNull(a2.getNextNode("a4").get().getData());
+        Assert.assertEquals("node:a2", a2.toString());
+
+        //a1 is the only node without in-edges
+        List<String> lines = graph.printShow();
+        Assert.assertEquals(7, lines.size());
+        Assert.assertEquals("├────a1", lines.get(1));
+        try {
+            graph.getNode("a100");
+            Assert.fail();
+        }
+        catch (NullPointerException e) {
+            Assert.assertEquals("NO SUCH Node a100", e.getMessage());
+        }
+    }
+
+    @Test
+    public void routeTest()
+            throws Exception
+    {
+        Route<String, Integer> route = graph.getRoute("a1", "a2", "a5");
+        Assert.assertEquals(Arrays.asList("a1", "a2", "a5"), route.getIds());
+        Assert.assertEquals(route, graph.getRoute("a1", "a2", "a5"));
+        Assert.assertTrue(graph.getRoute("a2", "a5", "a2").findDeadLoop());
+        Assert.assertEquals(Arrays.asList("a1", "a2"), graph.findNode(node -> node.getData() != null || node.getId().equals("a2"))
+                .stream().map(Node::getId).collect(Collectors.toList()));
+
+        List<Route<String, Integer>> routes = graph.searchRuleRoute("a1", "a5", r -> !r.findDeadLoop());
+        Assert.assertEquals(1, routes.size());
+        Assert.assertEquals(5, graph.searchRuleRoute(r -> !r.findDeadLoop()).size());
+
+        CsrGraph<String, Integer> copy = Serializables.byteToObject(Serializables.serialize(graph));
+        Assert.assertEquals(Arrays.asList("a1", "a2", "a5"), copy.getRoute("a1", "a2", "a5").getIds());
+    }
+
+    @Test
+    public void sameSearchResultAsDefaultGraphTest()
+    {
+        Random random = new Random(0);
+        Graph.GraphBuilder<Void, Void> defaultBuilder = Graph.builder();
+        CsrGraph.Builder<Void, Void> csrBuilder = Graph.compactBuilder();
+        int nodes = 500;
+        for (int i = 0; i < nodes; i++) {
+            defaultBuilder.addNode(String.valueOf(i));
+            csrBuilder.addNode(String.valueOf(i));
+        }
+        for (int i = 0; i < 3000; i++) {
+            String in = String.valueOf(random.nextInt(nodes));
+            String out = String.valueOf(random.nextInt(nodes));
+            defaultBuilder.addEdge(in, out);
+            csrBuilder.addEdge(in, out);
+        }
+        Graph<Void, Void> defaultGraph = defaultBuilder.create();
+        Graph<Void, Void> csrGraph = csrBuilder.create();
+        for (String begin : Arrays.asList("0", "1", "7")) {
+            Assert.assertEquals(searchIds(defaultGraph, begin), searchIds(csrGraph, begin));
+        }
+        Assert.assertEquals(searchIds(defaultGraph, null), searchIds(csrGraph, null));
+    }
+
+    private static Set<String> searchIds(Graph<Void, Void> graph, String begin)
+    {
+        List<Route<Void, Void>> routes = begin == null ? graph.searchRuleRoute(route -> route.size() <= 2 && !route.findDeadLoop())
+                : graph.searchRuleRoute(begin, route -> route.size() <= 3 && !route.findDeadLoop());
+        return routes.stream().map(route -> String.join("-", route.getIds())).collect(Collectors.toSet());
+    }
+}
@@ -16,11 +16,18 @@
 package com.github.harbby.gadtry.graph.impl;
 
 import com.github.harbby.gadtry.graph.Edge;
+import com.github.harbby.gadtry.graph.Graph;
 import com.github.harbby.gadtry.graph.Node;
 import com.github.harbby.gadtry.graph.Route;
+import com.github.harbby.gadtry.graph.SearchBuilder;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
 import static com.github.harbby.gadtry.base.MoreObjects.checkState;
 
 public class RouteImplTest
@@ -39,6 +46,98 @@ public class RouteImplTest
         Assert.assertEquals(edge.toString(), "EdgeImpl{inNode=node:1, outNode=node:2, edgeData=null}");
     }
 
+    @Test
+    public void appendRouteTest()
+    {
+        Route<Void, Void> base = createTestRoute("1", "2");
+        Node<Void, Void> node3 = Node.<Void, Void>builder("3").build();
+        Node<Void, Void> node4 = Node.<Void, Void>builder("4").build();
+        Edge<Void, Void> edge23 = Edge.createEdge(base.getLastNode(), node3);
+        Edge<Void, Void> edge34 = Edge.createEdge(node3, node4);
+        Route<Void, Void> route3 = base.append(edge23);
+        Route<Void, Void> route4 = route3.append(edge34);
+
+        Assert.assertEquals(1, base.size());
+        Assert.assertEquals(3, route4.size());
+        Assert.assertEquals(Arrays.asList("1", "2", "3", "4"), route4.getIds());
+        Assert.assertEquals(Arrays.asList("1", "2", "3"), route3.getIds());
+        Assert.assertSame(edge34, route4.getLastEdge());
+        Assert.assertEquals("4", route4.getLastNode(0).getId());
+        Assert.assertEquals("3", route4.getLastNode(1).getId());
+        Assert.assertEquals("2", route4.getLastNode(2).getId());
+        Assert.assertEquals("1", route4.getLastNode(3).getId());
+        try {
+            route4.getLastNode(4);
+            Assert.fail();
+        }
+        catch (NoSuchElementException ignored) {
+        }
+        Assert.assertEquals(route4, base.copy().add(edge23).add(edge34).create());
+        Assert.assertEquals(route4.hashCode(), base.copy().add(edge23).add(edge34).create().hashCode());
+        Assert.assertFalse(route4.findDeadLoop());
+        Assert.assertTrue(route4.append(Edge.createEdge(node4, Node.<Void, Void>builder("2").build())).findDeadLoop());
+        Assert.assertTrue(route4.append(Edge.createEdge(node4, Node.<Void, Void>builder("1").build())).findDeadLoop());
+    }
+
+    @Test
+    public void builderReuseTest()
+    {
+        Node<Void, Void> a = Node.<Void, Void>builder("A").build();
+        Node<Void, Void> b = Node.<Void, Void>builder("B").build();
+        Node<Void, Void> c = Node.<Void, Void>builder("C").build();
+        Route.Builder<Void, Void> builder = Route.builder(a).add(Edge.createEdge(a, b));
+        Route<Void, Void> route = builder.create();
+        builder.add(Edge.createEdge(b, c));
+        Assert.assertEquals(1, route.size());
+        Assert.assertEquals("B", route.getLastNodeId());
+        Assert.assertEquals(Arrays.asList("A", "B"), route.getIds());
+
+        route.getEdges().add(Edge.createEdge(b, c));
+        Assert.assertEquals(1, route.getEdges().size());
+        Assert.assertEquals(Arrays.asList("A", "B", "C"), builder.create().getIds());
+    }
+
+    @Test
+    public void deepDepthFirstSearchTest()
+    {
+        Graph.GraphBuilder<Void, Void> builder = Graph.builder();
+        int depth = 100_000;
+        builder.addNode("0");
+        for (int i = 1; i < depth; i++) {
+            builder.addNode(String.valueOf(i));
+            builder.addEdge(String.valueOf(i - 1), String.valueOf(i));
+        }
+        Graph<Void, Void> graph = builder.create();
+        for (SearchBuilder.Optimizer optimizer : SearchBuilder.Optimizer.values()) {
+            List<Route<Void, Void>> routes = graph.search()
+                    .optimizer(optimizer)
+                    .beginNode("0")
+                    .nextRule(route -> true)
+                    .search()
+                    .getRoutes();
+            Assert.assertEquals(depth - 1, routes.size());
+            Assert.assertEquals(String.valueOf(depth - 1), routes.get(depth - 2).getLastNodeId());
+        }
+    }
+
+    @Test
+    public void recursiveDepthFirstOrderTest()
+    {
+        Graph<Void, Void> graph = Graph.<Void, Void>compactBuilder()
+                .addNode("a").addNode("b").addNode("c").addNode("d").addNode("e")
+                .addEdge("a", "b").addEdge("a", "c").addEdge("b", "d").addEdge("c", "e")
+                .create();
+        List<String> order = graph.search()
+                .optimizer(SearchBuilder.Optimizer.RECURSIVE_DEPTH_FIRST)
+                .beginNode("a")
+                .nextRule(route -> true)
+                .search()
+                .getRoutes().stream()
+                .map(route -> String.join("-", route.getIds()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("a-b", "a-b-d", "a-c", "a-c-e"), order);
+    }
+
     public static Route<Void, Void> createTestRoute(String... ids)
     {
         checkState(ids.length > 0);
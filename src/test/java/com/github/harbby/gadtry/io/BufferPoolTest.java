@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class BufferPoolTest
+{
+    @Test
+    public void heapReuseTest()
+    {
+        byte[] bytes = BufferPool.borrowBytes(5000);
+        Assert.assertEquals(8192, bytes.length);
+        BufferPool.release(bytes);
+        long hits = BufferPool.metrics().getHeapHits();
+        Assert.assertSame(bytes, BufferPool.borrowBytes(8000));
+        Assert.assertEquals(hits + 1, BufferPool.metrics().getHeapHits());
+        Assert.assertEquals(4096, BufferPool.borrowBytes(0).length);
+        //not pooled
+        Assert.assertEquals(3 * 1024 * 1024, BufferPool.borrowBytes(3 * 1024 * 1024).length);
+        BufferPool.release(new byte[100]);
+        Assert.assertEquals(4096, BufferPool.borrowBytes(100).length);
+    }
+
+    @Test
+    public void directReuseTest()
+    {
+        ByteBuffer buffer = BufferPool.borrowDirect(64 * 1024);
+        Assert.assertTrue(buffer.isDirect());
+        buffer.putInt(1).flip();
+        BufferPool.release(buffer);
+        ByteBuffer reused = BufferPool.borrowDirect(60_000);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(reused.capacity(), reused.limit());
+        Assert.assertTrue(BufferPool.metrics().getHitRate() > 0);
+    }
+
+    @Test
+    public void directBytesLimitTest()
+    {
+        BufferPool.clear();
+        ByteBuffer a = BufferPool.borrowDirect(1024 * 1024);
+        ByteBuffer b = BufferPool.borrowDirect(1024 * 1024);
+        ByteBuffer c = BufferPool.borrowDirect(512 * 1024);
+        BufferPool.release(a);
+        BufferPool.release(b);
+        //2MB per thread is cached already
+        BufferPool.release(c);
+        Assert.assertNotSame(c, BufferPool.borrowDirect(512 * 1024));
+        Assert.assertSame(b, BufferPool.borrowDirect(1024 * 1024));
+        BufferPool.release(c);
+        Assert.assertSame(c, BufferPool.borrowDirect(512 * 1024));
+        BufferPool.clear();
+    }
+
+    @Test
+    public void clearTest()
+    {
+        ByteBuffer buffer = BufferPool.borrowDirect(8192);
+        BufferPool.release(buffer);
+        byte[] bytes = BufferPool.borrowBytes(8192);
+        BufferPool.release(bytes);
+        BufferPool.clear();
+        Assert.assertNotSame(buffer, BufferPool.borrowDirect(8192));
+        Assert.assertNotSame(bytes, BufferPool.borrowBytes(8192));
+    }
+
+    @Test
+    public void pooledOutputStreamTest()
+    {
+        byte[] data = new byte[10_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        try (PooledByteArrayOutputStream out = new PooledByteArrayOutputStream(16)) {
+            out.write(data, 0, data.length);
+            out.write(7);
+            Assert.assertEquals(10_001, out.size());
+            byte[] bytes = out.toByteArray();
+            Assert.assertEquals(7, bytes[10_000]);
+            Assert.assertEquals(data[9_999], bytes[9_999]);
+            out.reset();
+            Assert.assertEquals(0, out.toByteArray().length);
+        }
+    }
+}
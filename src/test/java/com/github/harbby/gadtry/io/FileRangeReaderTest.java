@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class FileRangeReaderTest
+{
+    private static File createFile(int size)
+            throws IOException
+    {
+        File file = File.createTempFile("gadtry-ranges", ".bin");
+        file.deleteOnExit();
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    private static void assertRange(ByteBuffer buffer, long start, int length)
+    {
+        Assert.assertEquals(length, buffer.remaining());
+        for (int i = 0; i < length; i++) {
+            Assert.assertEquals((byte) ((start + i) % 251), buffer.get(buffer.position() + i));
+        }
+    }
+
+    @Test
+    public void coalescedReadTest()
+            throws IOException
+    {
+        File file = createFile(10_000);
+        try (FileRangeReader reader = FileRangeReader.open(file)) {
+            List<FileRangeReader.Range> ranges = Arrays.asList(
+                    FileRangeReader.Range.of(5000, 100),
+                    FileRangeReader.Range.of(0, 10),
+                    FileRangeReader.Range.of(20, 30),
+                    FileRangeReader.Range.of(40, 20),
+                    FileRangeReader.Range.of(9990, 100));
+            for (long maxGap : new long[] {-1, 0, 16, 100_000}) {
+                List<ByteBuffer> buffers = reader.read(ranges, maxGap);
+                assertRange(buffers.get(0), 5000, 100);
+                assertRange(buffers.get(1), 0, 10);
+                assertRange(buffers.get(2), 20, 30);
+                assertRange(buffers.get(3), 40, 20);
+                //end of file
+                assertRange(buffers.get(4), 9990, 10);
+            }
+            //coalesced ranges share one buffer
+            List<ByteBuffer> buffers = reader.read(ranges, 16);
+            Assert.assertSame(buffers.get(1).array(), buffers.get(2).array());
+            Assert.assertNotSame(buffers.get(1).array(), buffers.get(0).array());
+        }
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void concurrentViewTest()
+            throws Exception
+    {
+        File file = createFile(1024 * 1024);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (FileRangeReader reader = FileRangeReader.open(file)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                long start = i * 16384L;
+                futures.add(pool.submit(() -> {
+                    try (SeekableByteChannel channel = reader.range(start, 16384)) {
+                        ByteBuffer buffer = ByteBuffer.allocate(20000);
+                        int n = channel.read(buffer);
+                        while (n != -1) {
+                            n = channel.read(buffer);
+                        }
+                        buffer.flip();
+                        assertRange(buffer, start, 16384);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void reopenAfterInterruptTest()
+            throws IOException
+    {
+        File file = createFile(10_000);
+        try (FileRangeReader reader = FileRangeReader.open(file)) {
+            Thread.currentThread().interrupt();
+            try {
+                reader.read(0, 100);
+                Assert.fail();
+            }
+            catch (ClosedByInterruptException ignored) {
+                Assert.assertTrue(Thread.interrupted());
+            }
+            assertRange(reader.read(100, 100), 100, 100);
+            Assert.assertEquals(10_000, reader.size());
+        }
+        try (FileRangeReader reader = FileRangeReader.of(FileChannel.open(file.toPath()))) {
+            Thread.currentThread().interrupt();
+            try {
+                reader.read(0, 100);
+                Assert.fail();
+            }
+            catch (ClosedByInterruptException ignored) {
+                Assert.assertTrue(Thread.interrupted());
+            }
+            try {
+                reader.read(0, 100);
+                Assert.fail();
+            }
+            catch (ClosedChannelException ignored) {
+            }
+        }
+        Assert.assertTrue(file.delete());
+    }
+}
@@ -18,13 +18,23 @@ package com.github.harbby.gadtry.io;
 import com.github.harbby.gadtry.aop.AopGo;
 import com.github.harbby.gadtry.base.Platform;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Random;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -87,4 +97,90 @@ public class IOUtilsTest
             Assert.assertEquals(e.getMessage(), "Unable to write to output stream.");
         }
     }
+
+    private static byte[] randomBytes(int size)
+    {
+        byte[] bytes = new byte[size];
+        new Random(0).nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void copyFileTest()
+            throws IOException
+    {
+        File src = File.createTempFile("gadtry-io", ".bin");
+        File dst = File.createTempFile("gadtry-io", ".bin");
+        try {
+            byte[] bytes = randomBytes(3 * 1024 * 1024 + 7);
+            Files.write(src.toPath(), bytes);
+            Assert.assertEquals(bytes.length, IOUtils.copyFile(src, dst));
+            Assert.assertArrayEquals(bytes, Files.readAllBytes(dst.toPath()));
+
+            //file streams are copied with transferTo from the current position
+            try (FileInputStream in = new FileInputStream(src); FileOutputStream out = new FileOutputStream(dst)) {
+                Assert.assertEquals(10, in.skip(10));
+                IOUtils.copyBytes(in, out, 4096);
+                Assert.assertEquals(-1, in.read());
+            }
+            Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 10, bytes.length), Files.readAllBytes(dst.toPath()));
+        }
+        finally {
+            src.delete();
+            dst.delete();
+        }
+    }
+
+    @Test
+    public void readAllBytesFileTest()
+            throws IOException
+    {
+        File file = File.createTempFile("gadtry-io", ".bin");
+        try {
+            for (int size : new int[] {0, 100, 2 * 1024 * 1024}) {
+                byte[] bytes = randomBytes(size);
+                Files.write(file.toPath(), bytes);
+                Assert.assertArrayEquals(bytes, IOUtils.readAllBytes(file));
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void readAllBytesProcFileTest()
+            throws IOException
+    {
+        //procfs reports size 0
+        File file = new File("/proc/self/cmdline");
+        Assume.assumeTrue(file.exists());
+        byte[] bytes = IOUtils.readAllBytes(file);
+        Assert.assertTrue(bytes.length > 0);
+        Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), bytes);
+    }
+
+    @Test
+    public void copyChannelTest()
+            throws IOException
+    {
+        byte[] bytes = randomBytes(200_000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long copied = IOUtils.copy(Channels.newChannel(new ByteArrayInputStream(bytes)), Channels.newChannel(out));
+        Assert.assertEquals(bytes.length, copied);
+        Assert.assertArrayEquals(bytes, out.toByteArray());
+
+        File file = File.createTempFile("gadtry-io", ".bin");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes));
+            channel.position(100);
+            out.reset();
+            Assert.assertEquals(bytes.length - 100, IOUtils.copy(channel, Channels.newChannel(out)));
+            Assert.assertEquals(bytes.length, channel.position());
+            Assert.assertArrayEquals(Arrays.copyOfRange(bytes, 100, bytes.length), out.toByteArray());
+        }
+        finally {
+            file.delete();
+        }
+    }
 }
@@ -45,4 +45,19 @@ public class LimitedNioChannelTest
         }
         Assert.assertEquals(allBytes.position(), length / 2);
     }
+
+    @Test
+    public void readIntoLargerBufferTest() throws IOException
+    {
+        File file = new File(LimitedNioChannelTest.class.getClassLoader().getResource("blogCatalog-dataset/readme.txt").getFile());
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.limit(1000);
+        try (FileChannel fileChannel = new FileInputStream(file).getChannel()) {
+            LimitedNioChannel nioChannel = new LimitedNioChannel(fileChannel, 2, 10);
+            Assert.assertEquals(10, nioChannel.read(buffer));
+            Assert.assertEquals(-1, nioChannel.read(buffer));
+        }
+        Assert.assertEquals(10, buffer.position());
+        Assert.assertEquals(1000, buffer.limit());
+    }
 }
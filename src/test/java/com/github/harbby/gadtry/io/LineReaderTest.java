@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class LineReaderTest
+{
+    private static List<String> readAll(LineReader reader)
+            throws Exception
+    {
+        List<String> lines = new ArrayList<>();
+        try (LineReader it = reader) {
+            while (it.next()) {
+                lines.add(it.current().toString());
+            }
+        }
+        return lines;
+    }
+
+    private static LineReader of(String text)
+    {
+        return LineReader.of(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void channelLinesTest()
+            throws Exception
+    {
+        Assert.assertEquals(Arrays.asList("a", "", "中文bc", "d"), readAll(of("a\n\r\n中文bc\r\nd")));
+        Assert.assertEquals(Arrays.asList("a", "b"), readAll(of("a\nb\n")));
+        Assert.assertEquals(Arrays.asList(), readAll(of("")));
+        Assert.assertEquals(Arrays.asList("0123456789abcdef0123"), readAll(of("0123456789abcdef0123")));
+    }
+
+    @Test
+    public void lineViewTest()
+            throws Exception
+    {
+        try (LineReader reader = of("hello\nwor")) {
+            Assert.assertTrue(reader.next());
+            LineReader.Line line = reader.current();
+            Assert.assertEquals(5, line.byteLength());
+            Assert.assertEquals('e', line.byteAt(1));
+            Assert.assertEquals("ell", line.subSequence(1, 4).toString());
+            Assert.assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), line.copyBytes());
+            Assert.assertEquals(5, line.asByteBuffer().remaining());
+            Assert.assertTrue(reader.next());
+            Assert.assertSame(line, reader.current());
+            Assert.assertEquals("wor", line.toString());
+            Assert.assertFalse(reader.next());
+            try {
+                reader.current();
+                Assert.fail();
+            }
+            catch (NoSuchElementException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void longLineTest()
+            throws Exception
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 300_000; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        String longLine = builder.toString();
+        Assert.assertEquals(Arrays.asList("x", longLine, "y"), readAll(of("x\n" + longLine + "\ny")));
+    }
+
+    @Test
+    public void mappedFileTest()
+            throws Exception
+    {
+        File file = File.createTempFile("gadtry-lines", ".txt");
+        file.deleteOnExit();
+        List<String> expected = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            String line = "line-" + i;
+            expected.add(line);
+            builder.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(expected, readAll(LineReader.of(file)));
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void indexOfNewlineTest()
+    {
+        byte[] bytes = new byte[40];
+        Assert.assertEquals(-1, LineReader.indexOfNewline(bytes, 0, bytes.length));
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = '\n';
+            Assert.assertEquals(i, LineReader.indexOfNewline(bytes, 0, bytes.length));
+            Assert.assertEquals(-1, LineReader.indexOfNewline(bytes, i + 1, bytes.length));
+            bytes[i] = (byte) 0x8b;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import com.github.harbby.gadtry.collection.EachIterator;
+import com.github.harbby.gadtry.collection.tuple.Tuple2;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ObjectChannelsTest
+{
+    private static List<Tuple2<Integer, String>> createData(int size)
+    {
+        List<Tuple2<Integer, String>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(Tuple2.of(i, "value_" + (i % 100)));
+        }
+        return list;
+    }
+
+    private static byte[] write(List<?> values, boolean compression, int blockSize)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectChannels.Writer writer = ObjectChannels.writer(Channels.newChannel(bytes), compression, blockSize)) {
+            for (Object value : values) {
+                writer.write(value);
+            }
+            Assert.assertEquals(values.size(), writer.getCount());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> List<T> read(byte[] bytes)
+            throws Exception
+    {
+        List<T> list = new ArrayList<>();
+        try (EachIterator<T> reader = ObjectChannels.reader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            while (reader.next()) {
+                list.add(reader.current());
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void writeReadTest()
+            throws Exception
+    {
+        List<Tuple2<Integer, String>> data = createData(5000);
+        byte[] raw = write(data, false, ObjectChannels.DEFAULT_BLOCK_SIZE);
+        byte[] compressed = write(data, true, ObjectChannels.DEFAULT_BLOCK_SIZE);
+        Assert.assertTrue(compressed.length * 2 < raw.length);
+        Assert.assertEquals(data, read(raw));
+        Assert.assertEquals(data, read(compressed));
+        //objects larger than one block
+        Assert.assertEquals(data, read(write(data, true, 100)));
+        Assert.assertEquals(Arrays.asList(), read(write(Arrays.asList(), true, 100)));
+    }
+
+    @Test
+    public void truncatedStreamTest()
+            throws Exception
+    {
+        byte[] bytes = write(createData(100), true, 256);
+        try {
+            read(Arrays.copyOf(bytes, bytes.length - 20));
+            Assert.fail();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void writeAfterCloseTest()
+            throws IOException
+    {
+        ObjectChannels.Writer writer = ObjectChannels.writer(Channels.newChannel(new ByteArrayOutputStream()), true, 256);
+        writer.write(1);
+        writer.close();
+        try {
+            writer.write(2);
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals("writer is closed", e.getMessage());
+        }
+        try {
+            writer.flush();
+            Assert.fail();
+        }
+        catch (IllegalStateException e) {
+            Assert.assertEquals("writer is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void lz4CodecTest()
+            throws IOException
+    {
+        Random random = new Random(0);
+        int[] table = new int[1 << Lz4Codec.HASH_LOG];
+        for (int size : new int[] {0, 1, 12, 13, 100, 1000, 70_000, 300_000}) {
+            for (int alphabet : new int[] {1, 4, 256}) {
+                byte[] src = new byte[size];
+                for (int i = 0; i < size; i++) {
+                    src[i] = (byte) random.nextInt(alphabet);
+                }
+                byte[] dst = new byte[Lz4Codec.maxCompressedLength(size) + 3];
+                int n = Lz4Codec.compress(src, 0, size, dst, 3, table);
+                Assert.assertTrue(n <= Lz4Codec.maxCompressedLength(size));
+                if (alphabet == 1 && size > 100) {
+                    Assert.assertTrue(n * 50 < size);
+                }
+                byte[] out = new byte[size + 1];
+                Lz4Codec.decompress(dst, 3, n, out, 1, size);
+                Assert.assertArrayEquals(src, Arrays.copyOfRange(out, 1, size + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+public class RangeNioChannelTest
+{
+    private static File createFile(int size)
+            throws IOException
+    {
+        File file = File.createTempFile("gadtry-range", ".bin");
+        file.deleteOnExit();
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        Files.write(file.toPath(), bytes);
+        return file;
+    }
+
+    @Test
+    public void readTest()
+            throws IOException
+    {
+        File file = createFile(1000);
+        try (RangeNioChannel channel = new RangeNioChannel(FileChannel.open(file.toPath()), 100, 50)) {
+            Assert.assertEquals(50, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(200);
+            Assert.assertEquals(50, channel.read(buffer));
+            Assert.assertEquals(200, buffer.limit());
+            Assert.assertEquals(-1, channel.read(buffer));
+            Assert.assertEquals(50, channel.position());
+            buffer.flip();
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals((byte) (100 + i), buffer.get());
+            }
+
+            ByteBuffer positional = ByteBuffer.allocate(8);
+            Assert.assertEquals(8, channel.read(positional, 10));
+            Assert.assertEquals((byte) 110, positional.get(0));
+            Assert.assertEquals(50, channel.position());
+            Assert.assertEquals(-1, channel.read(positional, 50));
+        }
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void scatterGatherTest()
+            throws IOException
+    {
+        File file = createFile(100);
+        try (RangeNioChannel channel = new RangeNioChannel(FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE), 10, 20)) {
+            ByteBuffer[] buffers = {ByteBuffer.allocate(5), ByteBuffer.allocate(10), ByteBuffer.allocate(10)};
+            Assert.assertEquals(20, channel.read(buffers));
+            Assert.assertEquals(5, buffers[2].position());
+            Assert.assertEquals((byte) 15, buffers[1].get(0));
+            Assert.assertEquals(-1, channel.read(buffers));
+
+            channel.position(15);
+            ByteBuffer[] srcs = {ByteBuffer.wrap(new byte[] {-1, -1}), ByteBuffer.wrap(new byte[] {-2, -2, -2, -2})};
+            Assert.assertEquals(5, channel.write(srcs));
+            Assert.assertEquals(1, srcs[1].remaining());
+            try {
+                channel.write(srcs);
+                Assert.fail();
+            }
+            catch (IOException ignored) {
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Assert.assertEquals(100, bytes.length);
+        Assert.assertEquals(24, bytes[24]);
+        Assert.assertEquals(-1, bytes[25]);
+        Assert.assertEquals(-2, bytes[29]);
+        Assert.assertEquals(30, bytes[30]);
+        Assert.assertTrue(file.delete());
+    }
+
+    @Test
+    public void sharedChannelTest()
+            throws IOException
+    {
+        File file = createFile(100);
+        try (FileChannel fileChannel = FileChannel.open(file.toPath())) {
+            RangeNioChannel view = new RangeNioChannel(fileChannel, 90, 20, false);
+            Assert.assertEquals(10, view.size());
+            Assert.assertEquals(10, view.read(ByteBuffer.allocate(20)));
+            Assert.assertEquals(0, fileChannel.position());
+            view.close();
+            Assert.assertTrue(fileChannel.isOpen());
+            try {
+                view.read(ByteBuffer.allocate(1));
+                Assert.fail();
+            }
+            catch (ClosedChannelException ignored) {
+            }
+        }
+        Assert.assertTrue(file.delete());
+    }
+}
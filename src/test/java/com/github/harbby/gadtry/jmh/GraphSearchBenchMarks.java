@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.jmh;
+
+import com.github.harbby.gadtry.graph.Edge;
+import com.github.harbby.gadtry.graph.Graph;
+import com.github.harbby.gadtry.graph.Route;
+import com.github.harbby.gadtry.graph.SearchBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/**
+ * route search on a BlogCatalog like random graph(avg out degree 47) and on a long chain:
+ * persistent routes(Route.append) vs copying the whole route per step
+ */
+public class GraphSearchBenchMarks
+{
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(GraphSearchBenchMarks.class.getSimpleName())
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan
+    {
+        @Param({"DEPTH_FIRST", "BREADTH_FIRST", "RECURSIVE_DEPTH_FIRST", "PARALLEL_BREADTH_FIRST"})
+        public SearchBuilder.Optimizer optimizer;
+        public Graph<Void, Void> socialGraph;
+        public Graph<Void, Void> chainGraph;
+
+        @Setup
+        public void setUp()
+        {
+            Random random = new Random(0);
+            int nodes = 10_000;
+            Graph.GraphBuilder<Void, Void> builder = Graph.builder();
+            for (int i = 0; i < nodes; i++) {
+                builder.addNode(String.valueOf(i));
+            }
+            for (int i = 0; i < nodes * 47; i++) {
+                builder.addEdge(String.valueOf(random.nextInt(nodes)), String.valueOf(random.nextInt(nodes)));
+            }
+            socialGraph = builder.create();
+
+            Graph.GraphBuilder<Void, Void> chain = Graph.builder();
+            chain.addNode("0");
+            for (int i = 1; i < 2000; i++) {
+                chain.addNode(String.valueOf(i));
+                chain.addEdge(String.valueOf(i - 1), String.valueOf(i));
+            }
+            chainGraph = chain.create();
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int socialSearch(ExecutionPlan plan)
+    {
+        return plan.socialGraph.search()
+                .optimizer(plan.optimizer)
+                .beginNode("1")
+                .nextRule(route -> route.size() <= 2 && !route.findDeadLoop())
+                .search()
+                .getFindNodeNumber();
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int chainSearch(ExecutionPlan plan)
+    {
+        return plan.chainGraph.search()
+                .optimizer(plan.optimizer)
+                .beginNode("0")
+                .nextRule(route -> true)
+                .search()
+                .getFindNodeNumber();
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int chainSearchCopyRoute(ExecutionPlan plan)
+    {
+        return copyRouteDepthFirst(plan.chainGraph.getRoute("0"));
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int socialSearchCopyRoute(ExecutionPlan plan)
+    {
+        return copyRouteDepthFirst(plan.socialGraph.getRoute("1"), 2);
+    }
+
+    private static int copyRouteDepthFirst(Route<Void, Void> begin)
+    {
+        return copyRouteDepthFirst(begin, Integer.MAX_VALUE);
+    }
+
+    /**
+     * the old search step: route.copy().add(edge).create()
+     */
+    private static int copyRouteDepthFirst(Route<Void, Void> begin, int maxSize)
+    {
+        int number = 0;
+        Deque<Route<Void, Void>> stack = new ArrayDeque<>();
+        stack.add(begin);
+        Route<Void, Void> route;
+        while ((route = stack.pollLast()) != null) {
+            for (Edge<Void, Void> edge : route.getLastNode().nextNodes()) {
+                Route<Void, Void> newRoute = route.copy().add(edge).create();
+                number++;
+                if (newRoute.size() <= maxSize && !newRoute.findDeadLoop()) {
+                    stack.add(newRoute);
+                }
+            }
+        }
+        return number;
+    }
+}
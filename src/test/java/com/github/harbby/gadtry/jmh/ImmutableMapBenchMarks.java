@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.jmh;
+
+import com.github.harbby.gadtry.collection.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * read-only lookup: HashMap vs ImmutableMap builder(open addressing, minimal perfect hash) vs HAMT
+ */
+public class ImmutableMapBenchMarks
+{
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(ImmutableMapBenchMarks.class.getSimpleName())
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan
+    {
+        @Param({"100", "100000"})
+        public int size;
+        public String[] keys;
+        public Map<String, Integer> hashMap;
+        public Map<String, Integer> openAddressingMap;
+        public Map<String, Integer> perfectHashMap;
+        public Map<String, Integer> trieMap;
+
+        @Setup
+        public void setUp()
+        {
+            Random random = new Random(0);
+            keys = new String[size];
+            hashMap = new HashMap<>();
+            ImmutableMap<String, Integer> trie = ImmutableMap.of();
+            for (int i = 0; i < size; i++) {
+                keys[i] = "key_" + random.nextInt();
+                hashMap.put(keys[i], i);
+                trie = trie.updated(keys[i], i);
+            }
+            trieMap = trie;
+            openAddressingMap = ImmutableMap.<String, Integer>builder().putAll(hashMap).build();
+            perfectHashMap = ImmutableMap.<String, Integer>builder().putAll(hashMap).minimalPerfectHash(true).build();
+        }
+    }
+
+    private static void lookup(Map<String, Integer> map, String[] keys, Blackhole bh)
+    {
+        for (String key : keys) {
+            bh.consume(map.get(key));
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void hashMapGet(ExecutionPlan plan, Blackhole bh)
+    {
+        lookup(plan.hashMap, plan.keys, bh);
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void openAddressingGet(ExecutionPlan plan, Blackhole bh)
+    {
+        lookup(plan.openAddressingMap, plan.keys, bh);
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void perfectHashGet(ExecutionPlan plan, Blackhole bh)
+    {
+        lookup(plan.perfectHashMap, plan.keys, bh);
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void hashTrieGet(ExecutionPlan plan, Blackhole bh)
+    {
+        lookup(plan.trieMap, plan.keys, bh);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.jmh;
+
+import com.github.harbby.gadtry.base.Serializables;
+import com.github.harbby.gadtry.base.SerializerSession;
+import com.github.harbby.gadtry.collection.tuple.Tuple3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * serialize many small objects: Serializables.serialize per object vs a reused SerializerSession
+ */
+public class SerializablesBenchMarks
+{
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(SerializablesBenchMarks.class.getSimpleName())
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Thread)
+    public static class ExecutionPlan
+    {
+        @Param({"1000"})
+        public int size;
+        public List<Tuple3<Integer, Long, String>> tuples;
+        public SerializerSession session;
+
+        @Setup
+        public void setUp()
+        {
+            tuples = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tuples.add(Tuple3.of(i, i * 1000L, "name_" + i));
+            }
+            session = Serializables.newSession();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            session.close();
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long serializeEach(ExecutionPlan plan)
+            throws IOException
+    {
+        long bytes = 0;
+        for (Tuple3<Integer, Long, String> tuple : plan.tuples) {
+            bytes += Serializables.serialize(tuple).length;
+        }
+        return bytes;
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long sessionSerializeEach(ExecutionPlan plan)
+            throws IOException
+    {
+        long bytes = 0;
+        for (Tuple3<Integer, Long, String> tuple : plan.tuples) {
+            bytes += plan.session.serialize(tuple).length;
+        }
+        return bytes;
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long sessionSerializeAll(ExecutionPlan plan)
+            throws IOException
+    {
+        return plan.session.serializeAll(plan.tuples).length;
+    }
+}
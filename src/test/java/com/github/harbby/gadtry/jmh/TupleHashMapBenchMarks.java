@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.jmh;
+
+import com.github.harbby.gadtry.collection.tuple.Tuple2;
+import com.github.harbby.gadtry.collection.tuple.Tuple3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * tuple-keyed HashMap get, VarargsTuple3 is the old Objects.hash implementation(before)
+ */
+public class TupleHashMapBenchMarks
+{
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+                .include(TupleHashMapBenchMarks.class.getSimpleName())
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan
+    {
+        @Param({"100000"})
+        public int size;
+        public Tuple2<String, Integer>[] tuple2Keys;
+        public Tuple3<String, Integer, Long>[] tuple3Keys;
+        public Tuple3<String, Integer, Long>[] tuple3CachedKeys;
+        public VarargsTuple3[] varargsKeys;
+        public Map<Tuple2<String, Integer>, Integer> tuple2Map = new HashMap<>();
+        public Map<Tuple3<String, Integer, Long>, Integer> tuple3Map = new HashMap<>();
+        public Map<VarargsTuple3, Integer> varargsMap = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        @Setup
+        public void setUp()
+        {
+            tuple2Keys = new Tuple2[size];
+            tuple3Keys = new Tuple3[size];
+            tuple3CachedKeys = new Tuple3[size];
+            varargsKeys = new VarargsTuple3[size];
+            for (int i = 0; i < size; i++) {
+                String name = "k" + (i % 1000);
+                //lookup with equal but not identical keys, like a join probe
+                tuple2Map.put(Tuple2.of(name, i), i);
+                tuple3Map.put(Tuple3.of(name, i, (long) i), i);
+                varargsMap.put(new VarargsTuple3(name, i, (long) i), i);
+                tuple2Keys[i] = Tuple2.of(name, i);
+                tuple3Keys[i] = Tuple3.of(name, i, (long) i);
+                tuple3CachedKeys[i] = Tuple3.ofCachedHash(name, i, (long) i);
+                varargsKeys[i] = new VarargsTuple3(name, i, (long) i);
+            }
+        }
+    }
+
+    public static final class VarargsTuple3
+    {
+        private final Object f1;
+        private final Object f2;
+        private final Object f3;
+
+        public VarargsTuple3(Object f1, Object f2, Object f3)
+        {
+            this.f1 = f1;
+            this.f2 = f2;
+            this.f3 = f3;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(f1, f2, f3);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if ((obj == null) || (getClass() != obj.getClass())) {
+                return false;
+            }
+            VarargsTuple3 other = (VarargsTuple3) obj;
+            return Objects.equals(this.f1, other.f1) &&
+                    Objects.equals(this.f2, other.f2) &&
+                    Objects.equals(this.f3, other.f3);
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void varargsHashGet(ExecutionPlan plan, Blackhole bh)
+    {
+        for (VarargsTuple3 key : plan.varargsKeys) {
+            bh.consume(plan.varargsMap.get(key));
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void tuple3Get(ExecutionPlan plan, Blackhole bh)
+    {
+        for (Tuple3<String, Integer, Long> key : plan.tuple3Keys) {
+            bh.consume(plan.tuple3Map.get(key));
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void tuple3CachedHashGet(ExecutionPlan plan, Blackhole bh)
+    {
+        for (Tuple3<String, Integer, Long> key : plan.tuple3CachedKeys) {
+            bh.consume(plan.tuple3Map.get(key));
+        }
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void tuple2Get(ExecutionPlan plan, Blackhole bh)
+    {
+        for (Tuple2<String, Integer> key : plan.tuple2Keys) {
+            bh.consume(plan.tuple2Map.get(key));
+        }
+    }
+}
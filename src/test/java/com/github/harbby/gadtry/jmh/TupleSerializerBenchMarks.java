@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 The GadTry Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.harbby.gadtry.jmh;
+
+import com.github.harbby.gadtry.collection.EachIterator;
+import com.github.harbby.gadtry.collection.tuple.FieldCodec;
+import com.github.harbby.gadtry.collection.tuple.Tuple3;
+import com.github.harbby.gadtry.collection.tuple.TupleSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * write/read a batch of tuples: TupleSerializer vs java serialization(one ObjectOutputStream per batch)
+ */
+public class TupleSerializerBenchMarks
+{
+    private static final TupleSerializer<Tuple3<Integer, Long, String>> SERIALIZER = TupleSerializer.of(
+            FieldCodec.varInt(), FieldCodec.varLong(), FieldCodec.string());
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        Options opt = new OptionsBuilder()
+                .include(TupleSerializerBenchMarks.class.getSimpleName())
+                .shouldFailOnError(true)
+                .build();
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExecutionPlan
+    {
+        @Param({"1000"})
+        public int size;
+        public Tuple3<Integer, Long, String>[] tuples;
+        public byte[] tupleBytes;
+        public byte[] javaBytes;
+
+        @SuppressWarnings("unchecked")
+        @Setup
+        public void setUp()
+                throws IOException
+        {
+            tuples = new Tuple3[size];
+            for (int i = 0; i < size; i++) {
+                tuples[i] = Tuple3.of(i, i * 1000L, "name_" + i);
+            }
+            tupleBytes = writeTuples(this);
+            javaBytes = writeJava(this);
+        }
+    }
+
+    private static byte[] writeTuples(ExecutionPlan plan)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TupleSerializer.Writer<Tuple3<Integer, Long, String>> writer = SERIALIZER.writer(new DataOutputStream(bytes))) {
+            for (Tuple3<Integer, Long, String> tuple : plan.tuples) {
+                writer.write(tuple);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] writeJava(ExecutionPlan plan)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(plan.tuples.length);
+            for (Tuple3<Integer, Long, String> tuple : plan.tuples) {
+                out.writeObject(tuple);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public byte[] tupleSerializerWrite(ExecutionPlan plan)
+            throws IOException
+    {
+        return writeTuples(plan);
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public byte[] javaSerializationWrite(ExecutionPlan plan)
+            throws IOException
+    {
+        return writeJava(plan);
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public int tupleSerializerRead(ExecutionPlan plan)
+    {
+        int count = 0;
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(plan.tupleBytes));
+        for (EachIterator<Tuple3<Integer, Long, String>> reader = SERIALIZER.reader(in); reader.next(); ) {
+            count += reader.current().f1();
+        }
+        return count;
+    }
+
+    @Fork(value = 2)
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @SuppressWarnings("unchecked")
+    public int javaSerializationRead(ExecutionPlan plan)
+            throws IOException, ClassNotFoundException
+    {
+        int count = 0;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(plan.javaBytes))) {
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                count += ((Tuple3<Integer, Long, String>) in.readObject()).f1();
+            }
+        }
+        return count;
+    }
+}